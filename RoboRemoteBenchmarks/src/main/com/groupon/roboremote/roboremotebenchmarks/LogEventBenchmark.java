@@ -0,0 +1,139 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremotebenchmarks;
+
+import com.groupon.roboremote.roboremoteclientcommon.logging.EventManager;
+import com.groupon.roboremote.roboremoteclientcommon.logging.LogEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logcat line parsing and event gathering
+ * Lines are in "logcat -v time" format, the same as EventManager receives from the device
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LogEventBenchmark {
+    private static final String[] SAMPLE_LINES = {
+            "08-11 20:03:17.182 I/ActivityManager(  312): Displayed com.example/.MainActivity: +412ms",
+            "08-11 20:03:17.190 D/dalvikvm(1234): GC_CONCURRENT freed 2048K, 25% free 9000K/12000K, paused 2ms+3ms",
+            "08-11 20:03:17.201 W/System.err(1234): java.lang.IllegalStateException: sample",
+            "08-11 20:03:17.215 V/RoboRemote(1234): processOperations:: Current operation: clickOnText"
+    };
+
+    /**
+     * Event manager that is fed lines directly instead of from logcat
+     */
+    public static class FedEventManager extends EventManager {
+        private final MultiReceiver receiver = new MultiReceiver();
+
+        public FedEventManager() throws Exception {
+            super(false);
+        }
+
+        public void feed(String[] lines) {
+            receiver.processNewLines(lines);
+        }
+
+        public List<LogEvent> gather() {
+            return gatherEvents();
+        }
+    }
+
+    /**
+     * Burst of lines for gatherEvents
+     */
+    @State(Scope.Thread)
+    public static class Burst {
+        @Param({"100", "10000"})
+        public int lines;
+
+        private String[] logLines;
+        private FedEventManager eventManager;
+
+        @Setup
+        public void setUp() throws Exception {
+            logLines = new String[lines];
+            for (int x = 0; x < lines; x++) {
+                logLines[x] = SAMPLE_LINES[x % SAMPLE_LINES.length];
+            }
+
+            eventManager = new FedEventManager();
+        }
+    }
+
+    @Benchmark
+    public String parseEvent() {
+        LogEvent event = new LogEvent(SAMPLE_LINES[0]);
+        return event.getMsg();
+    }
+
+    @Benchmark
+    public long peekTime() {
+        LogEvent event = new LogEvent(SAMPLE_LINES[1]);
+        return event.peekTimeMS();
+    }
+
+    @Benchmark
+    public boolean checkMsgSubstring() {
+        LogEvent event = new LogEvent(SAMPLE_LINES[3]);
+        return event.checkMsgSubstring("clickOnText");
+    }
+
+    /**
+     * Feeds a burst of lines and gathers them into events like a waitForEvent poll
+     */
+    @Benchmark
+    public int gatherEvents(Burst burst) throws Exception {
+        burst.eventManager.feed(burst.logLines);
+        int gathered = burst.eventManager.gather().size();
+        burst.eventManager.clearEvents();
+        return gathered;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremotebenchmarks;
+
+import com.groupon.roboremote.roboremoteservercommon.NanoHTTPD;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URLEncoder;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NanoHTTPD request parsing over loopback
+ * serve() returns a constant so the time is spent accepting, parsing the request line, headers and form body
+ * and writing the response
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NanoHttpdBenchmark {
+    /**
+     * Server that skips the operation engine
+     */
+    public static class ConstantServer extends NanoHTTPD {
+        public ConstantServer() throws Exception {
+            super(0, new File("/"));
+        }
+
+        public Response serve(String uri, String method, Properties header, Properties parms, Properties files) {
+            return new Response(HTTP_OK, MIME_HTML, "{\"outcome\":\"SUCCESS\",\"results\":[]}");
+        }
+    }
+
+    // number of operations in the posted form body
+    @Param({"1", "50"})
+    public int operations;
+
+    private ConstantServer server;
+    private int port;
+    private byte[] request;
+    private final byte[] response = new byte[4096];
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new ConstantServer();
+        port = server.getListeningPort();
+
+        StringBuilder json = new StringBuilder("{\"operations\":[");
+        for (int x = 0; x < operations; x++) {
+            if (x > 0) {
+                json.append(',');
+            }
+            json.append("{\"query\":\"solo\",\"operation\":{\"method_name\":\"clickOnText\",\"arguments\":[\"Sign in\",1,true]}}");
+        }
+        json.append("]}");
+
+        String body = "request=" + URLEncoder.encode(json.toString(), "UTF-8");
+        request = ("POST /map HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Content-Type: application/x-www-form-urlencoded\r\n" +
+                "Content-Length: " + body.length() + "\r\n" +
+                "Connection: close\r\n\r\n" + body).getBytes("UTF-8");
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public int post() throws Exception {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        try {
+            socket.setTcpNoDelay(true);
+            OutputStream out = socket.getOutputStream();
+            out.write(request);
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            int total = 0;
+            int read;
+            while ((read = in.read(response)) != -1) {
+                total += read;
+            }
+            return total;
+        } finally {
+            socket.close();
+        }
+    }
+}
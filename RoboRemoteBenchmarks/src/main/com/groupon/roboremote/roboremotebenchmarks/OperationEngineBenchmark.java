@@ -0,0 +1,201 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremotebenchmarks;
+
+import com.groupon.roboremote.roboremoteclientcommon.RequestEncoder;
+import com.groupon.roboremote.roboremotelocalserver.LocalServer;
+import com.groupon.roboremote.roboremoteservercommon.NanoHTTPD;
+import com.groupon.roboremote.roboremoteservercommon.RemoteServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs map requests through RCHttpd.serve without a socket
+ * This covers request parsing, method resolution, argument matching/conversion and getReturnValues
+ * The engine logs every operation to stdout so stdout is discarded while the benchmark runs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OperationEngineBenchmark {
+    /**
+     * Target with overloads and numeric parameters that need type equivalent matching
+     */
+    public static class Target {
+        private final List<String> list;
+        private final String[] array;
+
+        public Target(int size) {
+            list = new ArrayList<String>(size);
+            for (int x = 0; x < size; x++) {
+                list.add("android.widget.TextView@" + Integer.toHexString(x));
+            }
+            array = list.toArray(new String[size]);
+        }
+
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        // Integer arguments have to be matched to long/float
+        public float scale(long value, float factor) {
+            return value * factor;
+        }
+
+        public void clickOnText(String text) {
+        }
+
+        public void clickOnText(String text, int match) {
+        }
+
+        public void clickOnText(String text, int match, boolean scroll) {
+        }
+
+        public Target self() {
+            return this;
+        }
+
+        public List<String> getList() {
+            return list;
+        }
+
+        public String[] getArray() {
+            return array;
+        }
+    }
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private PrintStream stdout;
+    private RemoteServer.RCHttpd httpd;
+    private final Properties header = new Properties();
+    private final Properties files = new Properties();
+
+    private Properties simpleCall;
+    private Properties overloadedCall;
+    private Properties convertedCall;
+    private Properties chainedCall;
+    private Properties listCall;
+    private Properties arrayCall;
+
+    @Setup
+    public void setUp() throws Exception {
+        stdout = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            public void write(int b) {
+            }
+
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+
+        LocalServer server = new LocalServer();
+        server.register("solo", new Target(size));
+        httpd = server.new RCHttpd(0);
+
+        simpleCall = request(new RequestEncoder().addMethodCall("solo", "add", 1, 2));
+        overloadedCall = request(new RequestEncoder().addMethodCall("solo", "clickOnText", "Sign in", 1, true));
+        convertedCall = request(new RequestEncoder().addMethodCall("solo", "scale", 3, 2));
+        chainedCall = request(new RequestEncoder().addMethodCall("solo", "self").addMethodCall(null, "self")
+                .addMethodCall(null, "self").addMethodCall(null, "add", 1, 2));
+        listCall = request(new RequestEncoder().addMethodCall("solo", "getList"));
+        arrayCall = request(new RequestEncoder().addMethodCall("solo", "getArray"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        httpd.stop();
+        System.setOut(stdout);
+    }
+
+    private static Properties request(RequestEncoder encoder) {
+        Properties params = new Properties();
+        params.setProperty("request", encoder.toString());
+        return params;
+    }
+
+    private NanoHTTPD.Response map(Properties params) {
+        return httpd.serve("/map", "POST", header, params, files);
+    }
+
+    @Benchmark
+    public NanoHTTPD.Response simpleCall() {
+        return map(simpleCall);
+    }
+
+    @Benchmark
+    public NanoHTTPD.Response overloadedCall() {
+        return map(overloadedCall);
+    }
+
+    @Benchmark
+    public NanoHTTPD.Response convertedArguments() {
+        return map(convertedCall);
+    }
+
+    @Benchmark
+    public NanoHTTPD.Response chainedCall() {
+        return map(chainedCall);
+    }
+
+    @Benchmark
+    public NanoHTTPD.Response listResult() {
+        return map(listCall);
+    }
+
+    @Benchmark
+    public NanoHTTPD.Response arrayResult() {
+        return map(arrayCall);
+    }
+}
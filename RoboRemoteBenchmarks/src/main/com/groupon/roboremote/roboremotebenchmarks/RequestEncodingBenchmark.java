@@ -0,0 +1,116 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremotebenchmarks;
+
+import com.groupon.roboremote.roboremoteclientcommon.RequestEncoder;
+import com.groupon.roboremote.roboremoteclientcommon.RequestTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building and encoding a typical request with the legacy builder, RequestEncoder and a RequestTemplate
+ * Run with -prof gc to compare allocation rates
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestEncodingBenchmark {
+    private static final RequestTemplate CLICK_ON_TEXT = new RequestTemplate("solo", "clickOnText", 3);
+
+    private final ByteArrayOutputStream connection = new ByteArrayOutputStream(1024);
+
+    @Benchmark
+    public int legacySingleCall() throws Exception {
+        LegacyRequestBuilder builder = new LegacyRequestBuilder();
+        builder.map("solo", "clickOnText", "Sign in", 1, true);
+
+        connection.reset();
+        connection.write(builder.encode());
+        return connection.size();
+    }
+
+    @Benchmark
+    public int encoderSingleCall() throws Exception {
+        RequestEncoder encoder = new RequestEncoder();
+        encoder.addMethodCall("solo", "clickOnText", "Sign in", 1, true);
+
+        connection.reset();
+        encoder.writeTo(connection);
+        return connection.size();
+    }
+
+    @Benchmark
+    public int templateSingleCall() throws Exception {
+        RequestEncoder encoder = CLICK_ON_TEXT.encode("Sign in", 1, true);
+
+        connection.reset();
+        encoder.writeTo(connection);
+        return connection.size();
+    }
+
+    @Benchmark
+    public int legacyChain() throws Exception {
+        LegacyRequestBuilder builder = new LegacyRequestBuilder();
+        builder.map("solo", "getCurrentViews", "android.widget.ListView").call("get", 0).call("getChildAt", 3)
+                .call("findViewById", 2131230720).call("getText").call("toString");
+
+        connection.reset();
+        connection.write(builder.encode());
+        return connection.size();
+    }
+
+    @Benchmark
+    public int encoderChain() throws Exception {
+        RequestEncoder encoder = new RequestEncoder();
+        encoder.addMethodCall("solo", "getCurrentViews", "android.widget.ListView").addMethodCall(null, "get", 0)
+                .addMethodCall(null, "getChildAt", 3).addMethodCall(null, "findViewById", 2131230720)
+                .addMethodCall(null, "getText").addMethodCall(null, "toString");
+
+        connection.reset();
+        encoder.writeTo(connection);
+        return connection.size();
+    }
+}
@@ -0,0 +1,156 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremotebenchmarks;
+
+import com.android.ddmlib.RawImage;
+import com.groupon.roboremote.roboremoteclientcommon.DebugBridge;
+import com.groupon.roboremote.roboremoteclientcommon.RawImageConverter;
+import com.groupon.roboremote.roboremoteclientcommon.ScreenshotFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of a 1080x1920 RGBA framebuffer capture(what DebugBridge.getScreenShot receives) to an image and
+ * to each ScreenshotFormat
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ScreenshotConversionBenchmark {
+    @Param({"PNG", "PNG_FAST", "JPEG", "RAW"})
+    public ScreenshotFormat format;
+
+    private RawImage raw;
+    private BufferedImage image;
+    private final ByteArrayOutputStream png = new ByteArrayOutputStream(4 * 1024 * 1024);
+
+    @Setup
+    public void setUp() {
+        raw = new RawImage();
+        raw.version = 1;
+        raw.bpp = 32;
+        raw.width = 1080;
+        raw.height = 1920;
+        raw.size = raw.width * raw.height * 4;
+        raw.red_offset = 0;
+        raw.red_length = 8;
+        raw.green_offset = 8;
+        raw.green_length = 8;
+        raw.blue_offset = 16;
+        raw.blue_length = 8;
+        raw.alpha_offset = 24;
+        raw.alpha_length = 8;
+        raw.data = new byte[raw.size];
+
+        // flat areas with some noise compress roughly like a real screen
+        Random random = new Random(42);
+        for (int x = 0; x < raw.size; x += 4) {
+            int pixel = x / 4;
+            boolean noisy = (pixel / raw.width) % 64 < 8;
+            raw.data[x] = (byte)(noisy ? random.nextInt(256) : 0xf0);
+            raw.data[x + 1] = (byte)(noisy ? random.nextInt(256) : 0xf0);
+            raw.data[x + 2] = (byte)(noisy ? random.nextInt(256) : 0xf0);
+            raw.data[x + 3] = (byte)0xff;
+        }
+
+        image = DebugBridge.toImage(raw);
+    }
+
+    @Benchmark
+    public BufferedImage rawToImage() {
+        return DebugBridge.toImage(raw);
+    }
+
+    /**
+     * The per pixel getARGB/setRGB conversion DebugBridge used before RawImageConverter, kept as a baseline
+     */
+    @Benchmark
+    public BufferedImage rawToImagePerPixel() {
+        BufferedImage perPixel = new BufferedImage(raw.width, raw.height, BufferedImage.TYPE_INT_ARGB);
+
+        int idx = 0;
+        int inc = raw.bpp >> 3;
+        for (int y = 0; y < raw.height; y++) {
+            for (int x = 0; x < raw.width; x++) {
+                perPixel.setRGB(x, y, raw.getARGB(idx));
+                idx += inc;
+            }
+        }
+
+        return perPixel;
+    }
+
+    @Benchmark
+    public int imageToPng() throws Exception {
+        png.reset();
+        ImageIO.write(image, "png", png);
+        return png.size();
+    }
+
+    @Benchmark
+    public int rawToPng() throws Exception {
+        png.reset();
+        ImageIO.write(DebugBridge.toImage(raw), "png", png);
+        return png.size();
+    }
+
+    /**
+     * What DebugBridge.getScreenShot does after the capture for each format
+     * @return
+     * @throws Exception
+     */
+    @Benchmark
+    public int rawToFormat() throws Exception {
+        png.reset();
+        RawImageConverter.write(raw, format, png);
+        return png.size();
+    }
+}
@@ -34,22 +34,28 @@ package com.groupon.roboremote.roboremoteclient;
 
 import java.lang.Exception;
 import java.lang.String;
-import java.util.ArrayList;
 
-import com.groupon.roboremote.roboremoteclientcommon.Utils;
+import com.groupon.roboremote.roboremoteclientcommon.Gesture;
+import com.groupon.roboremote.roboremoteclientcommon.ResultCache;
 import org.json.JSONArray;
 
 public class Solo {
+    // resources only change with the configuration so they can be served from the result cache
+    static {
+        ResultCache.addPureOperation(Constants.ROBOTIUM_SOLO + ".getLocalizedResource");
+        ResultCache.addPureOperation(Constants.ROBOTIUM_SOLO + ".getResourceId");
+    }
+
     public static void assertCurrentActivity(String message, String name) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "assertCurrentActivity", message, name);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "assertCurrentActivity", message, name);
     }
 
     public static void assertCurrentActivity(String message, String name, boolean isNewInstance) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "assertCurrentActivity", message, name, isNewInstance);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "assertCurrentActivity", message, name, isNewInstance);
     }
 
     public static void assertMemoryNotLow() throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "assertMemoryNotLow");
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "assertMemoryNotLow");
     }
 
     /**
@@ -57,669 +63,672 @@ public class Solo {
      * @param editText - Identifier for the correct widget(ex: android.widget.EditText@409af0b0) - Can be found using getViews
      */
     public static void clearEditText(String editText) throws Exception{
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clearEditText", editText);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clearEditText", editText);
     }
 
     public static void clearEditText(int index) throws Exception{
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clearEditText", index);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clearEditText", index);
     }
 
     public static void clearLog() throws Exception{
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clearLog");
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clearLog");
     }
 
     public static String[] clickInList(int line) throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickInList", line));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "clickInList", line);
     }
 
     public static String[] clickInList(int line, int index) throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickInList", line, index));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "clickInList", line, index);
     }
 
     public static String[] clickLongInList(int line) throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickLongInList", line));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "clickLongInList", line);
     }
 
     public static String[] clickLongInList(int line, int index) throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickLongInList", line, index));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "clickLongInList", line, index);
     }
 
     public static String[] clickLongInList(int line, int index, int time) throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickLongInList", line, index, time));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "clickLongInList", line, index, time);
     }
 
     public static void clickLongOnScreen(float x, float y) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickLongOnScreen", x, y);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickLongOnScreen", x, y);
     }
 
     public static void clickLongOnScreen(float x, float y, int time) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickLongOnScreen", x, y, time);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickLongOnScreen", x, y, time);
     }
 
     public static void clickLongOnText(String text) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickLongOnText", text);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickLongOnText", text);
     }
 
     public static void clickLongOnText(String text, int match) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickLongOnText", text, match);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickLongOnText", text, match);
     }
 
     public static void clickLongOnText(String text, int match, boolean scroll) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickLongOnText", text, match, scroll);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickLongOnText", text, match, scroll);
     }
 
     public static void clickLongOnText(String text, int match, int time) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickLongOnText", text, match, time);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickLongOnText", text, match, time);
     }
 
     public static void clickLongOnTextAndPress(String text, int index) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickLongOnTextAndPress", text, index);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickLongOnTextAndPress", text, index);
     }
 
     public static void clickLongOnView(String view) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickLongOnView", view);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickLongOnView", view);
     }
 
     public static void clickLongOnView(String view, int time) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickLongOnView", view, time);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickLongOnView", view, time);
     }
     
     public static void clickOnActionBarHomeButton() throws Exception {
-    	Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnActionBarHomeButton");
+    	Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnActionBarHomeButton");
     }
 
     public static void clickOnActionBarItem(int resourceId) throws Exception{
-    	Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnActionBarItem", resourceId);
+    	Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnActionBarItem", resourceId);
     }
 
     public static void clickOnButton(int index) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnButton", index);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnButton", index);
     }
 
     public static void clickOnButton(String name) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnButton", name);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnButton", name);
     }
 
     public static void clickOnCheckBox(int index) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnCheckBox", index);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnCheckBox", index);
     }
 
     public static void clickOnEditText(int index) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnEditText", index);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnEditText", index);
     }
 
     public static void clickOnImage(int index) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnImage", index);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnImage", index);
     }
 
     public static void clickOnImageButton(int index) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnImageButton", index);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnImageButton", index);
     }
 
     public static void clickOnMenuItem(String text) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnMenuItem", text);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnMenuItem", text);
     }
 
     public static void clickOnMenuItem(String text, boolean subMenu) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnMenuItem", text, subMenu);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnMenuItem", text, subMenu);
     }
 
     public static void clickOnRadioButton(int index) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnRadioButton", index);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnRadioButton", index);
     }
 
     public static void clickOnScreen(float x, float y) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnScreen", x, y);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnScreen", x, y);
     }
 
     public static void clickOnScreen(float x, float y, int numberOfClicks) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnScreen", x, y, numberOfClicks);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnScreen", x, y, numberOfClicks);
     }
 
     public static void clickOnText(String text) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnText", text);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnText", text);
     }
 
     public static void clickOnText(String text, int match) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnText", text, match);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnText", text, match);
     }
 
     public static void clickOnText(String text, int match, boolean scroll) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnText", text, match, scroll);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnText", text, match, scroll);
     }
 
     public static void clickOnToggleButton(String name) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnToggleButton", name);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnToggleButton", name);
     }
 
     public static void clickOnView(String viewName) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnView", viewName);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnView", viewName);
     }
 
     public static void clickOnView(String viewName, boolean immediately) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "clickOnView", viewName, immediately);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "clickOnView", viewName, immediately);
     }
 
     public static void drag(float fromX, float toX, float fromY, float toY, int stepCount)  throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "drag", fromX, toX, fromY, toY, stepCount);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "drag", fromX, toX, fromY, toY, stepCount);
+    }
+
+    /**
+     * Plays a multi pointer gesture in a single request with the timing kept on the device
+     * @param gesture
+     * @return - the largest number of ms an event was injected after its scheduled time
+     */
+    public static long playGesture(Gesture gesture) throws Exception {
+        return Client.getInstance().mapLong(Constants.ROBOTIUM_SOLO, "playGesture", gesture.toScript());
     }
 
     public static void enterText(String editText, String text) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "enterText", editText, text);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "enterText", editText, text);
     }
 
     public static void enterText(int index, String text) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "enterText", index, text);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "enterText", index, text);
     }
     
     public static void finishInactiveActivities() throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "finishInactiveActivities");
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "finishInactiveActivities");
     }
 
     public static String[] getAllOpenedActivities() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getAllOpenedActivities"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getAllOpenedActivities");
     }
 
     public static String getButton(int index) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getButton", index).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getButton", index);
     }
 
     public static String getButton(String text) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getButton", text).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getButton", text);
     }
 
     public static String getButton(String text, boolean onlyVisible) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getButton", text, onlyVisible).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getButton", text, onlyVisible);
     }
 
     public static String getCurrentActivity() throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentActivity").getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getCurrentActivity");
     }
 
     public static String[] getCurrentButtons() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.Button"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.Button");
     }
 
     public static String[] getCurrentCheckBoxes() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.CheckBox"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.CheckBox");
     }
 
     public static String[] getCurrentDatePickers() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.DatePicker"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.DatePicker");
     }
 
     public static String[] getCurrentEditTexts() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.EditText"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.EditText");
     }
 
     public static String[] getCurrentGridViews() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.EditText"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.GridView");
     }
 
     public static String[] getCurrentImageButtons() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widgetImageButton"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.ImageButton");
     }
 
     public static String[] getCurrentImageViews() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.ImageView"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.ImageView");
     }
 
     public static String[] getCurrentImageViews(String parent) throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widgetImageView", parent));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.ImageView", parent);
     }
 
 
     public static String[] getCurrentListViews() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.ListView"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.ListView");
     }
 
     public static String[] getCurrentProgressBars() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.ProgressBar"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.ProgressBar");
     }
 
     public static String[] getCurrentRadioButtons() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.RadioButton"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.RadioButton");
     }
 
     public static String[] getCurrentScrollViews() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.ScrollView"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.ScrollView");
     }
 
     public static String[] getCurrentSlidingDrawers() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.SlidingDrawer"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.SlidingDrawer");
     }
 
     public static String[] getCurrentSpinners() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.Spinner"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.Spinner");
     }
 
     public static String[] getCurrentTextViews(String parent) throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.TextView", parent));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.TextView", parent);
     }
 
     public static String[] getCurrentTimePickers() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.TimePicker"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.TimePicker");
     }
 
     public static String[] getCurrentToggleButtons() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.ToggleButton"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", "android.widget.ToggleButton");
     }
 
     public static String[] getCurrentViews() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews");
     }
 
     public static String[] getCurrentViews(String classToFilterBy) throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", classToFilterBy));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", classToFilterBy);
     }
 
     public static String[] getCurrentViews(String classToFilterBy, String parent) throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getCurrentViews", classToFilterBy, parent));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getCurrentViews", classToFilterBy, parent);
     }
 
     public static String getEditText(int index) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getEditText", index).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getEditText", index);
     }
 
     public static String getEditText(String text) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getEditText", text).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getEditText", text);
     }
 
     public static String getEditText(String text, boolean onlyVisible) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getEditText", text, onlyVisible).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getEditText", text, onlyVisible);
     }
 
     public static String getImage(int index) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getImage", index).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getImage", index);
     }
 
     public static String getImageButton(int index) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getImageButton", index).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getImageButton", index);
     }
 
     public static String getString(int resId) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getString", resId).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getString", resId);
     }
 
     public static String getText(int index) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getText", index).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getText", index);
     }
 
     public static String getText(String text) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getText", text).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getText", text);
     }
 
     public static String getText(String text, boolean onlyVisible) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getText", text, onlyVisible).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getText", text, onlyVisible);
     }
 
     public static String getTopParent(String view) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getTopParent", view).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getTopParent", view);
     }
 
     public static String getView(int id) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getView", id).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getView", id);
     }
 
     public static String getView(int id, int index) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getView", id, index).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getView", id, index);
     }
 
     public static String getView(String viewClass, int index) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getView", viewClass, index).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getView", viewClass, index);
     }
 
     public static String[] getViews() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getViews"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getViews");
     }
 
     public static String[] getViews(String parent) throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getViews", parent));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getViews", parent);
     }
 
     public static String getWebUrl() throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getWebUrl").getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getWebUrl");
     }
 
     public static void goBack() throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "goBack");
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "goBack");
     }
 
     public static void goBackToActivity(String name) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "goBackToActivity", name);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "goBackToActivity", name);
     }
 
     public static void hideSoftKeyboard() throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "hideSoftKeyboard");
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "hideSoftKeyboard");
     }
 
     public static boolean isCheckBoxChecked(int index) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "isCheckBoxChecked", index).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "isCheckBoxChecked", index);
     }
 
     public static boolean isCheckBoxChecked(String text) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "isCheckBoxChecked", text).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "isCheckBoxChecked", text);
     }
 
     public static boolean isRadioButtonChecked(int index) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "isRadioButtonChecked", index).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "isRadioButtonChecked", index);
     }
 
     public static boolean isRadioButtonChecked(String text) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "isRadioButtonChecked", text).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "isRadioButtonChecked", text);
     }
 
     public static boolean isSpinnerTextSelected(int index, String text) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "isSpinnerTextSelected", index, text).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "isSpinnerTextSelected", index, text);
     }
 
     public static boolean isSpinnerTextSelected(String text) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "isSpinnerTextSelected", text).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "isSpinnerTextSelected", text);
     }
 
     public static boolean isTextChecked(String text) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "isTextChecked", text).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "isTextChecked", text);
     }
 
     public static boolean isToggleButtonChecked(int index) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "isToggleButtonChecked", index).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "isToggleButtonChecked", index);
     }
 
     public static boolean isToggleButtonChecked(String text) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "isToggleButtonChecked", text).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "isToggleButtonChecked", text);
     }
 
     public static void pressMenuItem(int index) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "pressMenuItem", index);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "pressMenuItem", index);
     }
 
     public static void pressMenuItem(int index, int itemsPerRow) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "pressMenuItem", index, itemsPerRow);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "pressMenuItem", index, itemsPerRow);
     }
 
     public static void pressSpinnerItem(int spinnerIndex, int itemIndex)  throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "pressSpinnerItem", spinnerIndex, itemIndex);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "pressSpinnerItem", spinnerIndex, itemIndex);
     }
 
     public static boolean scrollDown() throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollDown").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "scrollDown");
     }
 
     public static boolean scrollDownList(int index) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollDownList", index).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "scrollDownList", index);
     }
 
     public static boolean scrollDownList(String list) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollDownList", list).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "scrollDownList", list);
+    }
+
+    /**
+     * Scrolls a list so the item at a position is on the screen in a single request
+     * @param listIndex - index of the list in getCurrentListViews
+     * @param position - position of the item not counting header views
+     * @return - index of the item among the visible children of the list
+     */
+    public static int scrollListToPosition(int listIndex, int position) throws Exception {
+        return Client.getInstance().mapInt(Constants.ROBOTIUM_SOLO, "scrollListToPosition", listIndex, position);
+    }
+
+    public static int scrollListToPosition(int listIndex, int position, boolean smooth) throws Exception {
+        return Client.getInstance().mapInt(Constants.ROBOTIUM_SOLO, "scrollListToPosition", listIndex, position, smooth);
+    }
+
+    public static String[] getListItemText(int listIndex, int position) throws Exception {
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getListItemText", listIndex, position);
+    }
+
+    public static int getListItemCount(int listIndex) throws Exception {
+        return Client.getInstance().mapInt(Constants.ROBOTIUM_SOLO, "getListItemCount", listIndex);
     }
 
     public static boolean scrollListToBottom(int index) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollListToBottom", index).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "scrollListToBottom", index);
     }
 
     public static boolean scrollListToBottom(String view) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollListToTop", view).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "scrollListToBottom", view);
     }
 
     public static boolean scrollListToTop(int index) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollListToTop", index).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "scrollListToTop", index);
     }
 
     public static boolean scrollListToTop(String view) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollListToTop", view).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "scrollListToTop", view);
     }
 
     public static void scrollToSide(int side) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollToSide", side);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "scrollToSide", side);
     }
 
     public static void scrollToBottom() throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollToBottom");
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "scrollToBottom");
     }
     
     public static void scrollToTop() throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollToTop");
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "scrollToTop");
     }
 
     public static boolean scrollUp() throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollUp").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "scrollUp");
     }
 
     public static boolean scrollUpList(int index) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollUpList", index).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "scrollUpList", index);
     }
 
     public static boolean scrollUpList(String view) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollUpList", view).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "scrollUpList", view);
     }
 
     public static boolean searchButton(String text) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "searchButton", text).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "searchButton", text);
     }
 
     public static boolean searchButton(String text, boolean onlyVisible) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "searchButton", text, onlyVisible).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "searchButton", text, onlyVisible);
     }
 
     public static boolean searchButton(String text, int minimumNumberOfMatches) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "searchButton", text, minimumNumberOfMatches).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "searchButton", text, minimumNumberOfMatches);
     }
 
     public static boolean searchButton(String text, int minimumNumberOfMatches, boolean onlyVisible) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "searchButton", text, minimumNumberOfMatches, onlyVisible).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "searchButton", text, minimumNumberOfMatches, onlyVisible);
     }
 
     public static boolean searchEditText(String text) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "searchEditText", text).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "searchEditText", text);
     }
 
     public static boolean searchText(String text) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "searchText", text).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "searchText", text);
     }
 
     public static boolean searchText(String text, boolean onlyVisible) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "searchText", text, onlyVisible).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "searchText", text, onlyVisible);
     }
 
     public static boolean searchText(String text, int minimumNumberOfMatches) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "searchText", text, minimumNumberOfMatches).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "searchText", text, minimumNumberOfMatches);
     }
 
     public static boolean searchText(String text, int minimumNumberOfMatches, boolean scroll) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "searchText", text, minimumNumberOfMatches, scroll).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "searchText", text, minimumNumberOfMatches, scroll);
     }
 
     public static boolean searchText(String text, int minimumNumberOfMatches, boolean scroll, boolean onlyVisible) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "searchText", text, minimumNumberOfMatches, scroll, onlyVisible).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "searchText", text, minimumNumberOfMatches, scroll, onlyVisible);
     }
 
     public static boolean searchToggleButton(String text) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "searchToggleButton", text).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "searchToggleButton", text);
     }
 
     public static boolean searchToggleButton(String text, int minimumNumberOfMatches) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "searchToggleButton", text, minimumNumberOfMatches).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "searchToggleButton", text, minimumNumberOfMatches);
     }
 
     public static void sendKey(int key) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "sendKey", key);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "sendKey", key);
     }
 
     public static void setActivityOrientation(int orientation) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "setActivityOrientation", orientation);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "setActivityOrientation", orientation);
     }
 
     public static void setDatePicker(String datePicker, int year, int monthOfYear, int dayOfMonth) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "setDatePicker", datePicker, year, monthOfYear, dayOfMonth);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "setDatePicker", datePicker, year, monthOfYear, dayOfMonth);
     }
 
     public static void setDatePicker(int index, int year, int monthOfYear, int dayOfMonth) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "setDatePicker", index, year, monthOfYear, dayOfMonth);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "setDatePicker", index, year, monthOfYear, dayOfMonth);
     }
 
     public static void setProgressBar(int index, int progress) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "setProgressBar", index,  progress);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "setProgressBar", index,  progress);
     }
 
     public static void setProgressBar(String progressBar, int progress) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "setProgressBar", progressBar,  progress);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "setProgressBar", progressBar,  progress);
     }
 
     public static void setSlidingDrawer(int index, int status) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "setSlidingDrawer", index,  status);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "setSlidingDrawer", index,  status);
     }
 
     public static void setSlidingDrawer(String slidingDrawer, int status) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "setSlidingDrawer", slidingDrawer,  status);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "setSlidingDrawer", slidingDrawer,  status);
     }
 
     public static void setTimePicker(int index, int hour, int minute)  throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "setTimePicker", index,  hour, minute);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "setTimePicker", index,  hour, minute);
     }
 
     public static void setTimePicker(String timePicker, int hour, int minute)  throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "setTimePicker", timePicker,  hour, minute);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "setTimePicker", timePicker,  hour, minute);
     }
 
     public static void sleep(int time) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "sleep", time);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "sleep", time);
     }
 
     public void scrollListToLine(int index, int line)  throws Exception{
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollListToLine", index, line);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "scrollListToLine", index, line);
     }
 
     public void scrollListToLine(String view, int line)  throws Exception{
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollListToLine", view, line);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "scrollListToLine", view, line);
     }
 
     public static void scrollViewToSide(String view, int side) throws Exception  {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "scrollViewToSide", view, side);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "scrollViewToSide", view, side);
     }
 
     public static void startScreenshotSequence(String name) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "startScreenshotSequence", name);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "startScreenshotSequence", name);
     }
 
     public static void startScreenshotSequence(String name, int quality, int frameDelay, int maxFrames) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "startScreenshotSequence", name, quality, frameDelay, maxFrames);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "startScreenshotSequence", name, quality, frameDelay, maxFrames);
     }
 
     public static void stopScreenshotSequence(String name) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "stopScreenshotSequence");
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "stopScreenshotSequence");
     }
 
     public static void takeScreenshot() throws Exception {
-    	Client.getInstance().map(Constants.ROBOTIUM_SOLO, "takeScreenshot");
+    	Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "takeScreenshot");
     }
 
     public static void takeScreenshot(String name) throws Exception {
-    	Client.getInstance().map(Constants.ROBOTIUM_SOLO, "takeScreenshot", name);
+    	Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "takeScreenshot", name);
     }
     
     public static void typeText(int index, String text) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "typeText", index, text);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "typeText", index, text);
     }
 
     public static void typeText(String editText, String text) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "typeText", editText, text);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "typeText", editText, text);
     }
 
     public static boolean waitForActivity(String name) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForActivity", name).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "waitForActivity", name);
     }
 
     public static boolean waitForActivity(String name, int timeout) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForActivity", name, timeout).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "waitForActivity", name, timeout);
     }
 
     public static boolean waitForCondition(String condition, int timeout) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForActivity", condition, timeout).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "waitForActivity", condition, timeout);
     }
 
     public static boolean waitForDialogToClose(long timeout) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForDialogToClose", timeout).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "waitForDialogToClose", timeout);
     }
 
 	public static boolean waitForFragmentById(int id) throws Exception {
-		return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForFragmentById", id).getBoolean(0);
+		return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "waitForFragmentById", id);
 	}
 
 	public static boolean waitForFragmentByTag(String tag) throws Exception {
-		return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForFragmentByTag", tag).getBoolean(0);
+		return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "waitForFragmentByTag", tag);
 	}
 	
 	public static boolean waitForLogMessage(String logMessage) throws Exception {
-		return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForLogMessage", logMessage).getBoolean(0);
+		return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "waitForLogMessage", logMessage);
 	}
 	
 
     public static boolean waitForText(String text, int minimumNumberOfMatches, long timeout) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForText", text, minimumNumberOfMatches, timeout).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "waitForText", text, minimumNumberOfMatches, timeout);
     }
 
     public static boolean waitForText(String text, int minimumNumberOfMatches, long timeout, boolean scroll) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForText", text, minimumNumberOfMatches, timeout, scroll).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "waitForText", text, minimumNumberOfMatches, timeout, scroll);
     }
 
     public static boolean waitForText(String text, int minimumNumberOfMatches, long timeout, boolean scroll, boolean onlyVisible) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForText", text, minimumNumberOfMatches, timeout, scroll, onlyVisible).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "waitForText", text, minimumNumberOfMatches, timeout, scroll, onlyVisible);
     }
 
     public static String waitForView(String viewClass, int minimumNumberOfMatches, int timeout) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForView", viewClass, minimumNumberOfMatches, timeout).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "waitForView", viewClass, minimumNumberOfMatches, timeout);
     }
 
     public static String waitForView(String viewClass, int minimumNumberOfMatches, int timeout, boolean scroll) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForView", viewClass, minimumNumberOfMatches, timeout, scroll).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "waitForView", viewClass, minimumNumberOfMatches, timeout, scroll);
     }
 
     public static String waitForView(String view) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForView", view).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "waitForView", view);
     }
 
     public static String waitForView(String view, int timeout, boolean scroll) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForView", view, timeout, scroll).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "waitForView", view, timeout, scroll);
     }
 
     public static String waitForView(int id ) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForView", id).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "waitForView", id);
     }
 
     public static String waitForView(int id, int minimumNumberOfMatches, int timeout) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForView", id, minimumNumberOfMatches, timeout).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "waitForView", id, minimumNumberOfMatches, timeout);
     }
 
     public static String waitForView(int id, int minimumNumberOfMatches, int timeout, boolean scroll) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForView", id, minimumNumberOfMatches, timeout, scroll).getString(0);
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "waitForView", id, minimumNumberOfMatches, timeout, scroll);
     }
 
 
@@ -729,32 +738,53 @@ public class Solo {
      * @return
      */
     public static String[] getTextFromView(String viewName) throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getTextFromView", viewName));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getTextFromView", viewName);
     }
 
     public static void waitForHintText(String hintText, int timeout) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForHintText", hintText, timeout);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "waitForHintText", hintText, timeout);
     }
 
     public static String[] getVisibleText() throws Exception {
-        ArrayList<String> abar = Utils.jsonArrayToStringList(Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getVisibleText"));
-        return abar.toArray(new String[0]);
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "getVisibleText");
     }
     
     public static int getResourceId(String namespace, String resourceType, String resourceName) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "getResourceId", namespace, resourceType, resourceName).getInt(0);
+        return Client.getInstance().mapInt(Constants.ROBOTIUM_SOLO, "getResourceId", namespace, resourceType, resourceName);
     }
 
     /**
      * SOLO2 addons
      */
+    public static String getLocalizedResource(String namespace, String resourceId) throws Exception {
+        return Client.getInstance().mapString(Constants.ROBOTIUM_SOLO, "getLocalizedResource", namespace, resourceId);
+    }
+
+    /**
+     * Finds a visible view by its text and clicks it in a single request
+     * @param type - simple class name in android.widget(ex: Button) or a fully qualified class name
+     * @param label - text or regular expression to match
+     * @param timeout - amount of time to keep looking in ms
+     * @return - {outcome, view} where outcome is one of the com.groupon.roboremote.Constants.VIEW_* values
+     */
+    public static String[] clickIfVisible(String type, String label, int timeout) throws Exception {
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "clickIfVisible", type, label, timeout);
+    }
+
+    public static String[] findVisibleView(String type, String label, int timeout) throws Exception {
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "findVisibleView", type, label, timeout);
+    }
+
+    public static String[] findVisibleText(String label, int timeout) throws Exception {
+        return Client.getInstance().mapStringArray(Constants.ROBOTIUM_SOLO, "findVisibleText", label, timeout);
+    }
+
     public static boolean isVisible(String view) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "isVisible", view).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "isVisible", view);
     }
 
     public static boolean waitForActivity(String applicationName, String activityName, int timeout) throws Exception {
-        return Client.getInstance().map(Constants.ROBOTIUM_SOLO, "waitForActivity", applicationName, activityName, timeout).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.ROBOTIUM_SOLO, "waitForActivity", applicationName, activityName, timeout);
     }
 
     public static void waitForViewToBeVisible(String view, int timeout) throws Exception {
@@ -801,7 +831,7 @@ public class Solo {
     }
 
     public static void enterTextAndWait(int fieldResource, String value) throws Exception {
-        Client.getInstance().map(Constants.ROBOTIUM_SOLO, "enterTextAndWait", fieldResource, value);
+        Client.getInstance().mapVoid(Constants.ROBOTIUM_SOLO, "enterTextAndWait", fieldResource, value);
     }
 
     /**
@@ -36,10 +36,15 @@ import com.android.ddmlib.NullOutputReceiver;
 import com.groupon.roboremote.Constants;
 import com.groupon.roboremote.roboremoteclientcommon.DebugBridge;
 import com.groupon.roboremote.roboremoteclientcommon.Device;
+import com.groupon.roboremote.roboremoteclientcommon.DeviceContext;
+import com.groupon.roboremote.roboremoteclientcommon.DeviceSession;
+import com.groupon.roboremote.roboremoteclientcommon.FrameSampler;
+import com.groupon.roboremote.roboremoteclientcommon.LogbackAppender;
 import com.groupon.roboremote.roboremoteclientcommon.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.groupon.roboremote.roboremoteclientcommon.logging.*;
+import com.groupon.roboremote.roboremoteclientcommon.replay.ReplayServer;
 
 import java.io.File;
 import java.lang.Exception;
@@ -53,15 +58,20 @@ public class TestBase {
     static String test_runner = null;
     static AppThread ap = null;
     static int _roboremote_port = Constants.ROBOREMOTE_SERVER_PORT;
+    private static final String APP_THREAD_ATTRIBUTE = TestBase.class.getName() + ".appThread";
 
     public static void onFailure() throws Exception {
+        // there is no device to take a screenshot of when replaying
+        if (ReplayServer.isReplaying())
+            return;
+
         logger.warn("TestBase::OnFailure:: Taking screenshot");
-        DebugBridge.get().getScreenShot("FAILURE.png");
-        Device.storeFailurePng();
+        Device.storeFailureFrames();
+        Device.storeFailureScreenshot();
     }
     
     public static void setUp(String testName) throws Exception {
-        setUp(testName, false, true, _roboremote_port);
+        setUp(testName, false, true, getRoboRemotePort());
     }
 
     public static void setUp(String testName, int port) throws Exception {
@@ -73,6 +83,10 @@ public class TestBase {
      * @return
      */
     public static int getRoboRemotePort() {
+        DeviceContext context = DeviceContext.current();
+        if (context != null)
+            return context.getRoboRemotePort();
+
         return _roboremote_port;
     }
 
@@ -82,8 +96,23 @@ public class TestBase {
      * @param clearAppData - true if you want app data cleared, false otherwise
      */
     public static void setUp(String testName, Boolean relaunch, Boolean clearAppData, int port) throws Exception {
-        // another port may have been passed in for use
-        _roboremote_port = port;
+        // another port may have been passed in for use, a device context brings its own
+        if (DeviceContext.current() == null) {
+            _roboremote_port = port;
+            LogbackAppender.setClient(com.groupon.roboremote.roboremoteclientcommon.Client.forPort(port));
+        }
+
+        // when replaying a recording the recorded responses stand in for the device and app
+        if (ReplayServer.isReplaying()) {
+            if (! relaunch) {
+                logger.info("Replaying test {}", testName);
+                Utils.setTestName(testName);
+                Device.setupLogDirectories();
+            }
+
+            ReplayServer.startFromEnvironment(getRoboRemotePort());
+            return;
+        }
 
         if (! relaunch) {
             logger.info("Starting test {}", testName);
@@ -91,7 +120,7 @@ public class TestBase {
             Device.setupLogDirectories();
 
             // create adb tunnel
-            DebugBridge.get().createTunnel(_roboremote_port, _roboremote_port);
+            DebugBridge.get().createTunnel(getRoboRemotePort(), getRoboRemotePort());
         }
 
         // see if a server is already listening
@@ -130,7 +159,10 @@ public class TestBase {
 
             TestLogger.get().info("Starting logcat");
             DebugBridge.get().startLogListener(System.getProperty("java.io.tmpdir") + 
-            		File.separator + "adb_robo.log");
+            		File.separator + Device.getTempLogName("adb_robo.log"));
+
+            if (FrameSampler.isEnabled())
+                DebugBridge.get().startFrameSampler();
 
             // set up logger
             EmSingleton.intialize();
@@ -147,6 +179,11 @@ public class TestBase {
 
     // This is called in the failure method override above
     public void tearDown() throws Exception {
+        if (ReplayServer.isReplaying()) {
+            Device.storeClientMetrics();
+            return;
+        }
+
         try
         {
             EmSingleton.get().close();
@@ -155,9 +192,11 @@ public class TestBase {
             // stop logcat
             TestLogger.get().info("Stopping logcat");
             DebugBridge.get().stopLogListener();
+            DebugBridge.get().stopFrameSampler();
 
             // store logs
-            Device.storeLogs("adb_robo.log", "robo.log");
+            Device.storeLogs(Device.getTempLogName("adb_robo.log"), "robo.log");
+            Device.storeClientMetrics();
         } catch (Exception e) {
 
         } finally {
@@ -201,9 +240,30 @@ public class TestBase {
         return app_package;
     }
 
+    /**
+     * Gets the thread running the instrumentation for the device of the calling thread
+     * @return
+     */
+    private static AppThread getAppThread() {
+        DeviceContext context = DeviceContext.current();
+        if (context != null)
+            return (AppThread) context.getAttribute(APP_THREAD_ATTRIBUTE);
+
+        return ap;
+    }
+
+    private static void setAppThread(AppThread appThread) {
+        DeviceContext context = DeviceContext.current();
+        if (context != null)
+            context.setAttribute(APP_THREAD_ATTRIBUTE, appThread);
+        else
+            ap = appThread;
+    }
+
     public static void startApp() throws Exception {
-        ap = new AppThread();
-        ap.start();
+        AppThread appThread = new AppThread();
+        setAppThread(appThread);
+        appThread.start();
 
         for (int x = 0; x < 10; x++) {
             // try to make a query.. if it doesnt work then sleep
@@ -227,10 +287,11 @@ public class TestBase {
         }
 
         // shut down the thread
-        if (ap != null) {
-            ap.close();
-            ap.interrupt();
-            ap = null;
+        AppThread appThread = getAppThread();
+        if (appThread != null) {
+            appThread.close();
+            appThread.interrupt();
+            setAppThread(null);
         }
 
         // wait for the server to be dead
@@ -253,9 +314,18 @@ public class TestBase {
      * DebugBridge does not return until the instrumentation finishes so we have to run it in its own thread
      */
     private static class AppThread extends Thread {
+        // looked up on the thread that starts the app since its DeviceContext is not inherited
+        private final DeviceSession session;
+        private final String instrumentCommand;
+
+        public AppThread() throws Exception {
+            session = DebugBridge.get().getSession();
+            instrumentCommand = "am instrument -e port " + getRoboRemotePort() + " -w " + getTestRunner();
+        }
+
         public void run() {
             try {
-                DebugBridge.get().runShellCommand("am instrument -e port " + _roboremote_port + " -w " + getTestRunner(), new NullOutputReceiver(), 0);
+                session.runShellCommand(instrumentCommand, new NullOutputReceiver(), 0);
             } catch (Exception e) {
 
             }
@@ -32,42 +32,49 @@
 
 package com.groupon.roboremote.roboremoteclient.components;
 
+import com.groupon.roboremote.Constants;
 import com.groupon.roboremote.roboremoteclient.Solo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class Button {
     private static final Logger logger = LoggerFactory.getLogger("test");
+    private static final int FIND_TIMEOUT = 10000;
 
     public static boolean exists(String label) throws Exception {
+        String[] outcome;
         try {
-            String button = Solo.getButton(label);
-            if (! Solo.isVisible(button)) {
-                logger.warn("Found button {}, but it is not visible");
-                return false;
-            }
+            outcome = Solo.findVisibleView("Button", label, FIND_TIMEOUT);
         } catch (Exception e) {
             return false;
         }
 
-        return true;
+        if (outcome[0].equals(Constants.VIEW_NOT_VISIBLE))
+            logger.warn("Found button {}, but it is not visible", label);
+
+        return outcome[0].equals(Constants.VIEW_FOUND);
     }
 
     public static boolean touch(String label) throws Exception {
         logger.info("Attempting to touch button: {}", label);
 
-        if (!exists(label)) {
-            logger.info("Button does not exist: {}", label);
-            return false;
-        }
-
+        String[] outcome;
         try {
-            Solo.clickOnButton(label);
-            logger.info("Touched button: {}", label);
+            outcome = Solo.clickIfVisible("Button", label, FIND_TIMEOUT);
         } catch (Exception e) {
             logger.warn("Could not touch button: {}: {}", label, e.getMessage());
+            return false;
+        }
+
+        if (outcome[0].equals(Constants.VIEW_NOT_VISIBLE)) {
+            logger.warn("Found button {}, but it is not visible", label);
+            return false;
+        } else if (! outcome[0].equals(Constants.VIEW_CLICKED)) {
+            logger.info("Button does not exist: {}", label);
+            return false;
         }
 
+        logger.info("Touched button: {}", label);
         return true;
     }
 }
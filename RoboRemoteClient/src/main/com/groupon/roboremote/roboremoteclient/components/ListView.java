@@ -33,7 +33,6 @@
 package com.groupon.roboremote.roboremoteclient.components;
 
 import com.groupon.roboremote.roboremoteclient.Solo;
-import com.groupon.roboremote.roboremoteclient.QueryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -80,71 +79,27 @@ public class ListView {
     }
 
     public static int scrollToIndex(int itemIndex) throws Exception {
-        return scrollToIndex(Solo.getCurrentListViews()[0], itemIndex);
+        return Solo.scrollListToPosition(0, itemIndex);
     }
 
     /**
      * Scrolls the specified item index onto the screen and returns the offset based on the current visible list
+     * The scrolling and layout wait happen on the server in a single request
      * @param listRef
      * @param itemIndex
      * @return
      * @throws Exception
      */
     public static int scrollToIndex(String listRef, int itemIndex) throws Exception {
-        int listViewIndex = getListViewIndex(listRef);
-
-        if (itemIndex >= numItemsInList(listRef))
-            throw new Exception("Item index is greater than number of items in the list");
-
-        // scroll to the top of this view if we already passed the index being looked for
-        QueryBuilder builder = new QueryBuilder();
-        int firstVisiblePosition = builder.map("solo", "getCurrentViews", "android.widget.ListView").call("get", listViewIndex).call("getFirstVisiblePosition").execute().getInt(0);
-        if (firstVisiblePosition > itemIndex)
-            scrollToTop();
-
-        boolean scrollDown = true;
-        // need to get the wanted item onto the screen
-        while (true) {
-            builder = new QueryBuilder();
-            firstVisiblePosition = builder.map("solo", "getCurrentViews", "android.widget.ListView").call("get", listViewIndex).call("getFirstVisiblePosition").execute().getInt(0);
-
-            builder = new QueryBuilder();
-            int headersViewsCount = builder.map("solo", "getCurrentViews", "android.widget.ListView").call("get", listViewIndex).call("getHeaderViewsCount").execute().getInt(0);
-
-            firstVisiblePosition = firstVisiblePosition - headersViewsCount;
-
-            builder = new QueryBuilder();
-            int visibleChildCount = builder.map("solo", "getCurrentViews", "android.widget.ListView").call("get", listViewIndex).call("getChildCount").execute().getInt(0);
-
-            int wantedPosition = itemIndex - firstVisiblePosition;
-
-            if (wantedPosition >= visibleChildCount) {
-                // check to see if we can even scroll anymore
-                if (! scrollDown) {
-                    break;
-                }
-
-                scrollDown = Solo.scrollDownList(listViewIndex);
-            } else {
-                // return the position
-                return wantedPosition;
-            }
-        }
-
-        throw new Exception("Could not find item");
+        return Solo.scrollListToPosition(getListViewIndex(listRef), itemIndex);
     }
 
     public static int numItemsInList() throws Exception {
-        return numItemsInList(Solo.getCurrentListViews()[0]);
+        return Solo.getListItemCount(0);
     }
 
     public static int numItemsInList(String listRef) throws Exception {
-        int listViewIndex = getListViewIndex(listRef);
-
-        QueryBuilder builder = new QueryBuilder();
-        int childCount = builder.map("solo", "getCurrentViews", "android.widget.ListView").call("get", listViewIndex).call("getAdapter").call("getCount").execute().getInt(0);
-
-        return childCount;
+        return Solo.getListItemCount(getListViewIndex(listRef));
     }
 
     private static int getListViewIndex(String listRef) throws Exception {
@@ -164,13 +119,11 @@ public class ListView {
         throw new Exception("Could not find listView");
     }
     
-    public static String[] getText(String listRef, int itemIndex) throws Exception {
-        int listViewIndex = getListViewIndex(listRef);
-
-        int actualIndex = scrollToIndex(listRef, itemIndex);
+    public static String[] getText(int itemIndex) throws Exception {
+        return Solo.getListItemText(0, itemIndex);
+    }
 
-        String cellRef = new QueryBuilder().map("solo", "getCurrentViews", "android.widget.ListView").call("get", listViewIndex).call("getChildAt", actualIndex).execute().getString(0);
-        
-        return Solo.getTextFromView(cellRef);
+    public static String[] getText(String listRef, int itemIndex) throws Exception {
+        return Solo.getListItemText(getListViewIndex(listRef), itemIndex);
     }
 }
@@ -32,11 +32,10 @@
 
 package com.groupon.roboremote.roboremoteclient.components;
 
-import com.groupon.roboremote.roboremoteclient.Client;
+import com.groupon.roboremote.Constants;
 import com.groupon.roboremote.roboremoteclient.Solo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.json.*;
 
 public class Text {
     private static final Logger logger = LoggerFactory.getLogger("test");
@@ -48,25 +47,17 @@ public class Text {
     public static boolean exists(String label, int timeout) throws Exception {
         logger.info("Attempting to find text: {}", label);
 
-        if (! Solo.waitForText(label, 1, timeout, false)) {
-            logger.warn("Could not find text: {}", label);
-            return false;
-        }
-        
-        JSONArray retVal = Client.getInstance().map("solo", "getText", label, true);
+        String[] outcome = Solo.findVisibleText(label, timeout);
 
-        if (retVal.length() == 0) {
-            logger.warn("Could not find text: {}", label);
-            return false;
-        }
-
-        // make sure the text is visible
-        if (! Solo.isVisible(retVal.getString(0))) {
+        if (outcome[0].equals(Constants.VIEW_NOT_VISIBLE)) {
             logger.warn("Found text but it is not visible: {}", label);
             return false;
+        } else if (! outcome[0].equals(Constants.VIEW_FOUND)) {
+            logger.warn("Could not find text: {}", label);
+            return false;
         }
 
         logger.info("Found text: {}", label);
         return true;
     }
-}
\ No newline at end of file
+}
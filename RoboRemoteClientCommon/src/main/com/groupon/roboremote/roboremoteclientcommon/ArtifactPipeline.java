@@ -0,0 +1,298 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon;
+
+import com.android.ddmlib.RawImage;
+import com.groupon.roboremote.roboremoteclientcommon.logging.TestLogger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes test artifacts(screenshots, logs, reports) to the log directory of a test on a background thread so
+ * failure handling and teardown do not wait for encoding, compression or disk writes
+ * Anything a task needs is captured when it is queued, so the next test can start while the previous test's
+ * artifacts are still being written.  Call flush at the end of a suite to wait for them.
+ * ROBO_ARTIFACT_QUEUE - number of artifacts that can be waiting before queueing blocks(default 16)
+ * ROBO_ARTIFACT_COMPRESS - set to false to store logs uncompressed
+ */
+public class ArtifactPipeline {
+    public static final String COMPRESSED_EXTENSION = ".gz";
+
+    // how long the shutdown hook waits for queued artifacts
+    public static final long SHUTDOWN_TIMEOUT = 30000;
+
+    /* Here is the instance of the Singleton */
+    private static ArtifactPipeline instance_ = null;
+
+    /* Need the following object to synchronize */
+    /* a block */
+    private static Object syncObject_ = new Object();
+
+    /**
+     * A unit of work for the pipeline
+     */
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    private final BlockingQueue<Runnable> queue;
+    private final boolean compressLogs = !"false".equalsIgnoreCase(Utils.getEnv("ROBO_ARTIFACT_COMPRESS", "true"));
+    private final List<String> failures = new ArrayList<String>();
+
+    // guarded by this
+    private long queued = 0;
+    private long completed = 0;
+
+    /* Prevent direct access to the constructor */
+    private ArtifactPipeline() {
+        super();
+        queue = new ArrayBlockingQueue<Runnable>(Integer.parseInt(Utils.getEnv("ROBO_ARTIFACT_QUEUE", "16")));
+
+        Thread worker = new Thread(new Runnable() {
+            public void run() {
+                while (true) {
+                    try {
+                        queue.take().run();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }, "roboremote-artifacts");
+        // do not keep the test JVM alive, the shutdown hook drains the queue instead
+        worker.setDaemon(true);
+        worker.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            public void run() {
+                try {
+                    flush(SHUTDOWN_TIMEOUT);
+                } catch (InterruptedException e) {
+                    // exiting anyway
+                }
+            }
+        }, "roboremote-artifacts-shutdown"));
+    }
+
+    public static ArtifactPipeline get() {
+        synchronized (syncObject_) {
+            if (instance_ == null) {
+                instance_ = new ArtifactPipeline();
+            }
+            return instance_;
+        }
+    }
+
+    /**
+     * Queues a task, blocking while the queue is full
+     * @param description - used when reporting a failure
+     * @param task
+     * @throws InterruptedException
+     */
+    public void submit(final String description, final Task task) throws InterruptedException {
+        synchronized (this) {
+            queued++;
+        }
+
+        Runnable runnable = new Runnable() {
+            public void run() {
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    TestLogger.get().warn("Could not store {}: {}", description, e.getMessage());
+                    synchronized (ArtifactPipeline.this) {
+                        failures.add(description + ": " + e.getMessage());
+                    }
+                } finally {
+                    synchronized (ArtifactPipeline.this) {
+                        completed++;
+                        ArtifactPipeline.this.notifyAll();
+                    }
+                }
+            }
+        };
+
+        try {
+            queue.put(runnable);
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                queued--;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Encodes a framebuffer capture into a file
+     * @param raw
+     * @param format
+     * @param destination
+     * @throws InterruptedException
+     */
+    public void storeScreenshot(final RawImage raw, final ScreenshotFormat format, final File destination) throws InterruptedException {
+        submit(destination.getPath(), new Task() {
+            public void run() throws Exception {
+                OutputStream out = new BufferedOutputStream(new FileOutputStream(destination), 64 * 1024);
+                try {
+                    RawImageConverter.write(raw, format, out);
+                } finally {
+                    out.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * Moves a log into a file, gzip compressing it unless ROBO_ARTIFACT_COMPRESS is false
+     * The source is renamed before this returns so whatever writes the log next starts a new file
+     * @param source
+     * @param destination - compressed logs get COMPRESSED_EXTENSION appended
+     * @return the file the log will be written to
+     * @throws Exception
+     */
+    public File storeLog(File source, File destination) throws Exception {
+        // a rename in the same directory is cheap and frees the source name right away
+        final File staged = new File(source.getPath() + "." + System.nanoTime() + ".staged");
+        if (!source.renameTo(staged))
+            throw new Exception("Could not stage log: " + source);
+
+        final File target = compressLogs ? new File(destination.getPath() + COMPRESSED_EXTENSION) : destination;
+
+        if (!compressLogs && staged.renameTo(target))
+            return target;
+
+        submit(target.getPath(), new Task() {
+            public void run() throws Exception {
+                InputStream in = new FileInputStream(staged);
+                OutputStream out = new FileOutputStream(target);
+                try {
+                    if (compressLogs)
+                        out = new GZIPOutputStream(out, 64 * 1024);
+
+                    byte[] buffer = new byte[64 * 1024];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                    }
+                } finally {
+                    in.close();
+                    out.close();
+                }
+
+                if (!staged.delete())
+                    TestLogger.get().warn("Could not delete staged log {}", staged);
+            }
+        });
+
+        return target;
+    }
+
+    /**
+     * Writes text into a file
+     * @param text
+     * @param destination
+     * @throws InterruptedException
+     */
+    public void storeText(final String text, final File destination) throws InterruptedException {
+        submit(destination.getPath(), new Task() {
+            public void run() throws Exception {
+                Writer writer = new OutputStreamWriter(new FileOutputStream(destination), "UTF-8");
+                try {
+                    writer.write(text);
+                } finally {
+                    writer.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits for everything queued before this call to be written
+     * @throws Exception listing the artifacts that could not be stored since the last flush
+     */
+    public void flush() throws Exception {
+        flush(0);
+
+        synchronized (this) {
+            if (!failures.isEmpty()) {
+                String message = "Could not store artifacts: " + failures;
+                failures.clear();
+                throw new Exception(message);
+            }
+        }
+    }
+
+    /**
+     * Waits for everything queued before this call to be written
+     * @param timeout - ms, 0 to wait forever
+     * @return false if the timeout passed first
+     * @throws InterruptedException
+     */
+    public synchronized boolean flush(long timeout) throws InterruptedException {
+        long target = queued;
+        long deadline = System.currentTimeMillis() + timeout;
+
+        while (completed < target) {
+            if (timeout == 0) {
+                wait();
+            } else {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0)
+                    return false;
+                wait(remaining);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the number of artifacts that are queued or being written
+     * @return
+     */
+    public synchronized long getPendingCount() {
+        return queued - completed;
+    }
+}
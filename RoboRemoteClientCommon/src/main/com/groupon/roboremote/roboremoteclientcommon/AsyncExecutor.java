@@ -0,0 +1,109 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the thread pool used for asynchronous requests(QueryBuilder.executeAsync, Client.mapAsync)
+ * Requests share the pooled transport so independent calls run concurrently over separate connections.
+ * ROBO_ASYNC_THREADS - number of threads(default 8)
+ */
+public class AsyncExecutor {
+    /* Here is the instance of the Singleton */
+    private static ExecutorService instance_ = null;
+
+    /* Need the following object to synchronize */
+    /* a block */
+    private static Object syncObject_ = new Object();
+
+    /* Prevent direct access to the constructor */
+    private AsyncExecutor() {
+        super();
+    }
+
+    public static ExecutorService get() {
+        synchronized (syncObject_) {
+            if (instance_ == null) {
+                final AtomicInteger threadCount = new AtomicInteger();
+                instance_ = Executors.newFixedThreadPool(Integer.parseInt(Utils.getEnv("ROBO_ASYNC_THREADS", "8")),
+                        new ThreadFactory() {
+                            public Thread newThread(Runnable runnable) {
+                                Thread thread = new Thread(runnable, "roboremote-async-" + threadCount.incrementAndGet());
+                                // do not keep the test JVM alive
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+            }
+            return instance_;
+        }
+    }
+
+    public static <T> Future<T> submit(Callable<T> task) {
+        return get().submit(task);
+    }
+
+    /**
+     * Waits for an asynchronous request and returns its result
+     * The exception thrown by the request is rethrown as is rather than wrapped in an ExecutionException
+     * @param future
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+
+    public static void release() {
+        synchronized (syncObject_) {
+            if (instance_ != null) {
+                instance_.shutdownNow();
+            }
+            instance_ = null;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Queues void calls made on the current thread and sends them to the server as one request
+ * The queue is flushed when the batch is closed or when a call that returns a value is made(so ordering is kept).
+ *
+ * Ex:
+ * Batch batch = Client.batch();
+ * try {
+ *     Solo.clickOnText("Settings");
+ *     Solo.enterText(0, "text");
+ * } finally {
+ *     batch.close();
+ * }
+ *
+ * Batches opened for the same client while one is already open on the thread join the outer batch.
+ * A call to another client(ex: UiDevice inside a Solo batch) flushes the open batch first so the calls keep their order.
+ */
+public class Batch implements Closeable {
+    private static final ThreadLocal<Batch> current = new ThreadLocal<Batch>();
+
+    private final Client client;
+    private int depth = 1;
+    private final List<RequestEncoder> chains = new ArrayList<RequestEncoder>();
+    private final List<String> names = new ArrayList<String>();
+
+    private Batch(Client client) {
+        this.client = client;
+    }
+
+    /**
+     * Opens a batch for the specified client
+     * @param client
+     * @return
+     * @throws Exception if a batch for another client is already open on this thread
+     */
+    static Batch open(Client client) throws Exception {
+        Batch batch = current.get();
+        if (batch != null) {
+            if (batch.client != client)
+                throw new Exception("A batch for " + batch.client.getHost() + ":" + batch.client.getPort() + " is already open on this thread");
+
+            batch.depth++;
+            return batch;
+        }
+
+        batch = new Batch(client);
+        current.set(batch);
+        return batch;
+    }
+
+    /**
+     * Returns the batch open on this thread for the specified client or null
+     * A batch open for another client is flushed since the caller is about to send a request right away
+     * @param client
+     * @return
+     * @throws Exception
+     */
+    static Batch current(Client client) throws Exception {
+        Batch batch = current.get();
+        if (batch == null)
+            return null;
+
+        if (batch.client == client)
+            return batch;
+
+        batch.flush();
+        return null;
+    }
+
+    /**
+     * Flushes the batch open on this thread(if any, for any client) so queued calls run before the next request
+     * @param client
+     * @throws Exception
+     */
+    static void barrier(Client client) throws Exception {
+        Batch batch = current.get();
+        if (batch != null)
+            batch.flush();
+    }
+
+    void add(RequestEncoder chain, String name) {
+        chains.add(chain);
+        names.add(name);
+    }
+
+    /**
+     * @return number of queued calls
+     */
+    public int size() {
+        return chains.size();
+    }
+
+    /**
+     * Sends the queued calls
+     * The queue is cleared even if a call fails.  Calls after the failed one are not run
+     * @throws BatchException if a call failed
+     */
+    public void flush() throws BatchException {
+        if (chains.isEmpty())
+            return;
+
+        List<RequestEncoder> sending = new ArrayList<RequestEncoder>(chains);
+        List<String> sendingNames = new ArrayList<String>(names);
+        chains.clear();
+        names.clear();
+
+        ResponseReader.Status status;
+        try {
+            status = client.post(Constants.REQUEST_BATCH, RequestEncoder.forBatch(sending), null, Constants.REQUEST_BATCH);
+        } catch (Exception e) {
+            BatchException batchException = new BatchException(-1, null, e.getMessage(), sending.size());
+            batchException.initCause(e);
+            throw batchException;
+        }
+
+        if (!status.succeeded()) {
+            int index = status.failedIndex;
+            String name = index >= 0 && index < sendingNames.size() ? sendingNames.get(index) : null;
+            String reason = status.reason != null ? status.reason : "No reason provided";
+
+            throw new BatchException(index, name, reason, index >= 0 ? sending.size() - index - 1 : sending.size());
+        }
+    }
+
+    /**
+     * Flushes the queued calls and closes the batch(unless this closes a nested batch)
+     * @throws BatchException if a call failed
+     */
+    public void close() throws BatchException {
+        depth--;
+        if (depth > 0)
+            return;
+
+        current.remove();
+        flush();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a call in a batch fails
+ * This is an IOException so Batch can implement Closeable
+ */
+public class BatchException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int failedIndex;
+    private final String failedCall;
+    private final int skipped;
+
+    public BatchException(int failedIndex, String failedCall, String reason, int skipped) {
+        super(buildMessage(failedIndex, failedCall, reason, skipped));
+        this.failedIndex = failedIndex;
+        this.failedCall = failedCall;
+        this.skipped = skipped;
+    }
+
+    private static String buildMessage(int failedIndex, String failedCall, String reason, int skipped) {
+        if (failedIndex < 0)
+            return "Batch failed: " + reason;
+
+        return "Batch call " + failedIndex + " (" + failedCall + ") failed because: " + reason + ". " + skipped + " queued calls after it were not run";
+    }
+
+    /**
+     * @return index of the failed call in the batch or -1 if the batch as a whole failed(ex: server not reachable)
+     */
+    public int getFailedIndex() {
+        return failedIndex;
+    }
+
+    /**
+     * @return operation chain of the failed call(ex: solo.clickOnText)
+     */
+    public String getFailedCall() {
+        return failedCall;
+    }
+
+    /**
+     * @return number of queued calls that were not run
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+}
@@ -32,42 +32,135 @@
 
 package com.groupon.roboremote.roboremoteclientcommon;
 
-import com.groupon.roboremote.roboremoteclientcommon.http.Get;
+import com.groupon.roboremote.roboremoteclientcommon.http.CountingInputStream;
+import com.groupon.roboremote.roboremoteclientcommon.http.HttpClientTransport;
+import com.groupon.roboremote.roboremoteclientcommon.http.ResponseParser;
+import com.groupon.roboremote.roboremoteclientcommon.http.Transport;
+import com.groupon.roboremote.roboremoteclientcommon.http.TransportSingleton;
+import com.groupon.roboremote.roboremoteclientcommon.metrics.ClientMetrics;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.InputStream;
 import java.lang.Exception;
 import java.lang.Object;
 import java.lang.String;
 import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 
+/**
+ * Client for one RoboRemote server endpoint(host and port)
+ * Clients are immutable and can be shared between threads.  Each one has its own result cache and batch scope.
+ * getInstance returns a shared default client per port on localhost.
+ */
 public class Client {
     private static final Logger logger = LoggerFactory.getLogger("test");
 
-    private static String API_BASE_URL = "http://localhost";
-    protected int API_PORT = com.groupon.roboremote.Constants.ROBOREMOTE_SERVER_PORT;
+    private static final String DEFAULT_HOST = "localhost";
+    private static final ConcurrentHashMap<Integer, Client> defaultClients = new ConcurrentHashMap<Integer, Client>();
+
+    protected final String API_HOST;
+    protected final int API_PORT;
+    private final String baseUrl;
 
-    private static Client instance = null;
+    // null means the shared transport from TransportSingleton
+    private final Transport transport;
+    private final boolean ownsTransport;
+
+    private final ResultCache resultCache;
 
     protected Client() {
-        // Exists only to defeat instantiation.
+        this(DEFAULT_HOST, com.groupon.roboremote.Constants.ROBOREMOTE_SERVER_PORT);
     }
 
-    protected static Client getInstance() {
-        return instance;
+    /**
+     * Creates a client that uses the shared transport
+     * @param host
+     * @param port
+     */
+    public Client(String host, int port) {
+        this(host, port, null, false);
     }
 
-    protected static Client getInstance(int port) {
-        if(instance == null) {
-            instance = new Client();
+    /**
+     * Creates a client with its own connection pool and timeouts
+     * @param host
+     * @param port
+     * @param connectTimeout - connect timeout in ms(0 is infinite)
+     * @param readTimeout - read timeout in ms(0 is infinite)
+     */
+    public Client(String host, int port, int connectTimeout, int readTimeout) {
+        this(host, port, new HttpClientTransport(connectTimeout, readTimeout,
+                Integer.parseInt(Utils.getEnv("ROBO_HTTP_MAX_CONNECTIONS", "20"))), true);
+    }
+
+    /**
+     * Creates a client that uses the specified transport
+     * @param host
+     * @param port
+     * @param transport
+     */
+    public Client(String host, int port, Transport transport) {
+        this(host, port, transport, false);
+    }
+
+    private Client(String host, int port, Transport transport, boolean ownsTransport) {
+        this.API_HOST = host;
+        this.API_PORT = port;
+        this.baseUrl = "http://" + host + ":" + port;
+        this.transport = transport;
+        this.ownsTransport = ownsTransport;
+        this.resultCache = new ResultCache(port);
+    }
+
+    /**
+     * Returns the shared client for a port on localhost
+     * @param port
+     * @return
+     */
+    public static Client forPort(int port) {
+        Client client = defaultClients.get(port);
+        if (client == null) {
+            Client created = new Client(DEFAULT_HOST, port);
+            client = defaultClients.putIfAbsent(port, created);
+            if (client == null)
+                client = created;
         }
 
-        // TODO: This is not safe
-        instance.API_PORT = port;
-        return instance;
+        return client;
+    }
+
+    protected static Client getInstance(int port) {
+        return forPort(port);
+    }
+
+    public String getHost() {
+        return API_HOST;
+    }
+
+    public int getPort() {
+        return API_PORT;
+    }
+
+    public Transport getTransport() {
+        return transport != null ? transport : TransportSingleton.get();
+    }
+
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Releases the connection pool if this client created its own
+     */
+    public void shutdown() {
+        if (ownsTransport)
+            transport.shutdown();
     }
 
     /**
@@ -77,7 +170,16 @@ public class Client {
      */
     public boolean isListening() throws Exception {
         try {
-            JSONObject resp = new JSONObject(Get.get(API_BASE_URL + ":" + API_PORT, Constants.REQUEST_HEARTBEAT, ""));
+            ResponseReader.Status status = getTransport().get(baseUrl, Constants.REQUEST_HEARTBEAT, "",
+                    new ResponseParser<ResponseReader.Status>() {
+                        public ResponseReader.Status parse(InputStream in) throws Exception {
+                            return new ResponseReader(in).readResponse(null);
+                        }
+                    });
+
+            if (status.hasEpoch) {
+                resultCache.updateEpoch(status.epoch);
+            }
 
             return true;
         } catch (Exception e) {
@@ -85,25 +187,178 @@ public class Client {
         }
     }
 
+    /**
+     * Requests a GET endpoint and hands the body to a parser as it is read from the connection
+     * The latency and response size are recorded in ClientMetrics under the verb
+     * Calls queued in an open batch are sent first so the response reflects them
+     * @param verb - endpoint name(ex: hierarchy)
+     * @param parser
+     * @return
+     * @throws Exception
+     */
+    public <T> T get(String verb, final ResponseParser<T> parser) throws Exception {
+        Batch.barrier(this);
+
+        final long[] responseSize = new long[1];
+        boolean failed = true;
+
+        long start = System.nanoTime();
+        try {
+            T result = getTransport().get(baseUrl, verb, "", new ResponseParser<T>() {
+                public T parse(InputStream in) throws Exception {
+                    CountingInputStream counted = new CountingInputStream(in);
+                    try {
+                        return parser.parse(counted);
+                    } finally {
+                        responseSize[0] = counted.getCount();
+                    }
+                }
+            });
+
+            failed = false;
+            return result;
+        } finally {
+            recordMetrics(verb, System.nanoTime() - start, 0, responseSize[0], failed);
+        }
+    }
+
     public JSONObject post_to_server(String verb, String postBody) throws Exception {
-        String responseStr = com.groupon.roboremote.roboremoteclientcommon.http.Post.post(API_BASE_URL + ":" + API_PORT, verb, "request=" + URLEncoder.encode(postBody));
+        String postData = "request=" + URLEncoder.encode(postBody);
+        String responseStr = null;
+
+        long start = System.nanoTime();
+        try {
+            responseStr = getTransport().post(baseUrl, verb, postData);
+        } finally {
+            recordMetrics(verb, System.nanoTime() - start, postData.length(),
+                    responseStr == null ? 0 : responseStr.length(), responseStr == null);
+        }
 
         return new JSONObject(responseStr);
     }
 
     public JSONArray map(String requestJson) throws Exception {
-        org.json.JSONObject result = post_to_server(Constants.REQUEST_MAP, requestJson);
+        return map(requestJson, ResultHandler.jsonArray());
+    }
 
-        if (result.getString(Constants.RESULT_OUTCOME).compareTo(Constants.RESULT_SUCCESS) != 0) {
-            String reason = result.has(Constants.RESULT_REASON) ? result.getString(Constants.RESULT_REASON) : "No reason provided";
+    /**
+     * Sends a request and hands each result to the handler as it is parsed from the response stream
+     * @param requestJson
+     * @param handler
+     * @return the handler result
+     * @throws Exception
+     */
+    public <T> T map(String requestJson, ResultHandler<T> handler) throws Exception {
+        return map(RequestEncoder.forJson(requestJson), handler);
+    }
+
+    /**
+     * Sends an encoded request and hands each result to the handler as it is parsed from the response stream
+     * @param request
+     * @param handler
+     * @return the handler result
+     * @throws Exception
+     */
+    public <T> T map(RequestEncoder request, ResultHandler<T> handler) throws Exception {
+        // queued void calls have to run before anything that returns a value
+        Batch.barrier(this);
+
+        return send(request, handler, Constants.REQUEST_MAP);
+    }
+
+    /**
+     * Sends a map request
+     * @param request
+     * @param handler
+     * @param operation - name the request is recorded under in ClientMetrics(ex: solo.clickOnText)
+     * @return
+     * @throws Exception
+     */
+    <T> T send(RequestEncoder request, ResultHandler<T> handler, String operation) throws Exception {
+        ResponseReader.Status status = post(Constants.REQUEST_MAP, request, handler, operation);
+
+        if (status.outcome == null) {
+            throw new Exception("Client::map:: " + "failed because: No outcome returned");
+        }
+
+        if (!status.succeeded()) {
+            String reason = status.reason != null ? status.reason : "No reason provided";
             throw new Exception("Client::map:: " + "failed because: " + reason);
         }
 
-        JSONArray results = new JSONArray();
+        return handler.getResult();
+    }
+
+    /**
+     * Posts an encoded request, streams the results into the handler and returns the response status
+     * The latency, payload sizes and outcome are recorded in ClientMetrics
+     * @param verb
+     * @param request
+     * @param handler
+     * @param operation - name the request is recorded under(ex: solo.clickOnText)
+     * @return
+     * @throws Exception
+     */
+    ResponseReader.Status post(String verb, RequestEncoder request, final ResultHandler<?> handler, String operation) throws Exception {
+        final long[] responseSize = new long[1];
+        boolean failed = true;
 
-        results = result.getJSONArray(Constants.RESULT_RESULTS);
+        long start = System.nanoTime();
+        try {
+            ResponseReader.Status status = getTransport().post(baseUrl, verb, request,
+                    new ResponseParser<ResponseReader.Status>() {
+                        public ResponseReader.Status parse(InputStream in) throws Exception {
+                            CountingInputStream counted = new CountingInputStream(in);
+                            try {
+                                return new ResponseReader(counted).readResponse(handler);
+                            } finally {
+                                responseSize[0] = counted.getCount();
+                            }
+                        }
+                    });
 
-        return results;
+            // servers that track an epoch send it back with every response
+            if (status.hasEpoch) {
+                resultCache.updateEpoch(status.epoch);
+            }
+
+            failed = !status.succeeded();
+            return status;
+        } finally {
+            recordMetrics(operation, System.nanoTime() - start, request.getContentLength(), responseSize[0], failed);
+        }
+    }
+
+    /**
+     * Records a request in the process wide metrics and the metrics of this client's port
+     */
+    private void recordMetrics(String operation, long latencyNanos, long requestSize, long responseSize, boolean failed) {
+        ClientMetrics metrics = ClientMetrics.get();
+        if (!metrics.isEnabled())
+            return;
+
+        metrics.record(operation, latencyNanos, requestSize, responseSize, failed);
+        ClientMetrics.forPort(API_PORT).record(operation, latencyNanos, requestSize, responseSize, failed);
+    }
+
+    void recordCacheHit(String operation) {
+        ClientMetrics metrics = ClientMetrics.get();
+        if (!metrics.isEnabled())
+            return;
+
+        metrics.recordCacheHit(operation);
+        ClientMetrics.forPort(API_PORT).recordCacheHit(operation);
+    }
+
+    /**
+     * Opens a batch on the current thread.  Void calls(mapVoid) are queued until the batch is closed
+     * or a call that returns a value needs them to have run.
+     * Always close the batch in a finally block(or with try-with-resources)
+     * @return
+     * @throws Exception if a batch for another client is already open on this thread
+     */
+    public Batch openBatch() throws Exception {
+        return Batch.open(this);
     }
 
     /**
@@ -114,7 +369,7 @@ public class Client {
      * @throws Exception
      */
     public JSONArray mapField(String query, String field_name) throws Exception {
-        QueryBuilder builder = new QueryBuilder(API_PORT);
+        QueryBuilder builder = new QueryBuilder(this);
         builder.mapField(query, field_name);
         return builder.execute();
     }
@@ -128,16 +383,180 @@ public class Client {
      * @throws Exception
      */
     public JSONArray map(String query, String method_name, Object... items) throws Exception {
-        QueryBuilder builder = new QueryBuilder(API_PORT);
+        QueryBuilder builder = new QueryBuilder(this);
         builder.map(query, method_name, items);
         return builder.execute();
     }
 
+    /**
+     * Used to call a method and convert the results with a handler
+     * @param handler
+     * @param query
+     * @param method_name
+     * @param items
+     * @return
+     * @throws Exception
+     */
+    public <T> T map(ResultHandler<T> handler, String query, String method_name, Object... items) throws Exception {
+        QueryBuilder builder = new QueryBuilder(this);
+        builder.map(query, method_name, items);
+        return builder.execute(handler);
+    }
+
+    /**
+     * Used to call a method whose return value is not needed
+     * If a batch is open on this thread the call is queued instead of being sent
+     * @param query
+     * @param method_name
+     * @param items
+     * @throws Exception
+     */
+    public void mapVoid(String query, String method_name, Object... items) throws Exception {
+        QueryBuilder builder = new QueryBuilder(this);
+        builder.map(query, method_name, items);
+        builder.executeVoid();
+    }
+
+    /**
+     * Calls a method through a pre-encoded request template
+     * @param template
+     * @param handler
+     * @param arguments
+     * @return
+     * @throws Exception
+     */
+    public <T> T map(RequestTemplate template, ResultHandler<T> handler, Object... arguments) throws Exception {
+        // queued void calls have to run before anything that returns a value
+        Batch.barrier(this);
+
+        return QueryBuilder.execute(this, template.encode(arguments), template.getOperationName(), handler);
+    }
+
+    /**
+     * Calls a method whose return value is not needed through a pre-encoded request template
+     * If a batch is open on this thread the call is queued instead of being sent
+     * @param template
+     * @param arguments
+     * @throws Exception
+     */
+    public void mapVoid(RequestTemplate template, Object... arguments) throws Exception {
+        RequestEncoder request = template.encode(arguments);
+
+        Batch batch = Batch.current(this);
+        if (batch != null) {
+            batch.add(request, template.getOperationName());
+            return;
+        }
+
+        QueryBuilder.execute(this, request, template.getOperationName(), ResultHandler.none());
+    }
+
+    /**
+     * Used to call a method with a list of arguments on the async thread pool
+     * @param query
+     * @param method_name
+     * @param items
+     * @return
+     * @throws Exception
+     */
+    public Future<JSONArray> mapAsync(String query, String method_name, Object... items) throws Exception {
+        QueryBuilder builder = new QueryBuilder(this);
+        builder.map(query, method_name, items);
+        return builder.executeAsync();
+    }
+
+    /**
+     * Used to call a method on the async thread pool and convert the results with a handler
+     * @param handler
+     * @param query
+     * @param method_name
+     * @param items
+     * @return
+     * @throws Exception
+     */
+    public <T> Future<T> mapAsync(ResultHandler<T> handler, String query, String method_name, Object... items) throws Exception {
+        QueryBuilder builder = new QueryBuilder(this);
+        builder.map(query, method_name, items);
+        return builder.executeAsync(handler);
+    }
+
+    /**
+     * Used to call a method that returns a String
+     * @param query
+     * @param method_name
+     * @param items
+     * @return
+     * @throws Exception
+     */
+    public String mapString(String query, String method_name, Object... items) throws Exception {
+        return map(ResultHandler.stringValue(), query, method_name, items);
+    }
+
+    /**
+     * Used to call a method that returns a boolean
+     * @param query
+     * @param method_name
+     * @param items
+     * @return
+     * @throws Exception
+     */
+    public boolean mapBoolean(String query, String method_name, Object... items) throws Exception {
+        return map(ResultHandler.booleanValue(), query, method_name, items);
+    }
+
+    /**
+     * Used to call a method that returns an int
+     * @param query
+     * @param method_name
+     * @param items
+     * @return
+     * @throws Exception
+     */
+    public int mapInt(String query, String method_name, Object... items) throws Exception {
+        return map(ResultHandler.intValue(), query, method_name, items);
+    }
+
+    /**
+     * Used to call a method that returns a long
+     * @param query
+     * @param method_name
+     * @param items
+     * @return
+     * @throws Exception
+     */
+    public long mapLong(String query, String method_name, Object... items) throws Exception {
+        return map(ResultHandler.longValue(), query, method_name, items);
+    }
+
+    /**
+     * Used to call a method that returns a list of values(ex: view handles) as a String array
+     * @param query
+     * @param method_name
+     * @param items
+     * @return
+     * @throws Exception
+     */
+    public String[] mapStringArray(String query, String method_name, Object... items) throws Exception {
+        return map(ResultHandler.stringArray(), query, method_name, items);
+    }
+
+    /**
+     * Used to call a method that returns a list of values(ex: view handles) as a list of Strings
+     * @param query
+     * @param method_name
+     * @param items
+     * @return
+     * @throws Exception
+     */
+    public ArrayList<String> mapStringList(String query, String method_name, Object... items) throws Exception {
+        return map(ResultHandler.stringList(), query, method_name, items);
+    }
+
     /**
      * Returns the current time as the device sees it
      * @return
      */
     public Date getOSTime() throws Exception {
-        return new Date(map("java.util.Date", "getTime").getLong(0));
+        return new Date(mapLong("java.util.Date", "getTime"));
     }
 }
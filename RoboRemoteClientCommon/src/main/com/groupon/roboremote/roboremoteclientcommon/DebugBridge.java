@@ -36,22 +36,31 @@ import com.android.ddmlib.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.*;
 import java.util.ArrayList;
-
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owns the adb connection and a DeviceSession for each attached device keyed by serial number
+ * The device functions on this class act on the session of the calling thread(see useDevice) or, when the thread
+ * is not bound to a device, on the default device which is the first attached device unless selectDevice is called.
+ * Threads started by a bound thread are not bound, they act on a DeviceSession passed to them or call useDevice.
+ */
 public class DebugBridge {
     public static final Logger logger = LoggerFactory.getLogger(DebugBridge.class);
 
     private AndroidDebugBridge bridge;
     private static DebugBridge _debugBridge = null;
 
-    private IDevice currentDevice = null;
+    private final ConcurrentHashMap<String, DeviceSession> sessions = new ConcurrentHashMap<String, DeviceSession>();
+    private volatile DeviceSession defaultSession = null;
+    private final ThreadLocal<DeviceSession> threadSession = new ThreadLocal<DeviceSession>();
 
-    private LogThread loggerThread = null;
+    // number of holders(bound DeviceContexts) that need adb to keep running, guarded by this
+    private int holds = 0;
 
-    public static DebugBridge get() throws Exception {
+    public static synchronized DebugBridge get() throws Exception {
         if (_debugBridge == null) {
             _debugBridge = new DebugBridge();
         }
@@ -63,6 +72,22 @@ public class DebugBridge {
         AndroidDebugBridge.init(false);
         bridge = AndroidDebugBridge.createBridge("adb", true);
 
+        AndroidDebugBridge.addDeviceChangeListener(new AndroidDebugBridge.IDeviceChangeListener() {
+            public void deviceConnected(IDevice device) {
+            }
+
+            public void deviceDisconnected(IDevice device) {
+                DeviceSession session = sessions.remove(device.getSerialNumber());
+                if (session != null) {
+                    logger.warn("Device {} disconnected", device.getSerialNumber());
+                    session.close();
+                }
+            }
+
+            public void deviceChanged(IDevice device, int changeMask) {
+            }
+        });
+
         waitForConnected();
         waitForDevices();
 
@@ -70,30 +95,92 @@ public class DebugBridge {
         if (bridge.getDevices().length == 0)
             throw new Exception("There are no attached devices");
 
-        currentDevice = bridge.getDevices()[0];
+        defaultSession = getSession(bridge.getDevices()[0].getSerialNumber());
+    }
+
+    /**
+     * Gets the session for a device, creating it the first time
+     * @param serialNumber
+     * @return
+     * @throws Exception if the device is not attached
+     */
+    public DeviceSession getSession(String serialNumber) throws Exception {
+        DeviceSession session = sessions.get(serialNumber);
+        if (session != null)
+            return session;
+
+        for (IDevice device : bridge.getDevices()) {
+            if (device.getSerialNumber().equals(serialNumber)) {
+                DeviceSession created = new DeviceSession(device);
+                session = sessions.putIfAbsent(serialNumber, created);
+                return session != null ? session : created;
+            }
+        }
+
+        throw new Exception("Could not find device " + serialNumber);
+    }
+
+    /**
+     * Gets the session the calling thread acts on
+     * @return
+     */
+    public DeviceSession getSession() {
+        DeviceSession session = threadSession.get();
+        return session != null ? session : defaultSession;
+    }
+
+    /**
+     * Gets a session for each attached device that is online
+     * @return
+     * @throws Exception
+     */
+    public List<DeviceSession> getSessions() throws Exception {
+        List<DeviceSession> online = new ArrayList<DeviceSession>();
+        for (IDevice device : bridge.getDevices()) {
+            if (device.isOnline())
+                online.add(getSession(device.getSerialNumber()));
+        }
+
+        return online;
+    }
+
+    /**
+     * Makes the calling thread act on a device
+     * @param serialNumber
+     * @return the session for the device
+     * @throws Exception
+     */
+    public DeviceSession useDevice(String serialNumber) throws Exception {
+        DeviceSession session = getSession(serialNumber);
+        threadSession.set(session);
+        return session;
+    }
+
+    /**
+     * Makes the calling thread act on the default device again
+     */
+    public void useDefaultDevice() {
+        threadSession.remove();
     }
 
     public boolean isEmulator() throws Exception {
-        return currentDevice.isEmulator();
+        return getSession().isEmulator();
     }
 
     public void runShellCommand(String command) throws Exception {
-        
-        currentDevice.executeShellCommand(command, new NullOutputReceiver());
+        getSession().runShellCommand(command);
     }
 
     public void runShellCommand(String command, int timeout) throws Exception {
-
-        currentDevice.executeShellCommand(command, new NullOutputReceiver(), timeout);
+        getSession().runShellCommand(command, timeout);
     }
 
     public void runShellCommand(String command, IShellOutputReceiver receiver, int timeout) throws Exception {
-
-        currentDevice.executeShellCommand(command, receiver, timeout);
+        getSession().runShellCommand(command, receiver, timeout);
     }
 
     public void createTunnel(int fromPort, int toPort) throws Exception {
-        currentDevice.createForward(fromPort, toPort);
+        getSession().createTunnel(fromPort, toPort);
     }
 
     public void waitForConnected() throws Exception {
@@ -120,6 +207,11 @@ public class DebugBridge {
         }
     }
 
+    /**
+     * Gets the AVD names of the attached devices, physical devices have no AVD name and are listed as null
+     * @return
+     * @throws Exception
+     */
     public String[] getDevices() throws Exception {
         ArrayList<String> deviceNames = new ArrayList<String>();
         for (IDevice device : bridge.getDevices()) {
@@ -129,159 +221,184 @@ public class DebugBridge {
         return deviceNames.toArray(new String[0]);
     }
 
-    public void selectDevice(String avdName) throws Exception {
-        boolean found = false;
+    /**
+     * Gets the serial numbers of the attached devices
+     * @return
+     * @throws Exception
+     */
+    public String[] getDeviceSerials() throws Exception {
+        ArrayList<String> serials = new ArrayList<String>();
         for (IDevice device : bridge.getDevices()) {
-            if (device.getAvdName().equals(avdName)) {
-                found = true;
-                currentDevice = device;
-                break;
+            serials.add(device.getSerialNumber());
+        }
+
+        return serials.toArray(new String[0]);
+    }
+
+    /**
+     * Makes a device the default device
+     * @param name - serial number or AVD name
+     * @throws Exception
+     */
+    public void selectDevice(String name) throws Exception {
+        for (IDevice device : bridge.getDevices()) {
+            if (name.equals(device.getSerialNumber()) || name.equals(device.getAvdName())) {
+                defaultSession = getSession(device.getSerialNumber());
+                return;
             }
         }
 
         // throw an exception if we did not find the named device
-        if (!found)
-            throw new Exception("Could not find specified device");
+        throw new Exception("Could not find specified device");
+    }
+
+    /**
+     * Keeps adb running until release is called, even while no session is active(ex: between two tests on a device)
+     */
+    public synchronized void acquire() {
+        holds++;
+    }
+
+    /**
+     * Releases a hold taken with acquire and shuts down adb if it was the last one and no session is using it
+     */
+    public synchronized void release() {
+        if (holds > 0)
+            holds--;
+
+        terminateIfIdle();
     }
 
+    /**
+     * Closes the session of the calling thread and shuts down adb once nothing holds it and no session is using it
+     */
     public void close() {
-        AndroidDebugBridge.terminate();
+        getSession().close();
+
+        terminateIfIdle();
     }
 
-    public void getScreenShot(String filename) throws Exception {
-        RawImage raw = null;
+    private synchronized void terminateIfIdle() {
+        if (holds > 0)
+            return;
 
-        try {
-            raw = currentDevice.getScreenshot();
-        } catch (Exception e) {
-            throw new Exception("Error getting screenshot from device: " + e.getMessage());
+        for (DeviceSession session : sessions.values()) {
+            if (session.isActive())
+                return;
         }
 
-        BufferedImage image = new BufferedImage(raw.width, raw.height, BufferedImage.TYPE_INT_ARGB);
+        AndroidDebugBridge.terminate();
+    }
+
+    /**
+     * Saves a screenshot as a PNG written with ScreenshotFormat.PNG_FAST
+     * @param filename
+     * @throws Exception
+     */
+    public void getScreenShot(String filename) throws Exception {
+        getSession().getScreenShot(filename);
+    }
 
-        int idx = 0;
-        int inc = raw.bpp >> 3;
-        for (int y = 0; y < raw.height; y++) {
-            for (int x = 0; x < raw.width; x++) {
-                int val = raw.getARGB(idx);
-                idx += inc;
-                image.setRGB(x, y, val);
-            }
-        }
+    /**
+     * Saves a screenshot
+     * @param filename
+     * @param format
+     * @throws Exception
+     */
+    public void getScreenShot(String filename, ScreenshotFormat format) throws Exception {
+        getSession().getScreenShot(filename, format);
+    }
+
+    /**
+     * Captures the framebuffer without converting it(see RawImageConverter)
+     * @return
+     * @throws Exception
+     */
+    public RawImage getRawScreenShot() throws Exception {
+        return getSession().getRawScreenShot();
+    }
 
-        ImageIO.write(image, "png", new File(filename));
+    /**
+     * Converts a raw framebuffer capture into an image
+     * @param raw
+     * @return
+     */
+    public static BufferedImage toImage(RawImage raw) {
+        return RawImageConverter.toImage(raw);
     }
 
     public void push(String sourcefile, String destination) throws Exception {
-        SyncService service = currentDevice.getSyncService();
-        service.pushFile(sourcefile, destination, SyncService.getNullProgressMonitor());
+        getSession().push(sourcefile, destination);
     }
 
     public void pull(String sourcefile, String destination) throws Exception {
-        SyncService service = currentDevice.getSyncService();
-        service.pullFile(sourcefile, destination, SyncService.getNullProgressMonitor());
+        getSession().pull(sourcefile, destination);
     }
     
     public void installPackage(String filename) throws Exception {
-        currentDevice.installPackage(filename, false);
+        getSession().installPackage(filename);
     }
     
     public void uninstallPackage(String packageName) throws Exception {
-        currentDevice.uninstallPackage(packageName);
+        getSession().uninstallPackage(packageName);
     }
     
     public void setLatLon(double lat, double lon) throws Exception {
-        EmulatorConsole emu = EmulatorConsole.getConsole(currentDevice);
-        emu.sendLocation(lon, lat, 0);
+        getSession().setLatLon(lat, lon);
     }
 
     /**
-     * This is the equivalent of adb logcat -c
+     * Starts capturing the screen in the background(see FrameSampler)
      * @throws Exception
      */
-    public void clearLogCat() throws Exception {
-        DebugBridge.get().runShellCommand("logcat -c");
+    public void startFrameSampler() throws Exception {
+        getSession().startFrameSampler();
     }
 
-    public void startLogListener(String filename) throws Exception {
-        logger.info("Starting log listener");
-        loggerThread = new LogThread(filename);
-        loggerThread.start();
+    /**
+     * Stops capturing the screen and drops the captured frames
+     * @throws Exception
+     */
+    public void stopFrameSampler() throws Exception {
+        getSession().stopFrameSampler();
     }
 
-    public void stopLogListener() throws Exception {
-        logger.info("Stopping log listener");
-        if (loggerThread != null) {
-            loggerThread.close();
-            loggerThread.interrupt();
-        }
+    /**
+     * Gets the frame sampler, null if it was never started
+     * @return
+     */
+    public FrameSampler getFrameSampler() {
+        return getSession().getFrameSampler();
     }
 
     /**
-     * Multi line receiver that writes to a file
+     * This is the equivalent of adb logcat -c
+     * @throws Exception
      */
-    public class MultiReceiver extends MultiLineReceiver {
-        boolean closed = false;
-        String _fileName = null;
-        FileWriter fstream = null;
-        BufferedWriter ostream = null;
-
-        public MultiReceiver() {
-
-        }
-
-        public MultiReceiver(String outfile) throws Exception {
-            _fileName = outfile;
-            fstream = new FileWriter(_fileName);
-            ostream = new BufferedWriter(fstream);
-        }
-
-        public void processNewLines(java.lang.String[] lines) {
-            try {
-                for (String line: lines) {
-                    if (ostream != null) {
-                        ostream.write(line + "\n");
-                    }
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
+    public void clearLogCat() throws Exception {
+        getSession().clearLogCat();
+    }
 
-        public boolean isCancelled() {
-            return closed;
-        }
+    public void startLogListener(String filename) throws Exception {
+        getSession().startLogListener(filename);
+    }
 
-        public void close() {
-            closed = true;
-        }
+    public void stopLogListener() throws Exception {
+        getSession().stopLogListener();
     }
 
     /**
-     * This thread contains the running the log listener
-     * DebugBridge does not return until the logcat finishes(never) so we have to run it in its own thread
+     * Receiver that writes shell output to a file
+     * @deprecated use DeviceSession.MultiReceiver
      */
-    private class LogThread extends Thread {
-        String _filename = "";
-        MultiReceiver _receiver = null;
-
-        public LogThread(String filename) {
-            _filename = filename;
-        }
-
-        public void run() {
-            try {
-                logger.info("Logging to: {}", _filename);
-                _receiver = new MultiReceiver(_filename);
-                DebugBridge.get().runShellCommand("logcat -v time", _receiver, 0);
-            } catch (Exception e) {
-                logger.error("LogThread interrupted: {}", e);
-            }
+    @Deprecated
+    public class MultiReceiver extends DeviceSession.MultiReceiver {
+        public MultiReceiver() {
+            super();
         }
 
-        public void close() {
-            // cause an exception in the receiver to kill the command
-            _receiver.close();
+        public MultiReceiver(String outfile) throws Exception {
+            super(outfile);
         }
     }
-}
\ No newline at end of file
+}
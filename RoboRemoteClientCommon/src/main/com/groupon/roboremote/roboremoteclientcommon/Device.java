@@ -34,6 +34,7 @@ package com.groupon.roboremote.roboremoteclientcommon;
 
 import com.google.common.io.Files;
 import com.groupon.roboremote.roboremoteclientcommon.logging.TestLogger;
+import com.groupon.roboremote.roboremoteclientcommon.metrics.ClientMetrics;
 
 import java.io.*;
 
@@ -45,6 +46,9 @@ public class Device {
 
     static String current_log_dir = null;
 
+    // how long to wait for queued artifacts before a log directory is cleared
+    private static final long ARTIFACT_FLUSH_TIMEOUT = 30000;
+
     public static boolean isEmulator() throws Exception {
         return DebugBridge.get().isEmulator();
     }
@@ -66,39 +70,142 @@ public class Device {
 
     /**
      * Stores the specified log for this test
+     * The log is moved out of the way right away and compressed into the log directory in the background(see ArtifactPipeline)
      * @throws Exception
      */
     public static void storeLogs(String sourceLogFileName, String destLogFileName) throws Exception {
         // assumes eventmanager is running
         // store logs
     	File tmpLogFile = new File(System.getProperty("java.io.tmpdir") + File.separator + sourceLogFileName);
-    	File destFile = new File(current_log_dir + File.separator + destLogFileName);
-    	
-        Files.copy(tmpLogFile, destFile);
+    	File destFile = new File(getLogDirectory() + File.separator + destLogFileName);
+
+        ArtifactPipeline.get().storeLog(tmpLogFile, destFile);
+    }
+
+    /**
+     * Captures the screen and writes it to FAILURE.png in the log directory for this test
+     * Only the capture happens on the calling thread, the image is encoded in the background(see ArtifactPipeline)
+     * @throws Exception
+     */
+    public static void storeFailureScreenshot() throws Exception {
+        storeFailureScreenshot(ScreenshotFormat.PNG_FAST);
+    }
+
+    public static void storeFailureScreenshot(ScreenshotFormat format) throws Exception {
+        File destFile = new File(getLogDirectory() + File.separator + "FAILURE." + format.getExtension());
+
+        ArtifactPipeline.get().storeScreenshot(DebugBridge.get().getRawScreenShot(), format, destFile);
     }
 
+    /**
+     * Stores the frames the frame sampler captured before a failure in the log directory for this test
+     * Does nothing if the sampler is not running
+     * @throws Exception
+     */
+    public static void storeFailureFrames() throws Exception {
+        FrameSampler sampler = DebugBridge.get().getFrameSampler();
+        if (sampler != null && sampler.isRunning())
+            sampler.store(getLogDirectory());
+    }
+
+    /**
+     * Copies FAILURE.png from the working directory into the log directory for this test
+     * @throws Exception
+     */
     public static void storeFailurePng() throws Exception {
     	File failureFile = new File("FAILURE.png");
-    	File destFile = new File(current_log_dir + File.separator + "FAILURE.png");
+    	File destFile = new File(getLogDirectory() + File.separator + "FAILURE.png");
     	
     	Files.copy(failureFile, destFile);
     }
 
+    /**
+     * Writes the client request metrics for this test next to its logs
+     * The report is taken now and written in the background
+     * @throws Exception
+     */
+    public static void storeClientMetrics() throws Exception {
+        ArtifactPipeline.get().storeText(getClientMetrics().toJson().toString(2),
+                new File(getLogDirectory() + File.separator + ClientMetrics.REPORT_FILE_NAME));
+    }
+
+    /**
+     * Gets the metrics of the device the calling thread works with
+     * Without a DeviceContext that is every request of the process
+     * @return
+     */
+    static ClientMetrics getClientMetrics() {
+        DeviceContext context = DeviceContext.current();
+        if (context != null)
+            return ClientMetrics.combine(context.getRoboRemotePort(), context.getUiAutomatorPort());
+
+        return ClientMetrics.get();
+    }
+
+    /**
+     * Gets the log directory of the current test
+     * @return
+     */
+    public static String getLogDirectory() {
+        DeviceContext context = DeviceContext.current();
+        if (context != null)
+            return context.getLogDirectory();
+
+        return current_log_dir;
+    }
+
+    /**
+     * Gets the name of a temporary log file(ex: logcat output) for the device of the calling thread
+     * When tests run on a single device this is the name itself
+     * @param name
+     * @return
+     */
+    public static String getTempLogName(String name) {
+        DeviceContext context = DeviceContext.current();
+        if (context == null)
+            return name;
+
+        return context.getFileSafeSerialNumber() + "_" + name;
+    }
+
+    /**
+     * Sets up the log directory for the current test: logs/&lt;test name&gt;, or logs/&lt;device serial&gt;/&lt;test name&gt;
+     * when the thread is bound to a DeviceContext
+     * @throws Exception
+     */
     public static void setupLogDirectories() throws Exception {
         String currentDir = new File("").getAbsolutePath();
+        DeviceContext context = DeviceContext.current();
+        String logsDir = currentDir + File.separator + "logs";
+        if (context != null)
+            logsDir += File.separator + context.getFileSafeSerialNumber();
 
         // clear the final log directory
-        File log_dir = new File(currentDir + File.separator + "logs" 
-              + File.separator + Utils.getTestName() + File.separator + "test.log");
+        File log_dir = new File(logsDir + File.separator + Utils.getTestName() + File.separator + "test.log");
         TestLogger.get().info("Log directory: {}", log_dir.getParent());
         
         Files.createParentDirs(log_dir);
 
+        // artifacts still being written(ex: from an earlier run of this test) would otherwise land after the clear
+        if (!ArtifactPipeline.get().flush(ARTIFACT_FLUSH_TIMEOUT))
+            TestLogger.get().warn("Artifacts were still being written when {} was cleared", log_dir.getParent());
+
         // clear existing files from this location
         if (log_dir.exists()) {
             delete(log_dir);
         }
 
-        current_log_dir = log_dir.getParent();
+        if (context != null)
+            context.setLogDirectory(log_dir.getParent());
+        else
+            current_log_dir = log_dir.getParent();
+
+        // metrics are reported per test
+        if (context != null) {
+            ClientMetrics.forPort(context.getRoboRemotePort()).reset();
+            ClientMetrics.forPort(context.getUiAutomatorPort()).reset();
+        } else {
+            ClientMetrics.get().reset();
+        }
     }
 }
@@ -0,0 +1,167 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per device state of the tests running on one thread
+ * Test bases, Utils, Device and EmSingleton keep process wide state that only works for one device at a time.
+ * When a context is bound to a thread(ex: by DevicePoolRunner) they use the context instead, so tests on several
+ * devices can run in parallel in one JVM.  Threads started by a bound thread are not bound, code that hands work
+ * to another thread passes it the context(or its session and ports) explicitly.
+ */
+public class DeviceContext {
+    private static final ThreadLocal<DeviceContext> current = new ThreadLocal<DeviceContext>();
+
+    private final String serialNumber;
+    private final int roboRemotePort;
+    private final int uiAutomatorPort;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+
+    private volatile String testName = null;
+    private volatile String logDirectory = null;
+
+    /**
+     * @param serialNumber - device the tests run on
+     * @param roboRemotePort - local port forwarded to the roboremote server on the device
+     * @param uiAutomatorPort - local port forwarded to the uiautomator server on the device
+     */
+    public DeviceContext(String serialNumber, int roboRemotePort, int uiAutomatorPort) {
+        this.serialNumber = serialNumber;
+        this.roboRemotePort = roboRemotePort;
+        this.uiAutomatorPort = uiAutomatorPort;
+
+        // a state change seen through either server invalidates the cached results of both
+        ResultCache.linkPorts(roboRemotePort, uiAutomatorPort);
+    }
+
+    /**
+     * Gets the context of the calling thread
+     * @return the context or null if the thread uses the process wide state
+     */
+    public static DeviceContext current() {
+        return current.get();
+    }
+
+    /**
+     * Binds a context to the calling thread and makes it act on the context's device(see DebugBridge.useDevice)
+     * adb is kept running until the context is unbound
+     * @param context
+     * @throws Exception
+     */
+    public static void bind(DeviceContext context) throws Exception {
+        DebugBridge bridge = DebugBridge.get();
+        bridge.useDevice(context.getSerialNumber());
+
+        if (current.get() == null)
+            bridge.acquire();
+        current.set(context);
+    }
+
+    /**
+     * Unbinds the context of the calling thread and releases its hold on adb
+     * @throws Exception
+     */
+    public static void unbind() throws Exception {
+        DeviceContext context = current.get();
+        current.remove();
+
+        DebugBridge bridge = DebugBridge.get();
+        bridge.useDefaultDevice();
+        if (context != null)
+            bridge.release();
+    }
+
+    public String getSerialNumber() {
+        return serialNumber;
+    }
+
+    public int getRoboRemotePort() {
+        return roboRemotePort;
+    }
+
+    public int getUiAutomatorPort() {
+        return uiAutomatorPort;
+    }
+
+    public String getTestName() {
+        return testName;
+    }
+
+    public void setTestName(String testName) {
+        this.testName = testName;
+    }
+
+    public String getLogDirectory() {
+        return logDirectory;
+    }
+
+    public void setLogDirectory(String logDirectory) {
+        this.logDirectory = logDirectory;
+    }
+
+    /**
+     * Gets state a module keeps per device(ex: the thread running the test server)
+     * @param name
+     * @return the value or null
+     */
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    /**
+     * Sets state a module keeps per device
+     * @param name
+     * @param value - null removes the attribute
+     */
+    public void setAttribute(String name, Object value) {
+        if (value == null)
+            attributes.remove(name);
+        else
+            attributes.put(name, value);
+    }
+
+    /**
+     * Gets the serial number in a form that can be used in a file name
+     * @return
+     */
+    public String getFileSafeSerialNumber() {
+        return serialNumber.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    public String toString() {
+        return serialNumber;
+    }
+}
@@ -0,0 +1,370 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon;
+
+import com.android.ddmlib.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything RoboRemote does with one device: shell commands, tunnels, files, screenshots, logcat and frame sampling
+ * Sessions are created by DebugBridge(one per serial number) and can be used from different threads at the same time.
+ */
+public class DeviceSession {
+    public static final Logger logger = LoggerFactory.getLogger(DeviceSession.class);
+
+    private final IDevice device;
+
+    // {local port, remote port} of each tunnel this session created
+    private final List<int[]> tunnels = new ArrayList<int[]>();
+
+    private LogThread loggerThread = null;
+
+    private FrameSampler frameSampler = null;
+
+    DeviceSession(IDevice device) {
+        this.device = device;
+    }
+
+    public IDevice getDevice() {
+        return device;
+    }
+
+    public String getSerialNumber() {
+        return device.getSerialNumber();
+    }
+
+    /**
+     * Gets the AVD name, null for physical devices
+     * @return
+     */
+    public String getAvdName() {
+        return device.getAvdName();
+    }
+
+    public boolean isEmulator() {
+        return device.isEmulator();
+    }
+
+    public boolean isOnline() {
+        return device.isOnline();
+    }
+
+    public void runShellCommand(String command) throws Exception {
+        device.executeShellCommand(command, new NullOutputReceiver());
+    }
+
+    public void runShellCommand(String command, int timeout) throws Exception {
+        device.executeShellCommand(command, new NullOutputReceiver(), timeout);
+    }
+
+    public void runShellCommand(String command, IShellOutputReceiver receiver, int timeout) throws Exception {
+        device.executeShellCommand(command, receiver, timeout);
+    }
+
+    /**
+     * Forwards a local port to a port on the device, the tunnel is removed when the session is closed
+     * @param fromPort
+     * @param toPort
+     * @throws Exception
+     */
+    public void createTunnel(int fromPort, int toPort) throws Exception {
+        device.createForward(fromPort, toPort);
+
+        synchronized (tunnels) {
+            tunnels.add(new int[] {fromPort, toPort});
+        }
+    }
+
+    public void removeTunnel(int fromPort, int toPort) throws Exception {
+        synchronized (tunnels) {
+            for (int index = 0; index < tunnels.size(); index++) {
+                if (tunnels.get(index)[0] == fromPort && tunnels.get(index)[1] == toPort) {
+                    tunnels.remove(index);
+                    break;
+                }
+            }
+        }
+
+        device.removeForward(fromPort, toPort);
+    }
+
+    /**
+     * Saves a screenshot as a PNG written with ScreenshotFormat.PNG_FAST
+     * @param filename
+     * @throws Exception
+     */
+    public void getScreenShot(String filename) throws Exception {
+        getScreenShot(filename, ScreenshotFormat.PNG_FAST);
+    }
+
+    /**
+     * Saves a screenshot
+     * @param filename
+     * @param format
+     * @throws Exception
+     */
+    public void getScreenShot(String filename, ScreenshotFormat format) throws Exception {
+        RawImage raw = getRawScreenShot();
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(filename), 64 * 1024);
+        try {
+            RawImageConverter.write(raw, format, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Captures the framebuffer without converting it(see RawImageConverter)
+     * @return
+     * @throws Exception
+     */
+    public RawImage getRawScreenShot() throws Exception {
+        try {
+            return device.getScreenshot();
+        } catch (Exception e) {
+            throw new Exception("Error getting screenshot from device " + getSerialNumber() + ": " + e.getMessage());
+        }
+    }
+
+    public void push(String sourcefile, String destination) throws Exception {
+        SyncService service = device.getSyncService();
+        service.pushFile(sourcefile, destination, SyncService.getNullProgressMonitor());
+    }
+
+    public void pull(String sourcefile, String destination) throws Exception {
+        SyncService service = device.getSyncService();
+        service.pullFile(sourcefile, destination, SyncService.getNullProgressMonitor());
+    }
+
+    public void installPackage(String filename) throws Exception {
+        device.installPackage(filename, false);
+    }
+
+    public void uninstallPackage(String packageName) throws Exception {
+        device.uninstallPackage(packageName);
+    }
+
+    public void setLatLon(double lat, double lon) throws Exception {
+        EmulatorConsole emu = EmulatorConsole.getConsole(device);
+        emu.sendLocation(lon, lat, 0);
+    }
+
+    /**
+     * Starts capturing the screen in the background(see FrameSampler)
+     * @throws Exception
+     */
+    public synchronized void startFrameSampler() throws Exception {
+        if (frameSampler == null) {
+            frameSampler = new FrameSampler(new FrameSampler.Source() {
+                public RawImage capture() throws Exception {
+                    return getRawScreenShot();
+                }
+            });
+        }
+
+        logger.info("Starting frame sampler on {}", getSerialNumber());
+        frameSampler.start();
+    }
+
+    /**
+     * Stops capturing the screen and drops the captured frames
+     * @throws Exception
+     */
+    public synchronized void stopFrameSampler() throws Exception {
+        if (frameSampler != null) {
+            logger.info("Stopping frame sampler on {}", getSerialNumber());
+            frameSampler.stop();
+            frameSampler.clear();
+        }
+    }
+
+    /**
+     * Gets the frame sampler, null if it was never started
+     * @return
+     */
+    public synchronized FrameSampler getFrameSampler() {
+        return frameSampler;
+    }
+
+    /**
+     * This is the equivalent of adb logcat -c
+     * @throws Exception
+     */
+    public void clearLogCat() throws Exception {
+        runShellCommand("logcat -c");
+    }
+
+    public synchronized void startLogListener(String filename) throws Exception {
+        logger.info("Starting log listener on {}", getSerialNumber());
+        loggerThread = new LogThread(filename);
+        loggerThread.start();
+    }
+
+    public synchronized void stopLogListener() throws Exception {
+        logger.info("Stopping log listener on {}", getSerialNumber());
+        if (loggerThread != null) {
+            loggerThread.close();
+            loggerThread.interrupt();
+            loggerThread = null;
+        }
+    }
+
+    /**
+     * Returns true while the session holds tunnels, a log listener or a running frame sampler
+     * @return
+     */
+    public synchronized boolean isActive() {
+        synchronized (tunnels) {
+            if (!tunnels.isEmpty())
+                return true;
+        }
+
+        return loggerThread != null || (frameSampler != null && frameSampler.isRunning());
+    }
+
+    /**
+     * Stops the log listener and frame sampler and removes the tunnels of this session
+     * The session can still be used afterwards
+     */
+    public synchronized void close() {
+        try {
+            stopLogListener();
+            stopFrameSampler();
+        } catch (Exception e) {
+            logger.warn("Could not stop listeners on {}: {}", getSerialNumber(), e.getMessage());
+        }
+
+        List<int[]> removed;
+        synchronized (tunnels) {
+            removed = new ArrayList<int[]>(tunnels);
+            tunnels.clear();
+        }
+
+        for (int[] tunnel : removed) {
+            try {
+                device.removeForward(tunnel[0], tunnel[1]);
+            } catch (Exception e) {
+                logger.warn("Could not remove tunnel {} on {}", tunnel[0], getSerialNumber());
+            }
+        }
+    }
+
+    public String toString() {
+        return getSerialNumber();
+    }
+
+    /**
+     * Multi line receiver that writes to a file
+     */
+    public static class MultiReceiver extends MultiLineReceiver {
+        boolean closed = false;
+        String _fileName = null;
+        FileWriter fstream = null;
+        BufferedWriter ostream = null;
+
+        public MultiReceiver() {
+
+        }
+
+        public MultiReceiver(String outfile) throws Exception {
+            _fileName = outfile;
+            fstream = new FileWriter(_fileName);
+            ostream = new BufferedWriter(fstream);
+        }
+
+        public synchronized void processNewLines(java.lang.String[] lines) {
+            try {
+                for (String line: lines) {
+                    if (ostream != null) {
+                        ostream.write(line + "\n");
+                    }
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        public boolean isCancelled() {
+            return closed;
+        }
+
+        public synchronized void close() {
+            closed = true;
+
+            // write out what is buffered so the log is complete once the listener is stopped
+            if (ostream != null) {
+                try {
+                    ostream.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                ostream = null;
+            }
+        }
+    }
+
+    /**
+     * This thread contains the running the log listener
+     * runShellCommand does not return until the logcat finishes(never) so we have to run it in its own thread
+     */
+    private class LogThread extends Thread {
+        String _filename = "";
+        MultiReceiver _receiver = null;
+
+        public LogThread(String filename) throws Exception {
+            super("roboremote-logcat-" + getSerialNumber());
+            _filename = filename;
+            _receiver = new MultiReceiver(_filename);
+        }
+
+        public void run() {
+            try {
+                logger.info("Logging to: {}", _filename);
+                runShellCommand("logcat -v time", _receiver, 0);
+            } catch (Exception e) {
+                logger.error("LogThread interrupted: {}", e);
+            }
+        }
+
+        public void close() {
+            // cause an exception in the receiver to kill the command
+            _receiver.close();
+        }
+    }
+}
@@ -0,0 +1,498 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon;
+
+import com.android.ddmlib.RawImage;
+import com.groupon.roboremote.roboremoteclientcommon.logging.TestLogger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Captures the screen in the background so the moments before a failure can be stored with it
+ * Frames are kept in a ring buffer bounded by time and memory.  Each frame is stored deflate compressed as the
+ * XOR of its framebuffer with the previous frame, so an unchanged screen costs almost nothing.  The oldest frame
+ * is always stored whole and is re-encoded from its successor when it is dropped.
+ * ROBO_FRAME_SAMPLER - set to true to sample during tests
+ * ROBO_FRAME_SAMPLER_INTERVAL - ms between captures(default 500)
+ * ROBO_FRAME_SAMPLER_WINDOW - ms of frames to keep(default 10000)
+ * ROBO_FRAME_SAMPLER_MEMORY - MB of compressed frames to keep(default 64)
+ * ROBO_FRAME_SAMPLER_OUTPUT - how failures store the frames, sequence(PNG files, default) or gif
+ */
+public class FrameSampler {
+    public static final String FRAME_DIRECTORY = "frames";
+    public static final String ANIMATION_FILE = "frames.gif";
+
+    /**
+     * Where frames come from(ex: DebugBridge.getRawScreenShot)
+     */
+    public interface Source {
+        RawImage capture() throws Exception;
+    }
+
+    /**
+     * A compressed frame
+     */
+    private static class Frame {
+        final long time;
+        // the framebuffer description without data
+        final RawImage header;
+        final byte[] compressed;
+        // true if compressed is the framebuffer itself, false if it is the XOR with the previous frame
+        final boolean key;
+
+        Frame(long time, RawImage header, byte[] compressed, boolean key) {
+            this.time = time;
+            this.header = header;
+            this.compressed = compressed;
+            this.key = key;
+        }
+    }
+
+    private final Source source;
+    private final long interval;
+    private final long window;
+    private final long maxBytes;
+
+    // guarded by frames
+    private final ArrayDeque<Frame> frames = new ArrayDeque<Frame>();
+    private long bytes = 0;
+
+    private volatile Thread thread = null;
+
+    // only used by the sampling thread
+    private byte[] previous = null;
+    private RawImage previousHeader = null;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+    /**
+     * Creates a sampler configured from the environment
+     * @param source
+     */
+    public FrameSampler(Source source) {
+        this(source, Long.parseLong(Utils.getEnv("ROBO_FRAME_SAMPLER_INTERVAL", "500")),
+                Long.parseLong(Utils.getEnv("ROBO_FRAME_SAMPLER_WINDOW", "10000")),
+                Long.parseLong(Utils.getEnv("ROBO_FRAME_SAMPLER_MEMORY", "64")) * 1024 * 1024);
+    }
+
+    /**
+     * @param source
+     * @param interval - ms between captures
+     * @param window - ms of frames to keep
+     * @param maxBytes - compressed bytes to keep
+     */
+    public FrameSampler(Source source, long interval, long window, long maxBytes) {
+        this.source = source;
+        this.interval = interval;
+        this.window = window;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns true if ROBO_FRAME_SAMPLER asks for sampling during tests
+     * @return
+     */
+    public static boolean isEnabled() {
+        return "true".equalsIgnoreCase(Utils.getEnv("ROBO_FRAME_SAMPLER", "false"));
+    }
+
+    public synchronized void start() {
+        if (thread != null)
+            return;
+
+        thread = new Thread(new Runnable() {
+            public void run() {
+                sample();
+            }
+        }, "roboremote-frame-sampler");
+        // do not keep the test JVM alive
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops sampling and waits for a capture in progress, the frames are kept until clear is called
+     * @throws InterruptedException
+     */
+    public synchronized void stop() throws InterruptedException {
+        Thread sampling = thread;
+        thread = null;
+
+        if (sampling != null) {
+            sampling.interrupt();
+            sampling.join();
+        }
+    }
+
+    /**
+     * Queues the buffered window to be stored in a test's log directory as configured by ROBO_FRAME_SAMPLER_OUTPUT
+     * @param logDirectory
+     * @throws Exception
+     */
+    public void store(String logDirectory) throws Exception {
+        if ("gif".equalsIgnoreCase(Utils.getEnv("ROBO_FRAME_SAMPLER_OUTPUT", "sequence"))) {
+            storeAnimation(new File(logDirectory, ANIMATION_FILE), window, 2);
+        } else {
+            storeSequence(new File(logDirectory, FRAME_DIRECTORY), window);
+        }
+    }
+
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    public void clear() {
+        synchronized (frames) {
+            frames.clear();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Gets the number of frames in the buffer
+     * @return
+     */
+    public int getFrameCount() {
+        synchronized (frames) {
+            return frames.size();
+        }
+    }
+
+    /**
+     * Gets the compressed size of the buffer
+     * @return
+     */
+    public long getByteCount() {
+        synchronized (frames) {
+            return bytes;
+        }
+    }
+
+    private void sample() {
+        while (thread == Thread.currentThread()) {
+            long start = System.currentTimeMillis();
+            try {
+                add(start, source.capture());
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                TestLogger.get().warn("Frame capture failed: {}", e.getMessage());
+            }
+
+            try {
+                Thread.sleep(Math.max(0, interval - (System.currentTimeMillis() - start)));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds a frame to the buffer and drops the frames that are too old or over the memory limit
+     * Only called from the sampling thread
+     * @param time
+     * @param raw
+     */
+    void add(long time, RawImage raw) throws DataFormatException {
+        // compress outside of the lock so storing a failure does not wait on it
+        boolean key = previous == null || !sameLayout(previousHeader, raw);
+        Frame frame = new Frame(time, header(raw), compress(key ? raw.data : xor(raw.data.clone(), previous)), key);
+
+        previous = raw.data;
+        previousHeader = frame.header;
+
+        synchronized (frames) {
+            // the buffer was cleared after the previous frame so there is nothing to apply the delta to
+            if (!frame.key && frames.isEmpty())
+                frame = new Frame(time, frame.header, compress(raw.data), true);
+
+            frames.addLast(frame);
+            bytes += frame.compressed.length;
+
+            // always keep the newest frame
+            while (frames.size() > 1 && (frames.peekFirst().time < time - window || bytes > maxBytes)) {
+                dropOldest();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest frame, storing the frame after it whole if it was a delta
+     */
+    private void dropOldest() throws DataFormatException {
+        Frame oldest = frames.removeFirst();
+        bytes -= oldest.compressed.length;
+
+        Frame next = frames.peekFirst();
+        if (next.key)
+            return;
+
+        byte[] data = xor(decompress(next.compressed, next.header.size), decompress(oldest.compressed, oldest.header.size));
+
+        Frame key = new Frame(next.time, next.header, compress(data), true);
+        frames.removeFirst();
+        frames.addFirst(key);
+        bytes += key.compressed.length - next.compressed.length;
+    }
+
+    /**
+     * Decodes the frames captured in the last ms before now
+     * @param last - ms
+     * @return
+     * @throws Exception
+     */
+    public List<RawImage> getFrames(long last) throws Exception {
+        return decode(snapshot(), System.currentTimeMillis() - last);
+    }
+
+    /**
+     * Queues the frames of the last ms to be written as frame_000.png, frame_001.png.. in a directory
+     * The frames are taken now and decoded and written in the background(see ArtifactPipeline)
+     * @param directory
+     * @param last - ms
+     * @throws Exception
+     */
+    public void storeSequence(final File directory, long last) throws Exception {
+        final List<Frame> snapshot = snapshot();
+        final long since = System.currentTimeMillis() - last;
+
+        ArtifactPipeline.get().submit(directory.getPath(), new ArtifactPipeline.Task() {
+            public void run() throws Exception {
+                if (!directory.isDirectory() && !directory.mkdirs())
+                    throw new Exception("Could not create " + directory);
+
+                int index = 0;
+                for (RawImage raw : decode(snapshot, since)) {
+                    File file = new File(directory, String.format("frame_%03d.png", index++));
+                    OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+                    try {
+                        RawImageConverter.write(raw, ScreenshotFormat.PNG_FAST, out);
+                    } finally {
+                        out.close();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Queues the frames of the last ms to be written as an animated GIF played back at the capture timing
+     * The frames are taken now and decoded and written in the background(see ArtifactPipeline)
+     * @param file
+     * @param last - ms
+     * @param scale - divisor for the width and height of the frames(GIF encoding of full size frames is slow)
+     * @throws Exception
+     */
+    public void storeAnimation(final File file, long last, final int scale) throws Exception {
+        final List<Frame> snapshot = snapshot();
+        final long since = System.currentTimeMillis() - last;
+
+        ArtifactPipeline.get().submit(file.getPath(), new ArtifactPipeline.Task() {
+            public void run() throws Exception {
+                List<Long> times = new ArrayList<Long>();
+                for (Frame frame : snapshot) {
+                    if (frame.time >= since)
+                        times.add(frame.time);
+                }
+
+                writeAnimation(decode(snapshot, since), times, file, scale);
+            }
+        });
+    }
+
+    /**
+     * Copies the buffer, every frame is needed to decode any of them since deltas chain from the oldest
+     * @return
+     */
+    private List<Frame> snapshot() {
+        synchronized (frames) {
+            return new ArrayList<Frame>(frames);
+        }
+    }
+
+    private static List<RawImage> decode(List<Frame> snapshot, long since) throws DataFormatException {
+        List<RawImage> images = new ArrayList<RawImage>();
+        byte[] data = null;
+        for (Frame frame : snapshot) {
+            byte[] decoded = decompress(frame.compressed, frame.header.size);
+            data = frame.key ? decoded : xor(decoded, data);
+
+            if (frame.time >= since) {
+                RawImage image = header(frame.header);
+                image.data = data;
+                images.add(image);
+            }
+        }
+        return images;
+    }
+
+    private static void writeAnimation(List<RawImage> images, List<Long> times, File file, int scale) throws Exception {
+        if (images.isEmpty())
+            return;
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+        ImageOutputStream out = ImageIO.createImageOutputStream(file);
+        try {
+            writer.setOutput(out);
+            writer.prepareWriteSequence(null);
+
+            for (int index = 0; index < images.size(); index++) {
+                BufferedImage image = scale(RawImageConverter.toImage(images.get(index), BufferedImage.TYPE_INT_RGB), scale);
+
+                // each frame stays up until the next one was captured
+                long delay = index + 1 < times.size() ? times.get(index + 1) - times.get(index) : 1000;
+
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                IIOMetadata metadata = writer.getDefaultImageMetadata(new ImageTypeSpecifier(image), param);
+                String format = metadata.getNativeMetadataFormatName();
+                IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+                IIOMetadataNode control = new IIOMetadataNode("GraphicControlExtension");
+                control.setAttribute("disposalMethod", "none");
+                control.setAttribute("userInputFlag", "FALSE");
+                control.setAttribute("transparentColorFlag", "FALSE");
+                control.setAttribute("delayTime", Long.toString(delay / 10));
+                control.setAttribute("transparentColorIndex", "0");
+                root.appendChild(control);
+                metadata.setFromTree(format, root);
+
+                writer.writeToSequence(new IIOImage(image, null, metadata), param);
+            }
+
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+            out.close();
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image, int scale) {
+        if (scale <= 1)
+            return image;
+
+        BufferedImage scaled = new BufferedImage(Math.max(1, image.getWidth() / scale), Math.max(1, image.getHeight() / scale),
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, scaled.getWidth(), scaled.getHeight(), null);
+        graphics.dispose();
+        return scaled;
+    }
+
+    /**
+     * XORs data with another frame of the same size into data
+     * @param data
+     * @param other
+     * @return data
+     */
+    private static byte[] xor(byte[] data, byte[] other) {
+        for (int x = 0; x < data.length; x++) {
+            data[x] ^= other[x];
+        }
+        return data;
+    }
+
+    private byte[] compress(byte[] data) {
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 8);
+        byte[] buffer = new byte[64 * 1024];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] compressed, int size) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] data = new byte[size];
+            int read = 0;
+            while (read < size && !inflater.finished()) {
+                read += inflater.inflate(data, read, size - read);
+            }
+            return data;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static boolean sameLayout(RawImage a, RawImage b) {
+        return a.width == b.width && a.height == b.height && a.bpp == b.bpp && a.size == b.data.length
+                && a.red_offset == b.red_offset && a.green_offset == b.green_offset
+                && a.blue_offset == b.blue_offset && a.alpha_offset == b.alpha_offset
+                && a.red_length == b.red_length && a.green_length == b.green_length
+                && a.blue_length == b.blue_length && a.alpha_length == b.alpha_length;
+    }
+
+    private static RawImage header(RawImage raw) {
+        RawImage header = new RawImage();
+        header.version = raw.version;
+        header.bpp = raw.bpp;
+        header.size = raw.data != null ? raw.data.length : raw.size;
+        header.width = raw.width;
+        header.height = raw.height;
+        header.red_offset = raw.red_offset;
+        header.red_length = raw.red_length;
+        header.green_offset = raw.green_offset;
+        header.green_length = raw.green_length;
+        header.blue_offset = raw.blue_offset;
+        header.blue_length = raw.blue_length;
+        header.alpha_offset = raw.alpha_offset;
+        header.alpha_length = raw.alpha_length;
+        return header;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon;
+
+import org.json.JSONArray;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds a multi pointer touch sequence that is sent to the server in one request and played back there with
+ * the timing kept on the device
+ *
+ * Events are added at the current time of the builder which only moves forward with pause and the moveTo functions
+ * ex: long press then drag
+ * new Gesture().down(0, 100, 100).pause(1000).moveTo(0, 500, 100, 300).up(0)
+ */
+public class Gesture {
+    // interval between the interpolated moves of moveTo
+    public static final long MOVE_INTERVAL = 10;
+
+    private JSONArray events = new JSONArray();
+    private Map<Integer, int[]> positions = new HashMap<Integer, int[]>();
+    private long time = 0;
+
+    /**
+     * Put a pointer down at the current time
+     * @param pointer - id of the pointer, 0 for the first finger
+     * @param x
+     * @param y
+     * @return
+     */
+    public Gesture down(int pointer, int x, int y) {
+        return add("down", pointer, x, y);
+    }
+
+    /**
+     * Move a pointer to a position at the current time
+     * @param pointer
+     * @param x
+     * @param y
+     * @return
+     */
+    public Gesture move(int pointer, int x, int y) {
+        return add("move", pointer, x, y);
+    }
+
+    /**
+     * Lift a pointer at its last position at the current time
+     * @param pointer
+     * @return
+     * @throws Exception
+     */
+    public Gesture up(int pointer) throws Exception {
+        int[] position = positions.get(pointer);
+        if (position == null)
+            throw new Exception("Pointer " + pointer + " is not down");
+
+        return add("up", pointer, position[0], position[1]);
+    }
+
+    /**
+     * Move the current time forward
+     * @param ms
+     * @return
+     */
+    public Gesture pause(long ms) {
+        time += ms;
+        return this;
+    }
+
+    /**
+     * Move a pointer in a straight line over a duration
+     * @param pointer
+     * @param x
+     * @param y
+     * @param duration - ms
+     * @return
+     * @throws Exception
+     */
+    public Gesture moveTo(int pointer, int x, int y, long duration) throws Exception {
+        return moveTo(duration, new int[] {pointer}, new int[] {x}, new int[] {y});
+    }
+
+    /**
+     * Move several pointers in straight lines at the same time
+     * @param duration - ms
+     * @param pointers - ids of the pointers to move
+     * @param x - destination x of each pointer
+     * @param y - destination y of each pointer
+     * @return
+     * @throws Exception
+     */
+    public Gesture moveTo(long duration, int[] pointers, int[] x, int[] y) throws Exception {
+        if (pointers.length != x.length || pointers.length != y.length)
+            throw new Exception("Each pointer needs a destination");
+
+        int[][] start = new int[pointers.length][];
+        for (int index = 0; index < pointers.length; index++) {
+            start[index] = positions.get(pointers[index]);
+            if (start[index] == null)
+                throw new Exception("Pointer " + pointers[index] + " is not down");
+        }
+
+        long startTime = time;
+        long steps = Math.max(1, duration / MOVE_INTERVAL);
+        for (long step = 1; step <= steps; step++) {
+            time = startTime + duration * step / steps;
+            for (int index = 0; index < pointers.length; index++) {
+                move(pointers[index],
+                        (int) (start[index][0] + (x[index] - start[index][0]) * step / steps),
+                        (int) (start[index][1] + (y[index] - start[index][1]) * step / steps));
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the time of the last event
+     * @return
+     */
+    public long getDuration() {
+        return time;
+    }
+
+    /**
+     * Gets the script that is sent to the server
+     * Each event is [time, action, pointer, x, y]
+     * @return
+     */
+    public String toScript() {
+        return events.toString();
+    }
+
+    public String toString() {
+        return toScript();
+    }
+
+    private Gesture add(String action, int pointer, int x, int y) {
+        JSONArray event = new JSONArray();
+        event.put(time);
+        event.put(action);
+        event.put(pointer);
+        event.put(x);
+        event.put(y);
+        events.put(event);
+
+        if (action.equals("up"))
+            positions.remove(pointer);
+        else
+            positions.put(pointer, new int[] {x, y});
+
+        return this;
+    }
+
+    /**
+     * A tap that holds for a duration
+     * @param x
+     * @param y
+     * @param duration - ms
+     * @return
+     * @throws Exception
+     */
+    public static Gesture press(int x, int y, long duration) throws Exception {
+        return new Gesture().down(0, x, y).pause(duration).up(0);
+    }
+
+    /**
+     * A single finger swipe through a series of points, each segment taking the same time
+     * @param duration - ms for the whole path
+     * @param points - {x, y} pairs
+     * @return
+     * @throws Exception
+     */
+    public static Gesture path(long duration, int[]... points) throws Exception {
+        if (points.length < 2)
+            throw new Exception("A path needs at least two points");
+
+        Gesture gesture = new Gesture().down(0, points[0][0], points[0][1]);
+        for (int x = 1; x < points.length; x++) {
+            gesture.moveTo(0, points[x][0], points[x][1], duration / (points.length - 1));
+        }
+
+        return gesture.up(0);
+    }
+
+    /**
+     * Long press at a point and then drag to another
+     * @param fromX
+     * @param fromY
+     * @param toX
+     * @param toY
+     * @param holdDuration - ms to hold before moving
+     * @param dragDuration - ms to move
+     * @return
+     * @throws Exception
+     */
+    public static Gesture longPressDrag(int fromX, int fromY, int toX, int toY, long holdDuration, long dragDuration) throws Exception {
+        return new Gesture().down(0, fromX, fromY).pause(holdDuration).moveTo(0, toX, toY, dragDuration).up(0);
+    }
+
+    /**
+     * Two fingers moving on a horizontal line through a center point
+     * @param centerX
+     * @param centerY
+     * @param startDistance - distance between the fingers at the start
+     * @param endDistance - distance between the fingers at the end, less than startDistance to pinch in
+     * @param duration - ms
+     * @return
+     * @throws Exception
+     */
+    public static Gesture pinch(int centerX, int centerY, int startDistance, int endDistance, long duration) throws Exception {
+        return new Gesture()
+                .down(0, centerX - startDistance / 2, centerY)
+                .down(1, centerX + startDistance / 2, centerY)
+                .moveTo(duration, new int[] {0, 1},
+                        new int[] {centerX - endDistance / 2, centerX + endDistance / 2},
+                        new int[] {centerY, centerY})
+                .up(0)
+                .up(1);
+    }
+}
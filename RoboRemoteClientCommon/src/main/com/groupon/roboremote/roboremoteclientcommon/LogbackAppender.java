@@ -37,6 +37,9 @@ import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.AppenderBase;
 
 public class LogbackAppender extends AppenderBase<ILoggingEvent> {
+    // client for threads without a DeviceContext
+    private static volatile Client client = Client.forPort(com.groupon.roboremote.Constants.ROBOREMOTE_SERVER_PORT);
+
     private PatternLayout layout = null;
 
     public LogbackAppender() {
@@ -48,6 +51,26 @@ public class LogbackAppender extends AppenderBase<ILoggingEvent> {
         super.start();
     }
 
+    /**
+     * Sets the client that logs are sent to from threads that are not bound to a DeviceContext
+     * @param client
+     */
+    public static void setClient(Client client) {
+        LogbackAppender.client = client;
+    }
+
+    /**
+     * Gets the client of the device the calling thread works with
+     * @return
+     */
+    private static Client getClient() {
+        DeviceContext context = DeviceContext.current();
+        if (context != null)
+            return Client.forPort(context.getRoboRemotePort());
+
+        return client;
+    }
+
     public void append(ILoggingEvent event) {
         if (layout == null) {
             layout = new PatternLayout();
@@ -62,7 +85,7 @@ public class LogbackAppender extends AppenderBase<ILoggingEvent> {
 
         try
         {
-            new QueryBuilder(Client.getInstance().API_PORT).mapField("java.lang.System", "out").call("println", log).execute();
+            new QueryBuilder(getClient()).mapField("java.lang.System", "out").call("println", log).execute();
         } catch (Exception e) {
 
         }
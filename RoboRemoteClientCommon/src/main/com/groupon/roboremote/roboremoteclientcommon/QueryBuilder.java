@@ -33,19 +33,33 @@
 package com.groupon.roboremote.roboremoteclientcommon;
 
 import org.json.JSONArray;
-import org.json.simple.JSONObject;
 
-import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 public class QueryBuilder {
-    JSONObject request = new JSONObject();
+    RequestEncoder request = new RequestEncoder();
 
-    String queryStringRepresentation = "";
+    StringBuilder queryStringRepresentation = new StringBuilder();
     protected int port = com.groupon.roboremote.Constants.ROBOREMOTE_SERVER_PORT;
+    protected Client client;
 
+    /**
+     * Creates a builder for the shared client on a localhost port
+     * @param port
+     */
     public QueryBuilder(int port) {
-        this.port = port;
-        request.put(Constants.REQUEST_OPERATIONS, new JSONArray());
+        this(Client.forPort(port));
+    }
+
+    /**
+     * Creates a builder for a specific client
+     * @param client
+     */
+    public QueryBuilder(Client client) {
+        this.client = client;
+        this.port = client.getPort();
     }
 
     /**
@@ -56,17 +70,7 @@ public class QueryBuilder {
      * @throws Exception
      */
     public QueryBuilder mapField(String query, String field_name) throws Exception {
-        JSONObject op = new JSONObject();
-
-        if (query != null)
-            op.put(Constants.REQUEST_QUERY, query);
-
-        op.put(Constants.REQUEST_FIELD, field_name);
-
-        JSONArray operations = (JSONArray) request.get(Constants.REQUEST_OPERATIONS);
-        operations.put(op);
-        request.remove(Constants.REQUEST_OPERATIONS);
-        request.put(Constants.REQUEST_OPERATIONS, operations);
+        request.addField(query, field_name);
 
         return this;
     }
@@ -80,25 +84,12 @@ public class QueryBuilder {
      * @throws Exception
      */
     public QueryBuilder map(String query, String method_name, Object... items) throws Exception {
-        JSONObject op = new JSONObject();
-        if (query != null)
-            op.put(Constants.REQUEST_QUERY, query);
-
-        java.util.Map<String, Object> operation = new LinkedHashMap<String, Object>();
-        operation.put(Constants.REQUEST_METHOD_NAME, method_name);
+        request.addMethodCall(query, method_name, items);
 
         if (query != null)
-            queryStringRepresentation += query;
-
-        queryStringRepresentation += "." + method_name;
-
-        operation.put(Constants.REQUEST_ARGUMENTS, buildArgsArray(items));
-        op.put(Constants.REQUEST_OPERATION, operation);
+            queryStringRepresentation.append(query);
 
-        JSONArray operations = (JSONArray) request.get(Constants.REQUEST_OPERATIONS);
-        operations.put(op);
-        request.remove(Constants.REQUEST_OPERATIONS);
-        request.put(Constants.REQUEST_OPERATIONS, operations);
+        queryStringRepresentation.append('.').append(method_name);
 
         return this;
     }
@@ -111,57 +102,14 @@ public class QueryBuilder {
      * @throws Exception
      */
     public QueryBuilder instantiate(String query, Object... items) throws Exception {
-        JSONObject op = new JSONObject();
-        if (query != null)
-            op.put(Constants.REQUEST_INSTANTIATE, query);
+        request.addInstantiate(query, items);
 
         if (query != null)
-            queryStringRepresentation += query;
-
-        op.put(Constants.REQUEST_ARGUMENTS, buildArgsArray(items));
-
-        JSONArray operations = (JSONArray) request.get(Constants.REQUEST_OPERATIONS);
-        operations.put(op);
-        request.remove(Constants.REQUEST_OPERATIONS);
-        request.put(Constants.REQUEST_OPERATIONS, operations);
+            queryStringRepresentation.append(query);
 
         return this;
     }
 
-    /**
-     * Internal function used to build a JSON Array of arguments from a list of items
-     * @param items
-     * @return
-     * @throws Exception
-     */
-    private JSONArray buildArgsArray(Object ... items) throws Exception {
-        JSONArray args = new JSONArray();
-        for (int i = 0; i < items.length; i++) {
-
-            if (items[i] instanceof java.lang.String)
-            {
-                args.put((String) items[i]);
-            }
-            else if (items[i] instanceof Number)
-            {
-                args.put((Number) items[i]);
-            }
-            else if (items[i] instanceof java.lang.Boolean)
-            {
-                args.put((Boolean) items[i]);
-            }
-            else if (items[i] == null)
-            {
-                args.put((Object)null);
-            }
-            else
-            {
-                throw new Exception("Invalid type");
-            }
-        }
-        return args;
-    }
-
     /**
      * Builder function to call a method on the result of a previous build function(ex: instantiate, map, retrieveresult)
      * @param method_name
@@ -225,12 +173,7 @@ public class QueryBuilder {
      * @throws Exception
      */
     private QueryBuilder genericRequest(String type, String value) throws Exception {
-        JSONObject op = new JSONObject();
-        op.put(type, value);
-        JSONArray operations = (JSONArray) request.get(Constants.REQUEST_OPERATIONS);
-        operations.put(op);
-        request.remove(Constants.REQUEST_OPERATIONS);
-        request.put(Constants.REQUEST_OPERATIONS, operations);
+        request.addKeyValue(type, value);
         return this;
     }
 
@@ -240,12 +183,109 @@ public class QueryBuilder {
      * @throws Exception
      */
     public JSONArray execute() throws Exception {
+        return execute(ResultHandler.jsonArray());
+    }
+
+    /**
+     * Execute a series of commands and convert the results with a handler as they are read from the response
+     * @param handler
+     * @return
+     * @throws Exception
+     */
+    public <T> T execute(ResultHandler<T> handler) throws Exception {
+        // queued void calls have to run before anything that returns a value
+        Batch.barrier(client);
+
+        return send(request, queryStringRepresentation.toString(), handler);
+    }
+
+    /**
+     * Execute a series of commands whose results are not needed
+     * If a batch is open on this thread the commands are queued and sent when the batch is flushed
+     * @throws Exception
+     */
+    public void executeVoid() throws Exception {
+        Batch batch = Batch.current(client);
+        if (batch != null) {
+            batch.add(request.copy(), queryStringRepresentation.toString());
+            return;
+        }
+
+        execute(ResultHandler.none());
+    }
+
+    /**
+     * Execute a series of commands on the async thread pool
+     * Operations added to this builder after the call are not part of the request
+     * @return
+     * @throws Exception
+     */
+    public Future<JSONArray> executeAsync() throws Exception {
+        return executeAsync(ResultHandler.jsonArray());
+    }
+
+    /**
+     * Execute a series of commands on the async thread pool and convert the results with a handler
+     * Operations added to this builder after the call are not part of the request
+     * @param handler
+     * @return
+     * @throws Exception
+     */
+    public <T> Future<T> executeAsync(final ResultHandler<T> handler) throws Exception {
+        Batch.barrier(client);
+
+        final Client requestClient = client;
+        final RequestEncoder requestCopy = request.copy();
+        final String chain = queryStringRepresentation.toString();
+
+        return AsyncExecutor.submit(new Callable<T>() {
+            public T call() throws Exception {
+                return send(requestClient, requestCopy, chain, handler);
+            }
+        });
+    }
+
+    /**
+     * Sends operations from this builder to the server
+     * Subclasses can override this to send other operations in the same request(ex: removing released stored values)
+     * @param client
+     * @param request
+     * @param chain - operation chain of the request(ex: solo.clickOnText)
+     * @param handler
+     * @return
+     * @throws Exception
+     */
+    protected <T> T send(Client client, RequestEncoder request, String chain, ResultHandler<T> handler) throws Exception {
+        return execute(client, request, chain, handler);
+    }
+
+    private <T> T send(RequestEncoder request, String chain, ResultHandler<T> handler) throws Exception {
+        return send(client, request, chain, handler);
+    }
+
+    static <T> T execute(Client client, RequestEncoder request, String chain, ResultHandler<T> handler) throws Exception {
         try {
-            JSONArray retVal = Client.getInstance(port).map(toString());
+            // pure operations can be answered from the cache as long as the server epoch has not changed
+            if (ResultCache.isPure(chain)) {
+                String requestJson = request.toString();
+                ResultCache cache = client.getResultCache();
+
+                // a result is only stored if no epoch change cleared the cache while it was being fetched
+                long generation = cache.getGeneration();
+                List<Object> values = cache.lookup(requestJson);
+                if (values == null) {
+                    values = client.send(request, ResultHandler.values(), chain);
+                    cache.store(requestJson, values, generation);
+                } else {
+                    client.recordCacheHit(chain);
+                }
+
+                return ResultHandler.replay(values, handler);
+            }
 
-            return retVal;
+            return client.send(request, handler, chain);
         } catch (Exception e) {
-            throw new Exception(queryStringRepresentation + ": " + e.getMessage());
+            throw new Exception(chain + ": " + e.getMessage());
         }
     }
 
@@ -0,0 +1,393 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon;
+
+import com.android.ddmlib.RawImage;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Converts framebuffer captures to images and encodes them
+ * Pixels are unpacked a row at a time straight into the int array behind the image instead of going through
+ * RawImage.getARGB and BufferedImage.setRGB for every pixel.  Large captures are split into row bands that are
+ * converted in parallel.
+ */
+public class RawImageConverter {
+    // captures with fewer pixels than this are converted on the calling thread
+    public static final int PARALLEL_THRESHOLD = 512 * 1024;
+    public static final float JPEG_QUALITY = 0.9f;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    /* Here is the instance of the Singleton */
+    private static ExecutorService instance_ = null;
+
+    /* Need the following object to synchronize */
+    /* a block */
+    private static Object syncObject_ = new Object();
+
+    /* Prevent direct access to the constructor */
+    private RawImageConverter() {
+        super();
+    }
+
+    private static ExecutorService getExecutor() {
+        synchronized (syncObject_) {
+            if (instance_ == null) {
+                final AtomicInteger threadCount = new AtomicInteger();
+                instance_ = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                        new ThreadFactory() {
+                            public Thread newThread(Runnable runnable) {
+                                Thread thread = new Thread(runnable, "roboremote-raster-" + threadCount.incrementAndGet());
+                                // do not keep the test JVM alive
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+            }
+            return instance_;
+        }
+    }
+
+    /**
+     * Converts a framebuffer capture into an ARGB image
+     * @param raw
+     * @return
+     */
+    public static BufferedImage toImage(RawImage raw) {
+        return toImage(raw, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * Converts a framebuffer capture into an image
+     * @param raw
+     * @param imageType - BufferedImage.TYPE_INT_ARGB or BufferedImage.TYPE_INT_RGB
+     * @return
+     */
+    public static BufferedImage toImage(final RawImage raw, int imageType) {
+        if (raw.bpp != 16 && raw.bpp != 32)
+            throw new UnsupportedOperationException("Only 16 and 32 bit framebuffers can be converted, got " + raw.bpp);
+
+        BufferedImage image = new BufferedImage(raw.width, raw.height, imageType);
+        final int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        if (raw.width * raw.height < PARALLEL_THRESHOLD || processors < 2) {
+            convertRows(raw, pixels, 0, raw.height);
+            return image;
+        }
+
+        int bandHeight = (raw.height + processors - 1) / processors;
+        List<Future<Object>> bands = new ArrayList<Future<Object>>();
+        for (int start = 0; start < raw.height; start += bandHeight) {
+            final int firstRow = start;
+            final int lastRow = Math.min(raw.height, start + bandHeight);
+            bands.add(getExecutor().submit(new Callable<Object>() {
+                public Object call() {
+                    convertRows(raw, pixels, firstRow, lastRow);
+                    return null;
+                }
+            }));
+        }
+
+        try {
+            for (Future<Object> band : bands) {
+                AsyncExecutor.await(band);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Could not convert screenshot: " + e.getMessage(), e);
+        }
+
+        return image;
+    }
+
+    /**
+     * Unpacks rows [firstRow, lastRow) into ARGB pixels, giving the same values as RawImage.getARGB
+     * @param raw
+     * @param pixels
+     * @param firstRow
+     * @param lastRow
+     */
+    static void convertRows(RawImage raw, int[] pixels, int firstRow, int lastRow) {
+        int bytesPerPixel = raw.bpp >> 3;
+        int pixel = firstRow * raw.width;
+        int end = lastRow * raw.width;
+        int index = pixel * bytesPerPixel;
+        byte[] data = raw.data;
+
+        // RGBA8888 is what almost every device sends, so it gets a path that only swaps channels
+        if (raw.bpp == 32 && raw.red_offset == 0 && raw.green_offset == 8 && raw.blue_offset == 16
+                && raw.red_length == 8 && raw.green_length == 8 && raw.blue_length == 8) {
+            boolean opaque = raw.alpha_length == 0;
+            for (; pixel < end; pixel++, index += 4) {
+                int alpha = opaque ? 0xff000000 : data[index + 3] << 24;
+                pixels[pixel] = alpha | (data[index] & 0xff) << 16 | (data[index + 1] & 0xff) << 8 | (data[index + 2] & 0xff);
+            }
+            return;
+        }
+
+        int redMask = (1 << raw.red_length) - 1;
+        int greenMask = (1 << raw.green_length) - 1;
+        int blueMask = (1 << raw.blue_length) - 1;
+        int alphaMask = (1 << raw.alpha_length) - 1;
+        for (; pixel < end; pixel++, index += bytesPerPixel) {
+            int value = (data[index] & 0xff) | (data[index + 1] & 0xff) << 8;
+            if (bytesPerPixel == 4)
+                value |= (data[index + 2] & 0xff) << 16 | (data[index + 3] & 0xff) << 24;
+
+            int red = ((value >>> raw.red_offset) & redMask) << (8 - raw.red_length);
+            int green = ((value >>> raw.green_offset) & greenMask) << (8 - raw.green_length);
+            int blue = ((value >>> raw.blue_offset) & blueMask) << (8 - raw.blue_length);
+            int alpha = raw.alpha_length == 0 ? 0xff : ((value >>> raw.alpha_offset) & alphaMask) << (8 - raw.alpha_length);
+
+            pixels[pixel] = alpha << 24 | red << 16 | green << 8 | blue;
+        }
+    }
+
+    /**
+     * Encodes a framebuffer capture
+     * @param raw
+     * @param format
+     * @param out
+     * @throws IOException
+     */
+    public static void write(RawImage raw, ScreenshotFormat format, OutputStream out) throws IOException {
+        switch (format) {
+            case PNG:
+                ImageIO.write(toImage(raw), "png", out);
+                break;
+            case PNG_FAST:
+                writeFastPng(toImage(raw, BufferedImage.TYPE_INT_RGB), out);
+                break;
+            case JPEG:
+                writeJpeg(toImage(raw, BufferedImage.TYPE_INT_RGB), out);
+                break;
+            case RAW:
+                writeRaw(raw, out);
+                break;
+        }
+    }
+
+    /**
+     * Writes an RGB PNG with no row filters at the fastest deflate level
+     * Framebuffers are opaque so the alpha channel is left out
+     * @param image - TYPE_INT_RGB or TYPE_INT_ARGB image
+     * @param out
+     * @throws IOException
+     */
+    public static void writeFastPng(BufferedImage image, OutputStream out) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        out.write(PNG_SIGNATURE);
+
+        ByteBuffer header = ByteBuffer.allocate(13);
+        header.putInt(width).putInt(height);
+        // 8 bit depth, truecolor, deflate, adaptive filtering, no interlace
+        header.put((byte) 8).put((byte) 2).put((byte) 0).put((byte) 0).put((byte) 0);
+        writeChunk(out, "IHDR", header.array(), header.position());
+
+        ChunkOutputStream idat = new ChunkOutputStream(out, "IDAT", 64 * 1024);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        DeflaterOutputStream deflated = new DeflaterOutputStream(idat, deflater, 64 * 1024);
+
+        byte[] row = new byte[1 + width * 3];
+        for (int y = 0; y < height; y++) {
+            // row[0] is filter type 0(none)
+            int index = 1;
+            for (int x = y * width, end = x + width; x < end; x++) {
+                int pixel = pixels[x];
+                row[index++] = (byte) (pixel >> 16);
+                row[index++] = (byte) (pixel >> 8);
+                row[index++] = (byte) pixel;
+            }
+            deflated.write(row);
+        }
+
+        deflated.finish();
+        deflater.end();
+        idat.flush();
+
+        writeChunk(out, "IEND", new byte[0], 0);
+        out.flush();
+    }
+
+    private static void writeJpeg(BufferedImage image, OutputStream out) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext())
+            throw new IOException("No JPEG writer is available");
+
+        ImageWriter writer = writers.next();
+        ImageOutputStream imageOut = ImageIO.createImageOutputStream(out);
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+
+            writer.setOutput(imageOut);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+            imageOut.close();
+        }
+    }
+
+    /**
+     * Writes the framebuffer as received from the device behind a version 1 framebuffer header
+     * @param raw
+     * @param out
+     * @throws IOException
+     */
+    private static void writeRaw(RawImage raw, OutputStream out) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4 * (1 + RawImage.getHeaderSize(1))).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(1);
+        header.putInt(raw.bpp).putInt(raw.data.length).putInt(raw.width).putInt(raw.height);
+        header.putInt(raw.red_offset).putInt(raw.red_length);
+        header.putInt(raw.blue_offset).putInt(raw.blue_length);
+        header.putInt(raw.green_offset).putInt(raw.green_length);
+        header.putInt(raw.alpha_offset).putInt(raw.alpha_length);
+
+        out.write(header.array());
+        out.write(raw.data);
+        out.flush();
+    }
+
+    /**
+     * Reads a capture written with ScreenshotFormat.RAW
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public static RawImage readRaw(InputStream in) throws IOException {
+        DataInputStream dataIn = new DataInputStream(in);
+
+        byte[] versionBytes = new byte[4];
+        dataIn.readFully(versionBytes);
+        int version = ByteBuffer.wrap(versionBytes).order(ByteOrder.LITTLE_ENDIAN).getInt();
+
+        byte[] headerBytes = new byte[4 * RawImage.getHeaderSize(version)];
+        dataIn.readFully(headerBytes);
+
+        RawImage raw = new RawImage();
+        if (!raw.readHeader(version, ByteBuffer.wrap(headerBytes).order(ByteOrder.LITTLE_ENDIAN)))
+            throw new IOException("Unsupported framebuffer header version: " + version);
+
+        raw.data = new byte[raw.size];
+        dataIn.readFully(raw.data);
+        return raw;
+    }
+
+    private static void writeChunk(OutputStream out, String type, byte[] data, int length) throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(out);
+        byte[] typeBytes = type.getBytes("US-ASCII");
+
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+
+        dataOut.writeInt(length);
+        dataOut.write(typeBytes);
+        dataOut.write(data, 0, length);
+        dataOut.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Splits what is written to it into chunks of one type
+     */
+    private static class ChunkOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final String type;
+        private final byte[] buffer;
+        private int count = 0;
+
+        ChunkOutputStream(OutputStream out, String type, int chunkSize) {
+            this.out = out;
+            this.type = type;
+            this.buffer = new byte[chunkSize];
+        }
+
+        public void write(int b) throws IOException {
+            if (count == buffer.length)
+                flush();
+            buffer[count++] = (byte) b;
+        }
+
+        public void write(byte[] b, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (count == buffer.length)
+                    flush();
+
+                int copied = Math.min(length, buffer.length - count);
+                System.arraycopy(b, offset, buffer, count, copied);
+                count += copied;
+                offset += copied;
+                length -= copied;
+            }
+        }
+
+        public void flush() throws IOException {
+            if (count > 0) {
+                writeChunk(out, type, buffer, count);
+                count = 0;
+            }
+        }
+    }
+}
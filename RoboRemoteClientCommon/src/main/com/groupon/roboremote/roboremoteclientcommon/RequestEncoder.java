@@ -0,0 +1,587 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon;
+
+import com.groupon.roboremote.roboremoteclientcommon.http.RequestBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Encodes a map request into a byte buffer as operations are added
+ * The buffer holds the JSON text of the operations(ASCII only, anything else is \\u escaped).
+ * It is form encoded as "request=..." while it is written to the connection so no intermediate strings are built.
+ */
+public class RequestEncoder implements RequestBody {
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+
+    private static final byte[] FORM_PREFIX = ascii("request=");
+    private static final byte[] OPERATIONS_PREFIX = ascii("{\"" + Constants.REQUEST_OPERATIONS + "\":[");
+    private static final byte[] OPERATIONS_SUFFIX = ascii("]}");
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+    // characters that are not percent encoded in form data(same as java.net.URLEncoder)
+    private static final boolean[] UNRESERVED = new boolean[128];
+    static {
+        for (int c = 'a'; c <= 'z'; c++)
+            UNRESERVED[c] = true;
+        for (int c = 'A'; c <= 'Z'; c++)
+            UNRESERVED[c] = true;
+        for (int c = '0'; c <= '9'; c++)
+            UNRESERVED[c] = true;
+        UNRESERVED['.'] = true;
+        UNRESERVED['-'] = true;
+        UNRESERVED['*'] = true;
+        UNRESERVED['_'] = true;
+    }
+
+    private byte[] buffer;
+    private int length = 0;
+
+    // form encoded size of the buffer contents
+    private int encodedLength = 0;
+    private int operations = 0;
+
+    // false if the buffer holds a complete request rather than a list of operations
+    private final boolean wrapped;
+
+    private byte[] writeBuffer = null;
+
+    public RequestEncoder() {
+        this(256);
+    }
+
+    public RequestEncoder(int initialCapacity) {
+        buffer = new byte[initialCapacity];
+        wrapped = true;
+    }
+
+    private RequestEncoder(String json) {
+        buffer = new byte[json.length() + 16];
+        wrapped = false;
+
+        // non ASCII characters can only legally appear inside strings so escaping them keeps the JSON valid
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c < 0x80)
+                append(c);
+            else
+                appendUnicodeEscape(c);
+        }
+    }
+
+    private RequestEncoder(RequestEncoder source) {
+        buffer = new byte[Math.max(source.length, 64)];
+        System.arraycopy(source.buffer, 0, buffer, 0, source.length);
+        length = source.length;
+        encodedLength = source.encodedLength;
+        operations = source.operations;
+        wrapped = source.wrapped;
+    }
+
+    private RequestEncoder(List<RequestEncoder> chains) {
+        buffer = new byte[256];
+        wrapped = false;
+
+        append('{');
+        appendKey(Constants.REQUEST_BATCH);
+        append('[');
+        for (int i = 0; i < chains.size(); i++) {
+            RequestEncoder chain = chains.get(i);
+            if (i > 0)
+                append(',');
+
+            appendBytes(OPERATIONS_PREFIX, OPERATIONS_PREFIX.length);
+            appendBytes(chain.buffer, chain.length);
+            appendBytes(OPERATIONS_SUFFIX, OPERATIONS_SUFFIX.length);
+        }
+        append(']');
+        append('}');
+    }
+
+    /**
+     * Creates a batch request: {"batch":[{"operations":[...]}, ...]}
+     * Each chain is processed independently by the server
+     * @param chains
+     * @return
+     */
+    public static RequestEncoder forBatch(List<RequestEncoder> chains) {
+        return new RequestEncoder(chains);
+    }
+
+    /**
+     * Creates an encoder for a complete JSON request
+     * @param json
+     * @return
+     */
+    public static RequestEncoder forJson(String json) {
+        return new RequestEncoder(json);
+    }
+
+    /**
+     * Adds a method call: {"query":..., "operation":{"method_name":..., "arguments":[...]}}
+     * @param query - may be null to call the method on the result of the previous operation
+     * @param methodName
+     * @param arguments
+     * @return
+     * @throws Exception
+     */
+    public RequestEncoder addMethodCall(String query, String methodName, Object... arguments) throws Exception {
+        beginOperation();
+        if (query != null) {
+            appendKey(Constants.REQUEST_QUERY);
+            appendString(query);
+            append(',');
+        }
+
+        appendKey(Constants.REQUEST_OPERATION);
+        append('{');
+        appendKey(Constants.REQUEST_METHOD_NAME);
+        appendString(methodName);
+        append(',');
+        appendKey(Constants.REQUEST_ARGUMENTS);
+        appendArguments(arguments);
+        append('}');
+        endOperation();
+
+        return this;
+    }
+
+    /**
+     * Adds a method call from a template prefix(see RequestTemplate)
+     * @param prefix - encoded "query":...,"operation":{"method_name":...,"arguments":
+     * @param prefixEncodedLength - form encoded length of the prefix
+     * @param arguments
+     * @return
+     * @throws Exception
+     */
+    RequestEncoder addTemplateCall(byte[] prefix, int prefixEncodedLength, Object[] arguments) throws Exception {
+        beginOperation();
+
+        ensureCapacity(prefix.length);
+        System.arraycopy(prefix, 0, buffer, length, prefix.length);
+        length += prefix.length;
+        encodedLength += prefixEncodedLength;
+
+        appendArguments(arguments);
+        append('}');
+        endOperation();
+
+        return this;
+    }
+
+    /**
+     * Encodes the constant part of a method call for RequestTemplate
+     * @param query
+     * @param methodName
+     * @return
+     */
+    static byte[] encodeCallPrefix(String query, String methodName) {
+        RequestEncoder encoder = new RequestEncoder(64);
+        if (query != null) {
+            encoder.appendKey(Constants.REQUEST_QUERY);
+            encoder.appendString(query);
+            encoder.append(',');
+        }
+        encoder.appendKey(Constants.REQUEST_OPERATION);
+        encoder.append('{');
+        encoder.appendKey(Constants.REQUEST_METHOD_NAME);
+        encoder.appendString(methodName);
+        encoder.append(',');
+        encoder.appendKey(Constants.REQUEST_ARGUMENTS);
+
+        byte[] prefix = new byte[encoder.length];
+        System.arraycopy(encoder.buffer, 0, prefix, 0, encoder.length);
+        return prefix;
+    }
+
+    /**
+     * Adds a field lookup: {"query":..., "field":...}
+     * @param query - may be null to get the field from the result of the previous operation
+     * @param fieldName
+     * @return
+     */
+    public RequestEncoder addField(String query, String fieldName) {
+        beginOperation();
+        if (query != null) {
+            appendKey(Constants.REQUEST_QUERY);
+            appendString(query);
+            append(',');
+        }
+
+        appendKey(Constants.REQUEST_FIELD);
+        appendString(fieldName);
+        endOperation();
+
+        return this;
+    }
+
+    /**
+     * Adds an instantiation: {"instantiate":..., "arguments":[...]}
+     * @param className
+     * @param arguments
+     * @return
+     * @throws Exception
+     */
+    public RequestEncoder addInstantiate(String className, Object... arguments) throws Exception {
+        beginOperation();
+        if (className != null) {
+            appendKey(Constants.REQUEST_INSTANTIATE);
+            appendString(className);
+            append(',');
+        }
+
+        appendKey(Constants.REQUEST_ARGUMENTS);
+        appendArguments(arguments);
+        endOperation();
+
+        return this;
+    }
+
+    /**
+     * Adds a key/value operation(ex: {"store":"label"})
+     * @param type
+     * @param value
+     * @return
+     */
+    public RequestEncoder addKeyValue(String type, String value) {
+        beginOperation();
+        appendKey(type);
+        appendString(value);
+        endOperation();
+
+        return this;
+    }
+
+    /**
+     * Adds the operations of another encoder after the operations in this one
+     * @param other - encoder built with add* calls(not a batch or complete JSON request)
+     * @return
+     */
+    public RequestEncoder addOperations(RequestEncoder other) {
+        if (other.operations == 0)
+            return this;
+
+        if (operations > 0)
+            append(',');
+        appendBytes(other.buffer, other.length);
+        operations += other.operations;
+
+        return this;
+    }
+
+    /**
+     * Returns a copy that is not affected by operations added to this encoder later
+     * @return
+     */
+    public RequestEncoder copy() {
+        return new RequestEncoder(this);
+    }
+
+    /**
+     * @return number of operations added
+     */
+    public int getOperationCount() {
+        return operations;
+    }
+
+    /**
+     * Drops all operations so the buffer can be reused
+     */
+    public void reset() {
+        length = 0;
+        encodedLength = 0;
+        operations = 0;
+    }
+
+    public String getContentType() {
+        return FORM_CONTENT_TYPE;
+    }
+
+    public long getContentLength() {
+        long contentLength = FORM_PREFIX.length + encodedLength;
+        if (wrapped)
+            contentLength += encodedLength(OPERATIONS_PREFIX) + encodedLength(OPERATIONS_SUFFIX);
+
+        return contentLength;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        if (writeBuffer == null)
+            writeBuffer = new byte[1024];
+
+        out.write(FORM_PREFIX);
+
+        int position = 0;
+        if (wrapped)
+            position = formEncode(OPERATIONS_PREFIX, OPERATIONS_PREFIX.length, out, position);
+        position = formEncode(buffer, length, out, position);
+        if (wrapped)
+            position = formEncode(OPERATIONS_SUFFIX, OPERATIONS_SUFFIX.length, out, position);
+
+        if (position > 0)
+            out.write(writeBuffer, 0, position);
+    }
+
+    /**
+     * Returns the JSON text of the request
+     * @return
+     */
+    public String toString() {
+        StringBuilder json = new StringBuilder(length + OPERATIONS_PREFIX.length + OPERATIONS_SUFFIX.length);
+        if (wrapped)
+            appendAscii(json, OPERATIONS_PREFIX, OPERATIONS_PREFIX.length);
+        appendAscii(json, buffer, length);
+        if (wrapped)
+            appendAscii(json, OPERATIONS_SUFFIX, OPERATIONS_SUFFIX.length);
+
+        return json.toString();
+    }
+
+    private int formEncode(byte[] source, int sourceLength, OutputStream out, int position) throws IOException {
+        for (int i = 0; i < sourceLength; i++) {
+            if (position > writeBuffer.length - 3) {
+                out.write(writeBuffer, 0, position);
+                position = 0;
+            }
+
+            int b = source[i] & 0xff;
+            if (b < 0x80 && UNRESERVED[b]) {
+                writeBuffer[position++] = (byte) b;
+            } else if (b == ' ') {
+                writeBuffer[position++] = '+';
+            } else {
+                writeBuffer[position++] = '%';
+                writeBuffer[position++] = HEX[b >> 4];
+                writeBuffer[position++] = HEX[b & 0xf];
+            }
+        }
+
+        return position;
+    }
+
+    private void beginOperation() {
+        if (operations > 0)
+            append(',');
+        append('{');
+    }
+
+    private void endOperation() {
+        append('}');
+        operations++;
+    }
+
+    private void appendKey(String key) {
+        appendString(key);
+        append(':');
+    }
+
+    private void appendArguments(Object[] arguments) throws Exception {
+        append('[');
+        for (int i = 0; i < arguments.length; i++) {
+            if (i > 0)
+                append(',');
+
+            Object argument = arguments[i];
+            if (argument instanceof String) {
+                appendString((String) argument);
+            } else if (argument instanceof Number) {
+                appendNumber((Number) argument);
+            } else if (argument instanceof Boolean) {
+                appendAscii(((Boolean) argument) ? "true" : "false");
+            } else if (argument == null) {
+                appendAscii("null");
+            } else {
+                throw new Exception("Invalid type");
+            }
+        }
+        append(']');
+    }
+
+    private void appendString(String value) {
+        if (value == null) {
+            appendAscii("null");
+            return;
+        }
+
+        append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                    append('\\');
+                    append(c);
+                    break;
+                case '\b':
+                    append('\\');
+                    append('b');
+                    break;
+                case '\t':
+                    append('\\');
+                    append('t');
+                    break;
+                case '\n':
+                    append('\\');
+                    append('n');
+                    break;
+                case '\f':
+                    append('\\');
+                    append('f');
+                    break;
+                case '\r':
+                    append('\\');
+                    append('r');
+                    break;
+                default:
+                    if (c < ' ' || c >= 0x7f)
+                        appendUnicodeEscape(c);
+                    else
+                        append(c);
+                    break;
+            }
+        }
+        append('"');
+    }
+
+    private void appendUnicodeEscape(char c) {
+        append('\\');
+        append('u');
+        append(HEX[(c >> 12) & 0xf]);
+        append(HEX[(c >> 8) & 0xf]);
+        append(HEX[(c >> 4) & 0xf]);
+        append(HEX[c & 0xf]);
+    }
+
+    /**
+     * Numbers are written the same way org.json writes them(trailing zeros after the decimal point are dropped)
+     * @param number
+     * @throws Exception
+     */
+    private void appendNumber(Number number) throws Exception {
+        if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte) {
+            appendLong(number.longValue());
+            return;
+        }
+
+        if ((number instanceof Double && (((Double) number).isNaN() || ((Double) number).isInfinite())) ||
+                (number instanceof Float && (((Float) number).isNaN() || ((Float) number).isInfinite())))
+            throw new Exception("JSON does not allow non-finite numbers");
+
+        String text = number.toString();
+        int end = text.length();
+        if (text.indexOf('.') > 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0) {
+            while (text.charAt(end - 1) == '0')
+                end--;
+            if (text.charAt(end - 1) == '.')
+                end--;
+        }
+
+        for (int i = 0; i < end; i++)
+            append(text.charAt(i));
+    }
+
+    private void appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            appendAscii(Long.toString(value));
+            return;
+        }
+
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+
+        // digits are written in reverse and then flipped in place
+        int start = length;
+        do {
+            append('0' + (int) (value % 10));
+            value /= 10;
+        } while (value > 0);
+
+        for (int left = start, right = length - 1; left < right; left++, right--) {
+            byte tmp = buffer[left];
+            buffer[left] = buffer[right];
+            buffer[right] = tmp;
+        }
+    }
+
+    private void appendBytes(byte[] bytes, int count) {
+        for (int i = 0; i < count; i++)
+            append(bytes[i]);
+    }
+
+    private void appendAscii(String value) {
+        for (int i = 0; i < value.length(); i++)
+            append(value.charAt(i));
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > buffer.length) {
+            byte[] grown = new byte[Math.max(Math.max(buffer.length * 2, 64), length + additional)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+    }
+
+    private void append(int c) {
+        if (length == buffer.length) {
+            byte[] grown = new byte[Math.max(buffer.length * 2, 64)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+
+        buffer[length++] = (byte) c;
+        encodedLength += (c < 0x80 && UNRESERVED[c]) || c == ' ' ? 1 : 3;
+    }
+
+    static int encodedLength(byte[] bytes) {
+        int encoded = 0;
+        for (byte b : bytes)
+            encoded += (b >= 0 && UNRESERVED[b]) || b == ' ' ? 1 : 3;
+        return encoded;
+    }
+
+    private static void appendAscii(StringBuilder builder, byte[] bytes, int count) {
+        for (int i = 0; i < count; i++)
+            builder.append((char) bytes[i]);
+    }
+
+    private static byte[] ascii(String value) {
+        byte[] bytes = new byte[value.length()];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) value.charAt(i);
+        return bytes;
+    }
+}
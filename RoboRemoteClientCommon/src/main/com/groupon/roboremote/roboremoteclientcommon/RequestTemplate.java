@@ -0,0 +1,82 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon;
+
+/**
+ * A method call whose constant part(query, method name and JSON keys) is encoded once
+ * Each call only encodes its arguments: {"query":"solo","operation":{"method_name":"clickOnText","arguments":[...]}}
+ * Templates are immutable and can be shared between threads.  Generated stubs keep one per method as a constant
+ */
+public class RequestTemplate {
+    private final String operationName;
+    private final int arity;
+    private final byte[] prefix;
+    private final int prefixEncodedLength;
+
+    /**
+     * @param query - ex: solo
+     * @param methodName - ex: clickOnText
+     * @param arity - number of arguments the method takes
+     */
+    public RequestTemplate(String query, String methodName, int arity) {
+        this.operationName = query + "." + methodName;
+        this.arity = arity;
+        this.prefix = RequestEncoder.encodeCallPrefix(query, methodName);
+        this.prefixEncodedLength = RequestEncoder.encodedLength(prefix);
+    }
+
+    /**
+     * @return name used for metrics and the result cache(ex: solo.clickOnText)
+     */
+    public String getOperationName() {
+        return operationName;
+    }
+
+    public int getArity() {
+        return arity;
+    }
+
+    /**
+     * Creates a request for one call
+     * @param arguments
+     * @return
+     * @throws Exception
+     */
+    public RequestEncoder encode(Object... arguments) throws Exception {
+        if (arguments.length != arity) {
+            throw new Exception(operationName + " takes " + arity + " arguments but was passed " + arguments.length);
+        }
+
+        return new RequestEncoder(prefix.length + 16 + 16 * arity).addTemplateCall(prefix, prefixEncodedLength, arguments);
+    }
+}
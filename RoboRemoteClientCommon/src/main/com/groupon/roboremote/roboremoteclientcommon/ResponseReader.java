@@ -0,0 +1,370 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * Streaming reader for server responses
+ * The response is tokenized straight from the stream and each element of the "results" array is handed to a ResultHandler
+ * so no intermediate String or JSONObject is built for the whole response.
+ */
+public class ResponseReader {
+    private final Reader reader;
+    private final char[] buffer = new char[4096];
+    private int position = 0;
+    private int limit = 0;
+
+    // reused for every string/literal that is read
+    private final StringBuilder builder = new StringBuilder();
+
+    // first error the handler threw, only reported if the response turns out to be a success
+    private Exception resultError = null;
+
+    public ResponseReader(InputStream in) throws IOException {
+        this(new InputStreamReader(in, "UTF-8"));
+    }
+
+    public ResponseReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Status fields of a response
+     */
+    public static class Status {
+        public String outcome = null;
+        public String reason = null;
+        public boolean hasEpoch = false;
+        public long epoch = 0;
+
+        // index of the failed chain in a batch response
+        public int failedIndex = -1;
+
+        public boolean succeeded() {
+            return Constants.RESULT_SUCCESS.equals(outcome);
+        }
+    }
+
+    /**
+     * Reads a response object.  The elements of the results array are passed to the handler
+     * The results come before the outcome, so a conversion error in the handler is only thrown once the outcome
+     * is known to be a success.  For a failed response the caller reports the reason instead
+     * @param handler - may be null if the results are not wanted
+     * @return the status fields of the response
+     * @throws Exception
+     */
+    public Status readResponse(ResultHandler<?> handler) throws Exception {
+        Status status = new Status();
+
+        expect('{');
+        if (peekNonWhitespace() == '}') {
+            read();
+            return status;
+        }
+
+        while (true) {
+            String key = readString();
+            expect(':');
+
+            if (key.equals(Constants.RESULT_RESULTS)) {
+                readResults(handler);
+            } else if (key.equals(Constants.RESULT_OUTCOME)) {
+                status.outcome = ResultHandler.asString(readValue());
+            } else if (key.equals(Constants.RESULT_REASON)) {
+                status.reason = ResultHandler.asString(readValue());
+            } else if (key.equals(Constants.RESULT_EPOCH)) {
+                status.epoch = (long) ResultHandler.asDouble(readValue());
+                status.hasEpoch = true;
+            } else if (key.equals(Constants.RESULT_FAILED_INDEX)) {
+                status.failedIndex = (int) ResultHandler.asDouble(readValue());
+            } else {
+                readValue();
+            }
+
+            int c = nextNonWhitespace();
+            if (c == '}')
+                break;
+            if (c != ',')
+                throw syntaxError("Expected ',' or '}'");
+        }
+
+        if (resultError != null && status.succeeded())
+            throw resultError;
+
+        return status;
+    }
+
+    private void readResults(ResultHandler<?> handler) throws Exception {
+        expect('[');
+        if (peekNonWhitespace() == ']') {
+            read();
+            return;
+        }
+
+        int index = 0;
+        while (true) {
+            Object value = readValue();
+            if (handler != null && resultError == null) {
+                try {
+                    handler.onResult(index, value);
+                } catch (Exception e) {
+                    resultError = e;
+                }
+            }
+            index++;
+
+            int c = nextNonWhitespace();
+            if (c == ']')
+                break;
+            if (c != ',')
+                throw syntaxError("Expected ',' or ']'");
+        }
+    }
+
+    /**
+     * Reads any JSON value.  Nested objects and arrays become org.json objects
+     * @return
+     * @throws Exception
+     */
+    private Object readValue() throws Exception {
+        int c = peekNonWhitespace();
+        switch (c) {
+            case '"':
+                return readString();
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            default:
+                return readLiteral();
+        }
+    }
+
+    private JSONObject readObject() throws Exception {
+        JSONObject object = new JSONObject();
+
+        expect('{');
+        if (peekNonWhitespace() == '}') {
+            read();
+            return object;
+        }
+
+        while (true) {
+            String key = readString();
+            expect(':');
+            Object value = readValue();
+            object.put(key, value == null ? JSONObject.NULL : value);
+
+            int c = nextNonWhitespace();
+            if (c == '}')
+                break;
+            if (c != ',')
+                throw syntaxError("Expected ',' or '}'");
+        }
+
+        return object;
+    }
+
+    private JSONArray readArray() throws Exception {
+        JSONArray array = new JSONArray();
+
+        expect('[');
+        if (peekNonWhitespace() == ']') {
+            read();
+            return array;
+        }
+
+        while (true) {
+            Object value = readValue();
+            array.put(value == null ? JSONObject.NULL : value);
+
+            int c = nextNonWhitespace();
+            if (c == ']')
+                break;
+            if (c != ',')
+                throw syntaxError("Expected ',' or ']'");
+        }
+
+        return array;
+    }
+
+    private String readString() throws Exception {
+        expect('"');
+        builder.setLength(0);
+
+        while (true) {
+            int c = read();
+            switch (c) {
+                case -1:
+                    throw syntaxError("Unterminated string");
+                case '"':
+                    return builder.toString();
+                case '\\':
+                    int escaped = read();
+                    switch (escaped) {
+                        case 'b':
+                            builder.append('\b');
+                            break;
+                        case 'f':
+                            builder.append('\f');
+                            break;
+                        case 'n':
+                            builder.append('\n');
+                            break;
+                        case 'r':
+                            builder.append('\r');
+                            break;
+                        case 't':
+                            builder.append('\t');
+                            break;
+                        case 'u':
+                            int code = 0;
+                            for (int x = 0; x < 4; x++) {
+                                int digit = Character.digit(read(), 16);
+                                if (digit < 0)
+                                    throw syntaxError("Invalid unicode escape");
+                                code = (code << 4) + digit;
+                            }
+                            builder.append((char) code);
+                            break;
+                        case -1:
+                            throw syntaxError("Unterminated string");
+                        default:
+                            // \" \\ \/
+                            builder.append((char) escaped);
+                            break;
+                    }
+                    break;
+                default:
+                    builder.append((char) c);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reads true, false, null or a number
+     * Numbers are converted the same way org.json does: Integer if it fits, then Long, then Double
+     * @return
+     * @throws Exception
+     */
+    private Object readLiteral() throws Exception {
+        builder.setLength(0);
+
+        while (true) {
+            int c = peek();
+            if (c == -1 || c == ',' || c == '}' || c == ']' || c == ':' || Character.isWhitespace(c))
+                break;
+            builder.append((char) read());
+        }
+
+        if (builder.length() == 0)
+            throw syntaxError("Expected a value");
+
+        String literal = builder.toString();
+        if (literal.equals("true"))
+            return Boolean.TRUE;
+        if (literal.equals("false"))
+            return Boolean.FALSE;
+        if (literal.equals("null"))
+            return null;
+
+        try {
+            if (literal.indexOf('.') >= 0 || literal.indexOf('e') >= 0 || literal.indexOf('E') >= 0)
+                return Double.valueOf(literal);
+
+            long value = Long.parseLong(literal);
+            if (value == (int) value)
+                return (int) value;
+            return value;
+        } catch (NumberFormatException e) {
+            throw syntaxError("Invalid literal " + literal);
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill())
+            return -1;
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill())
+            return -1;
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        limit = reader.read(buffer, 0, buffer.length);
+        position = 0;
+
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private int peekNonWhitespace() throws IOException {
+        int c = peek();
+        while (c != -1 && Character.isWhitespace(c)) {
+            position++;
+            c = peek();
+        }
+        return c;
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c = peekNonWhitespace();
+        if (c != -1)
+            position++;
+        return c;
+    }
+
+    private void expect(char expected) throws Exception {
+        int c = nextNonWhitespace();
+        if (c != expected)
+            throw syntaxError("Expected '" + expected + "'");
+    }
+
+    private Exception syntaxError(String message) {
+        return new Exception("Invalid server response: " + message);
+    }
+}
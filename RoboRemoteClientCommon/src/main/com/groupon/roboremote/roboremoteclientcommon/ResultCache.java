@@ -0,0 +1,214 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Client side cache for the results of pure operations(ex: getUiDevice.getDisplayWidth)
+ * Results are keyed by the full operation chain and are only valid for the epoch they were fetched in.
+ * Each Client has its own cache.  The server bumps its epoch on rotation, configuration change or activity switch and sends it back with every response.
+ * The roboremote and uiautomator servers of a device see each other's state changes, so an epoch change reported by either one
+ * clears the caches of every client of that device.  Ports are grouped by device with linkPorts, ports that were never linked
+ * all belong to the single default device.
+ */
+public class ResultCache {
+    private static final long EPOCH_UNKNOWN = -1;
+
+    private static boolean enabled = !"false".equalsIgnoreCase(Utils.getEnv("ROBO_RESULT_CACHE", "true"));
+    private static final Set<String> pureOperations = Collections.synchronizedSet(new HashSet<String>());
+
+    // every cache that exists, used to clear the other caches of a device
+    private static final Set<ResultCache> caches = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<ResultCache, Boolean>()));
+    private static final Object DEFAULT_DEVICE = new Object();
+    private static final ConcurrentHashMap<Integer, Object> devices = new ConcurrentHashMap<Integer, Object>();
+
+    private final int port;
+    private long epoch = EPOCH_UNKNOWN;
+    // bumped every time the results are cleared so a request can tell if its result is still current
+    private long generation = 0;
+    private HashMap<String, List<Object>> results = new HashMap<String, List<Object>>();
+
+    ResultCache(int port) {
+        this.port = port;
+        caches.add(this);
+    }
+
+    /**
+     * Marks ports as belonging to the same device(ex: the roboremote and uiautomator ports of a DeviceContext)
+     * @param ports
+     */
+    public static void linkPorts(int... ports) {
+        Object device = new Object();
+        for (int port : ports) {
+            devices.put(port, device);
+        }
+    }
+
+    private static Object getDevice(int port) {
+        Object device = devices.get(port);
+        return device != null ? device : DEFAULT_DEVICE;
+    }
+
+    /**
+     * Returns the cache of the shared client for a localhost port
+     * Each Client has its own cache(Client.getResultCache)
+     * @param port
+     * @return
+     */
+    public static ResultCache get(int port) {
+        return Client.forPort(port).getResultCache();
+    }
+
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Marks an operation as pure so its results can be cached
+     * @param operation - query and method name as it appears in a chain(ex: solo.getResourceId)
+     */
+    public static void addPureOperation(String operation) {
+        pureOperations.add(operation);
+    }
+
+    public static void removePureOperation(String operation) {
+        pureOperations.remove(operation);
+    }
+
+    public static boolean isPure(String operation) {
+        return enabled && pureOperations.contains(operation);
+    }
+
+    /**
+     * Returns the cached result values for a request or null if there are none for the current epoch
+     * @param request
+     * @return
+     */
+    public synchronized List<Object> lookup(String request) {
+        return results.get(request);
+    }
+
+    /**
+     * Stores the result values of a request for the current epoch
+     * Nothing is stored if the server did not report an epoch
+     * @param request
+     * @param values
+     */
+    public synchronized void store(String request, List<Object> values) {
+        store(request, values, generation);
+    }
+
+    /**
+     * Stores the result values of a request if the cache was not cleared since the request was sent
+     * @param request
+     * @param values
+     * @param generation - value of getGeneration() from before the request was sent
+     */
+    public synchronized void store(String request, List<Object> values, long generation) {
+        if (epoch == EPOCH_UNKNOWN || generation != this.generation)
+            return;
+
+        results.put(request, Collections.unmodifiableList(values));
+    }
+
+    /**
+     * Called with the epoch from every server response.  If it changed the cached results of this client
+     * and every other client of the same device are dropped
+     * @param newEpoch
+     */
+    public void updateEpoch(long newEpoch) {
+        synchronized (this) {
+            if (newEpoch == epoch)
+                return;
+
+            clear();
+            epoch = newEpoch;
+        }
+
+        // outside of our own lock since other caches may be updating at the same time
+        Object device = getDevice(port);
+        List<ResultCache> others;
+        synchronized (caches) {
+            others = new ArrayList<ResultCache>(caches);
+        }
+
+        for (ResultCache other : others) {
+            if (other != this && getDevice(other.port) == device)
+                other.clearResults();
+        }
+    }
+
+    public synchronized long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns a counter that changes every time the results are cleared
+     * @return
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Drops the cached results but keeps the epoch(used when another server of the device changed state)
+     */
+    synchronized void clearResults() {
+        clear();
+    }
+
+    /**
+     * Drops all cached results
+     */
+    public synchronized void invalidate() {
+        clear();
+        epoch = EPOCH_UNKNOWN;
+    }
+
+    private void clear() {
+        results.clear();
+        generation++;
+    }
+}
@@ -0,0 +1,277 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Receives the elements of a "results" array as they are parsed from the response stream
+ * and converts them straight into the type the caller wants.
+ * Element values are String, Integer, Long, Double, Boolean, null or(for nested values) org.json JSONObject/JSONArray
+ * @param <T> the type produced from the results
+ */
+public abstract class ResultHandler<T> {
+    /**
+     * Called once for every element of the results array
+     * @param index
+     * @param value
+     * @throws Exception
+     */
+    public abstract void onResult(int index, Object value) throws Exception;
+
+    /**
+     * Returns the converted results once the response has been read
+     * @return
+     * @throws Exception
+     */
+    public abstract T getResult() throws Exception;
+
+    /**
+     * Results as a JSONArray(the original client behavior)
+     * @return
+     */
+    public static ResultHandler<JSONArray> jsonArray() {
+        return new ResultHandler<JSONArray>() {
+            JSONArray results = new JSONArray();
+
+            public void onResult(int index, Object value) {
+                results.put(value == null ? JSONObject.NULL : value);
+            }
+
+            public JSONArray getResult() {
+                return results;
+            }
+        };
+    }
+
+    /**
+     * Discards the results(void calls)
+     * @return
+     */
+    public static ResultHandler<Void> none() {
+        return new ResultHandler<Void>() {
+            public void onResult(int index, Object value) {
+            }
+
+            public Void getResult() {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Results as a list of strings(ex: view handles)
+     * @return
+     */
+    public static ResultHandler<ArrayList<String>> stringList() {
+        return new ResultHandler<ArrayList<String>>() {
+            ArrayList<String> results = new ArrayList<String>();
+
+            public void onResult(int index, Object value) {
+                results.add(asString(value));
+            }
+
+            public ArrayList<String> getResult() {
+                return results;
+            }
+        };
+    }
+
+    /**
+     * Results as a string array
+     * @return
+     */
+    public static ResultHandler<String[]> stringArray() {
+        return new ResultHandler<String[]>() {
+            ArrayList<String> results = new ArrayList<String>();
+
+            public void onResult(int index, Object value) {
+                results.add(asString(value));
+            }
+
+            public String[] getResult() {
+                return results.toArray(new String[results.size()]);
+            }
+        };
+    }
+
+    /**
+     * First result as a String
+     * @return
+     */
+    public static ResultHandler<String> stringValue() {
+        return new FirstResultHandler<String>() {
+            String convert(Object value) {
+                return asString(value);
+            }
+        };
+    }
+
+    /**
+     * First result as a boolean
+     * @return
+     */
+    public static ResultHandler<Boolean> booleanValue() {
+        return new FirstResultHandler<Boolean>() {
+            Boolean convert(Object value) throws Exception {
+                if (value instanceof Boolean)
+                    return (Boolean) value;
+
+                if (value instanceof String) {
+                    if (((String) value).equalsIgnoreCase("true"))
+                        return true;
+                    if (((String) value).equalsIgnoreCase("false"))
+                        return false;
+                }
+
+                throw new Exception("Result is not a Boolean: " + value);
+            }
+        };
+    }
+
+    /**
+     * First result as an int
+     * @return
+     */
+    public static ResultHandler<Integer> intValue() {
+        return new FirstResultHandler<Integer>() {
+            Integer convert(Object value) throws Exception {
+                return (int) asDouble(value);
+            }
+        };
+    }
+
+    /**
+     * First result as a long
+     * @return
+     */
+    public static ResultHandler<Long> longValue() {
+        return new FirstResultHandler<Long>() {
+            Long convert(Object value) throws Exception {
+                if (value instanceof Number)
+                    return ((Number) value).longValue();
+
+                return (long) asDouble(value);
+            }
+        };
+    }
+
+    /**
+     * First result as a double
+     * @return
+     */
+    public static ResultHandler<Double> doubleValue() {
+        return new FirstResultHandler<Double>() {
+            Double convert(Object value) throws Exception {
+                return asDouble(value);
+            }
+        };
+    }
+
+    /**
+     * Raw element values.  Used to keep results around(ex: in the result cache) and replay them into another handler
+     * @return
+     */
+    public static ResultHandler<List<Object>> values() {
+        return new ResultHandler<List<Object>>() {
+            ArrayList<Object> results = new ArrayList<Object>();
+
+            public void onResult(int index, Object value) {
+                results.add(value);
+            }
+
+            public List<Object> getResult() {
+                return results;
+            }
+        };
+    }
+
+    /**
+     * Feeds previously collected values into a handler
+     * @param values
+     * @param handler
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public static <T> T replay(List<Object> values, ResultHandler<T> handler) throws Exception {
+        for (int x = 0; x < values.size(); x++) {
+            handler.onResult(x, values.get(x));
+        }
+        return handler.getResult();
+    }
+
+    static String asString(Object value) {
+        return value == null ? "null" : value.toString();
+    }
+
+    static double asDouble(Object value) throws Exception {
+        if (value instanceof Number)
+            return ((Number) value).doubleValue();
+
+        try {
+            return Double.parseDouble(asString(value));
+        } catch (NumberFormatException e) {
+            throw new Exception("Result is not a number: " + value);
+        }
+    }
+
+    /**
+     * Base for handlers that only care about the first result
+     * @param <T>
+     */
+    private abstract static class FirstResultHandler<T> extends ResultHandler<T> {
+        boolean found = false;
+        T result = null;
+
+        abstract T convert(Object value) throws Exception;
+
+        public void onResult(int index, Object value) throws Exception {
+            if (index == 0) {
+                result = convert(value);
+                found = true;
+            }
+        }
+
+        public T getResult() throws Exception {
+            if (!found)
+                throw new Exception("No result returned");
+
+            return result;
+        }
+    }
+}
@@ -43,10 +43,20 @@ public class Utils {
     public static String testName = null;
 
     public static void setTestName(String name) {
+        DeviceContext context = DeviceContext.current();
+        if (context != null) {
+            context.setTestName(name);
+            return;
+        }
+
         testName = name;
     }
 
     public static String getTestName() {
+        DeviceContext context = DeviceContext.current();
+        if (context != null)
+            return context.getTestName();
+
         return testName;
     }
 
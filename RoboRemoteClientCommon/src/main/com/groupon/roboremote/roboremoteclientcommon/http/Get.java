@@ -32,29 +32,16 @@
 
 package com.groupon.roboremote.roboremoteclientcommon.http;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.net.URLConnection;
-
 public class Get {
     public Get() {
 
     }
 
     public static String get(String baseurl, String verb, String params) throws Exception {
-        String response = "";
-
-        URL oracle = new URL(baseurl + "/" + verb + "?" + params);
-        URLConnection yc = oracle.openConnection();
-        BufferedReader in = new BufferedReader(new InputStreamReader(
-                yc.getInputStream()));
-        String inputLine;
-        while ((inputLine = in.readLine()) != null) {
-            response += inputLine;
-        }
-        in.close();
-
-        return response;
+        return TransportSingleton.get().get(baseurl, verb, params);
+    }
+
+    public static <T> T get(String baseurl, String verb, String params, ResponseParser<T> parser) throws Exception {
+        return TransportSingleton.get().get(baseurl, verb, params, parser);
     }
 }
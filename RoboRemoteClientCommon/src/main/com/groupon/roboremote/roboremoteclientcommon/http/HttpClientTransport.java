@@ -0,0 +1,180 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Transport built on Apache HttpClient with a pooled connection manager and connect/read timeouts
+ */
+public class HttpClientTransport implements Transport {
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+    private static final String CHARSET = "UTF-8";
+    private static final int GET_RETRIES = 3;
+
+    private final ThreadSafeClientConnManager connectionManager;
+    private final DefaultHttpClient httpClient;
+
+    // response bodies are read into a per thread buffer
+    private final ThreadLocal<ResponseBuffer> responseBuffer = new ThreadLocal<ResponseBuffer>() {
+        @Override
+        protected ResponseBuffer initialValue() {
+            return new ResponseBuffer();
+        }
+    };
+
+    private final ResponseParser<String> stringParser = new ResponseParser<String>() {
+        public String parse(InputStream in) throws Exception {
+            ResponseBuffer buffer = responseBuffer.get();
+            try {
+                buffer.readFrom(in);
+                return buffer.toString(CHARSET);
+            } finally {
+                buffer.trim();
+            }
+        }
+    };
+
+    /**
+     * @param connectTimeout - connect timeout in ms(0 is infinite)
+     * @param readTimeout - socket read timeout in ms(0 is infinite)
+     * @param maxConnections - maximum number of pooled connections per server
+     */
+    public HttpClientTransport(int connectTimeout, int readTimeout, int maxConnections) {
+        connectionManager = new ThreadSafeClientConnManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+        HttpParams params = new BasicHttpParams();
+        HttpConnectionParams.setConnectionTimeout(params, connectTimeout);
+        HttpConnectionParams.setSoTimeout(params, readTimeout);
+        HttpConnectionParams.setTcpNoDelay(params, true);
+
+        httpClient = new DefaultHttpClient(connectionManager, params);
+        httpClient.setHttpRequestRetryHandler(new GetRetryHandler());
+    }
+
+    /**
+     * Retries failed GETs(heartbeat, hierarchy) but never a POST
+     * map and batch requests are not idempotent so resending one could click or type a second time
+     */
+    private static class GetRetryHandler extends DefaultHttpRequestRetryHandler {
+        GetRetryHandler() {
+            super(GET_RETRIES, false);
+        }
+
+        @Override
+        public boolean retryRequest(IOException exception, int executionCount, HttpContext context) {
+            HttpRequest request = (HttpRequest) context.getAttribute(ExecutionContext.HTTP_REQUEST);
+            if (request instanceof HttpEntityEnclosingRequest)
+                return false;
+
+            return super.retryRequest(exception, executionCount, context);
+        }
+    }
+
+    public String get(String baseurl, String verb, String params) throws Exception {
+        return get(baseurl, verb, params, stringParser);
+    }
+
+    public String post(String baseurl, String verb, String postData) throws Exception {
+        return post(baseurl, verb, postData, stringParser);
+    }
+
+    public <T> T get(String baseurl, String verb, String params, ResponseParser<T> parser) throws Exception {
+        return execute(new HttpGet(baseurl + "/" + verb + "?" + params), parser);
+    }
+
+    public <T> T post(String baseurl, String verb, String postData, ResponseParser<T> parser) throws Exception {
+        HttpPost post = new HttpPost(baseurl + "/" + verb);
+
+        StringEntity entity = new StringEntity(postData, CHARSET);
+        entity.setContentType(FORM_CONTENT_TYPE);
+        post.setEntity(entity);
+
+        return execute(post, parser);
+    }
+
+    public <T> T post(String baseurl, String verb, RequestBody body, ResponseParser<T> parser) throws Exception {
+        HttpPost post = new HttpPost(baseurl + "/" + verb);
+        post.setEntity(new RequestBodyEntity(body));
+
+        return execute(post, parser);
+    }
+
+    private <T> T execute(HttpUriRequest request, ResponseParser<T> parser) throws Exception {
+        HttpResponse response = httpClient.execute(request);
+        HttpEntity entity = response.getEntity();
+
+        try {
+            int status = response.getStatusLine().getStatusCode();
+            if (status != 200) {
+                throw new Exception("Server returned HTTP " + status + " for " + request.getURI());
+            }
+
+            InputStream in = entity == null ? new ByteArrayInputStream(new byte[0]) : entity.getContent();
+            try {
+                return parser.parse(in);
+            } finally {
+                in.close();
+            }
+        } finally {
+            // make sure the connection goes back to the pool
+            EntityUtils.consume(entity);
+        }
+    }
+
+    public void shutdown() {
+        connectionManager.shutdown();
+    }
+}
@@ -32,39 +32,20 @@
 
 package com.groupon.roboremote.roboremoteclientcommon.http;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.net.URL;
-import java.net.URLConnection;
-
 public class Post {
     public Post() {
 
     }
 
     public static String post(String baseurl, String verb, String postData) throws Exception {
-        String returnVal = "";
-
-        String urlStr = String.format("%s/%s", baseurl, verb);
-
-        URL url = new URL(urlStr);
+        return TransportSingleton.get().post(baseurl, verb, postData);
+    }
 
-        URLConnection conn = url.openConnection();
-        conn.setDoOutput(true);
-        OutputStreamWriter writer = new OutputStreamWriter(conn.getOutputStream());
-        writer.write(postData);
-        writer.flush();
+    public static <T> T post(String baseurl, String verb, String postData, ResponseParser<T> parser) throws Exception {
+        return TransportSingleton.get().post(baseurl, verb, postData, parser);
+    }
 
-        BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        
-        String line;
-        while ((line = reader.readLine()) != null) {
-            returnVal += line + "\n";
-        }
-        writer.close();
-        reader.close();
-        
-        return returnVal;
+    public static <T> T post(String baseurl, String verb, RequestBody body, ResponseParser<T> parser) throws Exception {
+        return TransportSingleton.get().post(baseurl, verb, body, parser);
     }
 }
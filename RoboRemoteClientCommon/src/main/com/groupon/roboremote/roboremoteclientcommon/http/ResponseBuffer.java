@@ -0,0 +1,97 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+
+/**
+ * Growable byte buffer that response bodies are read into
+ * Transports keep one per thread so reading a response does not allocate a new buffer every time
+ * Call trim once the contents have been used so an oversized response(ex: a hierarchy dump) is not kept around
+ */
+public class ResponseBuffer {
+    private static final int INITIAL_SIZE = 8192;
+    // largest buffer that is kept between responses
+    private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+    private byte[] buffer = new byte[INITIAL_SIZE];
+    private int length = 0;
+
+    /**
+     * Reads the stream until EOF replacing the current contents of the buffer
+     * @param in
+     * @throws IOException
+     */
+    public void readFrom(InputStream in) throws IOException {
+        length = 0;
+
+        int read;
+        while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+
+            if (length == buffer.length) {
+                byte[] newBuffer = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, newBuffer, 0, length);
+                buffer = newBuffer;
+            }
+        }
+    }
+
+    /**
+     * Drops the contents and goes back to the initial size if the buffer grew past MAX_RETAINED_SIZE
+     */
+    public void trim() {
+        if (buffer.length > MAX_RETAINED_SIZE) {
+            buffer = new byte[INITIAL_SIZE];
+            length = 0;
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public String toString(String charset) throws UnsupportedEncodingException {
+        return new String(buffer, 0, length, charset);
+    }
+
+    public String toString() {
+        try {
+            return toString("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            return new String(buffer, 0, length);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon.http;
+
+/**
+ * A transport carries requests to a remote server and returns the response body
+ * The default implementation is HttpClientTransport.  Others can be swapped in with TransportSingleton.set
+ */
+public interface Transport {
+    /**
+     * Issue a GET request
+     * @param baseurl - ex: http://localhost:20300
+     * @param verb - ex: heartbeat
+     * @param params - url encoded parameters
+     * @return response body
+     * @throws Exception
+     */
+    public String get(String baseurl, String verb, String params) throws Exception;
+
+    /**
+     * Issue a form encoded POST request
+     * @param baseurl - ex: http://localhost:20300
+     * @param verb - ex: map
+     * @param postData - url encoded form data
+     * @return response body
+     * @throws Exception
+     */
+    public String post(String baseurl, String verb, String postData) throws Exception;
+
+    /**
+     * Issue a GET request and parse the response body as it is read from the connection
+     * @param baseurl - ex: http://localhost:20300
+     * @param verb - ex: heartbeat
+     * @param params - url encoded parameters
+     * @param parser
+     * @return the parser result
+     * @throws Exception
+     */
+    public <T> T get(String baseurl, String verb, String params, ResponseParser<T> parser) throws Exception;
+
+    /**
+     * Issue a form encoded POST request and parse the response body as it is read from the connection
+     * @param baseurl - ex: http://localhost:20300
+     * @param verb - ex: map
+     * @param postData - url encoded form data
+     * @param parser
+     * @return the parser result
+     * @throws Exception
+     */
+    public <T> T post(String baseurl, String verb, String postData, ResponseParser<T> parser) throws Exception;
+
+    /**
+     * Issue a POST request whose body writes itself to the connection and parse the response body as it is read
+     * @param baseurl - ex: http://localhost:20300
+     * @param verb - ex: map
+     * @param body
+     * @param parser
+     * @return the parser result
+     * @throws Exception
+     */
+    public <T> T post(String baseurl, String verb, RequestBody body, ResponseParser<T> parser) throws Exception;
+
+    /**
+     * Release any resources(connections, threads) held by this transport
+     */
+    public void shutdown();
+}
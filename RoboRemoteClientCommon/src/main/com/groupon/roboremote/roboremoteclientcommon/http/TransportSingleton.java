@@ -0,0 +1,103 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon.http;
+
+import com.groupon.roboremote.roboremoteclientcommon.Utils;
+import com.groupon.roboremote.roboremoteclientcommon.replay.RecordingTransport;
+
+import java.io.File;
+
+/**
+ * Holds the transport used by Get and Post
+ * The default is an HttpClientTransport configured from the environment:
+ * ROBO_HTTP_CONNECT_TIMEOUT - connect timeout in ms(default 10000)
+ * ROBO_HTTP_READ_TIMEOUT - read timeout in ms(default 300000)
+ * ROBO_HTTP_MAX_CONNECTIONS - pooled connections per server(default 20)
+ * ROBO_RECORD - file to record every request/response pair to(see RecordingTransport)
+ */
+public class TransportSingleton {
+    /* Here is the instance of the Singleton */
+    private static Transport instance_ = null;
+
+    /* Need the following object to synchronize */
+    /* a block */
+    private static Object syncObject_ = new Object();
+
+    /* Prevent direct access to the constructor */
+    private TransportSingleton() {
+        super();
+    }
+
+    public static Transport get() {
+        synchronized (syncObject_) {
+            if (instance_ == null) {
+                instance_ = new HttpClientTransport(
+                        Integer.parseInt(Utils.getEnv("ROBO_HTTP_CONNECT_TIMEOUT", "10000")),
+                        Integer.parseInt(Utils.getEnv("ROBO_HTTP_READ_TIMEOUT", "300000")),
+                        Integer.parseInt(Utils.getEnv("ROBO_HTTP_MAX_CONNECTIONS", "20")));
+
+                String recording = Utils.getEnv("ROBO_RECORD", null);
+                if (recording != null) {
+                    try {
+                        instance_ = new RecordingTransport(instance_, new File(recording));
+                    } catch (Exception e) {
+                        throw new RuntimeException("Could not open recording " + recording, e);
+                    }
+                }
+            }
+            return instance_;
+        }
+    }
+
+    /**
+     * Replace the transport.  The previous transport is shut down
+     * @param transport
+     */
+    public static void set(Transport transport) {
+        synchronized (syncObject_) {
+            if (instance_ != null && instance_ != transport) {
+                instance_.shutdown();
+            }
+            instance_ = transport;
+        }
+    }
+
+    public static void release() {
+        synchronized (syncObject_) {
+            if (instance_ != null) {
+                instance_.shutdown();
+            }
+            instance_ = null;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon.http;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+
+/**
+ * Transport built on java.net.URLConnection
+ * This has no connection pooling but does not need any extra libraries
+ */
+public class URLConnectionTransport implements Transport {
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+    private static final String CHARSET = "UTF-8";
+
+    private final int connectTimeout;
+    private final int readTimeout;
+
+    private final ThreadLocal<ResponseBuffer> responseBuffer = new ThreadLocal<ResponseBuffer>() {
+        @Override
+        protected ResponseBuffer initialValue() {
+            return new ResponseBuffer();
+        }
+    };
+
+    private final ResponseParser<String> stringParser = new ResponseParser<String>() {
+        public String parse(InputStream in) throws Exception {
+            ResponseBuffer buffer = responseBuffer.get();
+            try {
+                buffer.readFrom(in);
+                return buffer.toString(CHARSET);
+            } finally {
+                buffer.trim();
+            }
+        }
+    };
+
+    /**
+     * @param connectTimeout - connect timeout in ms(0 is infinite)
+     * @param readTimeout - read timeout in ms(0 is infinite)
+     */
+    public URLConnectionTransport(int connectTimeout, int readTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    public String get(String baseurl, String verb, String params) throws Exception {
+        return get(baseurl, verb, params, stringParser);
+    }
+
+    public String post(String baseurl, String verb, String postData) throws Exception {
+        return post(baseurl, verb, postData, stringParser);
+    }
+
+    public <T> T get(String baseurl, String verb, String params, ResponseParser<T> parser) throws Exception {
+        URLConnection conn = openConnection(baseurl + "/" + verb + "?" + params);
+
+        return readResponse(conn, parser);
+    }
+
+    public <T> T post(String baseurl, String verb, String postData, ResponseParser<T> parser) throws Exception {
+        URLConnection conn = openConnection(baseurl + "/" + verb);
+        conn.setDoOutput(true);
+        conn.setRequestProperty("Content-Type", FORM_CONTENT_TYPE);
+
+        OutputStream out = conn.getOutputStream();
+        try {
+            out.write(postData.getBytes(CHARSET));
+            out.flush();
+        } finally {
+            out.close();
+        }
+
+        return readResponse(conn, parser);
+    }
+
+    public <T> T post(String baseurl, String verb, RequestBody body, ResponseParser<T> parser) throws Exception {
+        HttpURLConnection conn = (HttpURLConnection) openConnection(baseurl + "/" + verb);
+        conn.setDoOutput(true);
+        conn.setRequestProperty("Content-Type", body.getContentType());
+        conn.setFixedLengthStreamingMode((int) body.getContentLength());
+
+        OutputStream out = conn.getOutputStream();
+        try {
+            body.writeTo(out);
+            out.flush();
+        } finally {
+            out.close();
+        }
+
+        return readResponse(conn, parser);
+    }
+
+    private URLConnection openConnection(String url) throws Exception {
+        URLConnection conn = new URL(url).openConnection();
+        conn.setConnectTimeout(connectTimeout);
+        conn.setReadTimeout(readTimeout);
+        return conn;
+    }
+
+    private <T> T readResponse(URLConnection conn, ResponseParser<T> parser) throws Exception {
+        InputStream in = conn.getInputStream();
+        try {
+            return parser.parse(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    public void shutdown() {
+    }
+}
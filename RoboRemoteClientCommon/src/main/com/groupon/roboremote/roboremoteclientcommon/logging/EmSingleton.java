@@ -32,7 +32,14 @@
 
 package com.groupon.roboremote.roboremoteclientcommon.logging;
 
+import com.groupon.roboremote.roboremoteclientcommon.DeviceContext;
+
+/**
+ * Holds the EventManager of the current test, one per device when the thread is bound to a DeviceContext
+ */
 public class EmSingleton {
+    private static final String CONTEXT_ATTRIBUTE = EmSingleton.class.getName();
+
     /* Here is the instance of the Singleton */
     private static EventManager instance_ = null;
 
@@ -46,12 +53,25 @@ public class EmSingleton {
     }
 
     public static void intialize() throws Exception {
+        DeviceContext context = DeviceContext.current();
+        if (context != null) {
+            context.setAttribute(CONTEXT_ATTRIBUTE, new EventManager());
+            return;
+        }
+
         synchronized (syncObject_) {
             instance_ = new EventManager();
         }
     }
 
     public static EventManager get() throws Exception {
+        DeviceContext context = DeviceContext.current();
+        if (context != null) {
+            if (context.getAttribute(CONTEXT_ATTRIBUTE) == null)
+                intialize();
+            return (EventManager) context.getAttribute(CONTEXT_ATTRIBUTE);
+        }
+
         if (instance_ == null) {
             intialize();
         }
@@ -59,6 +79,12 @@ public class EmSingleton {
     }
 
     public static void release() {
+        DeviceContext context = DeviceContext.current();
+        if (context != null) {
+            context.setAttribute(CONTEXT_ATTRIBUTE, null);
+            return;
+        }
+
         synchronized (syncObject_) {
             instance_ = null;
         }
@@ -34,6 +34,7 @@ package com.groupon.roboremote.roboremoteclientcommon.logging;
 
 import com.android.ddmlib.MultiLineReceiver;
 import com.groupon.roboremote.roboremoteclientcommon.DebugBridge;
+import com.groupon.roboremote.roboremoteclientcommon.DeviceSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,8 +59,19 @@ public class EventManager {
     private LogThread loggerThread = null;
 
     public EventManager() throws Exception {
+        this(true);
+    }
+
+    /**
+     * @param startLogcat - false to skip starting logcat.  Lines are then only fed in through a MultiReceiver(ex: captured logcat output)
+     * @throws Exception
+     */
+    protected EventManager(boolean startLogcat) throws Exception {
         args = new ArrayList<String>(Arrays.asList("-v", "time"));
 
+        if (! startLogcat)
+            return;
+
         try {
             // start logcat
             startADB();
@@ -175,7 +187,7 @@ public class EventManager {
     }
 
     public void startLogListener() throws Exception {
-        loggerThread = new LogThread();
+        loggerThread = new LogThread(DebugBridge.get().getSession());
         loggerThread.start();
     }
 
@@ -224,15 +236,18 @@ public class EventManager {
      */
     private class LogThread extends Thread {
         MultiReceiver _receiver = null;
+        // device of the thread that started listening, threads do not inherit it
+        private final DeviceSession session;
 
-        public LogThread() {
+        public LogThread(DeviceSession session) {
+            this.session = session;
         }
 
         public void run() {
             try {
                 _receiver = new MultiReceiver();
-                DebugBridge.get().runShellCommand("logcat -c");
-                DebugBridge.get().runShellCommand("logcat -v time", _receiver, 0);
+                session.runShellCommand("logcat -c");
+                session.runShellCommand("logcat -v time", _receiver, 0);
             } catch (Exception e) {
                 logger.error("LogThread interrupted: {}", e);
             }
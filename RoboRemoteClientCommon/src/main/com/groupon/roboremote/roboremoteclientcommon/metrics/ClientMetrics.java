@@ -0,0 +1,239 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon.metrics;
+
+import com.groupon.roboremote.roboremoteclientcommon.Utils;
+import com.groupon.roboremote.roboremoteclientcommon.logging.TestLogger;
+import org.json.JSONObject;
+
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Client side request metrics keyed by operation(ex: solo.clickOnText)
+ * get() holds every request of the process, forPort(port) only the requests sent to one server port(device)
+ * ROBO_METRICS - set to false to disable recording
+ * ROBO_METRICS_JMX - set to true to register the metrics as an MBean(com.groupon.roboremote:type=ClientMetrics)
+ */
+public class ClientMetrics implements ClientMetricsMBean {
+    public static final String REPORT_FILE_NAME = "client_metrics.json";
+
+    /* Here is the instance of the Singleton */
+    private static ClientMetrics instance_ = null;
+
+    /* Need the following object to synchronize */
+    /* a block */
+    private static Object syncObject_ = new Object();
+
+    private static final ConcurrentHashMap<Integer, ClientMetrics> byPort = new ConcurrentHashMap<Integer, ClientMetrics>();
+
+    private volatile boolean enabled = !"false".equalsIgnoreCase(Utils.getEnv("ROBO_METRICS", "true"));
+    private final ConcurrentHashMap<String, OperationStats> operations = new ConcurrentHashMap<String, OperationStats>();
+
+    /* Prevent direct access to the constructor */
+    private ClientMetrics() {
+        super();
+    }
+
+    public static ClientMetrics get() {
+        synchronized (syncObject_) {
+            if (instance_ == null) {
+                instance_ = new ClientMetrics();
+
+                if ("true".equalsIgnoreCase(Utils.getEnv("ROBO_METRICS_JMX", "false"))) {
+                    instance_.registerMBean();
+                }
+            }
+            return instance_;
+        }
+    }
+
+    /**
+     * Gets the metrics of the requests sent to one port
+     * @param port
+     * @return
+     */
+    public static ClientMetrics forPort(int port) {
+        ClientMetrics metrics = byPort.get(port);
+        if (metrics == null) {
+            ClientMetrics created = new ClientMetrics();
+            metrics = byPort.putIfAbsent(port, created);
+            if (metrics == null)
+                metrics = created;
+        }
+        return metrics;
+    }
+
+    /**
+     * Combines the metrics of several ports into a new report(ex: the roboremote and uiautomator ports of a device)
+     * @param ports
+     * @return
+     */
+    public static ClientMetrics combine(int... ports) {
+        ClientMetrics combined = new ClientMetrics();
+        for (int port : ports) {
+            for (Map.Entry<String, OperationStats> entry : forPort(port).operations.entrySet())
+                combined.getStats(entry.getKey()).add(entry.getValue());
+        }
+        return combined;
+    }
+
+    public void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records one request
+     * @param operation
+     * @param latencyNanos
+     * @param requestSize - bytes sent
+     * @param responseSize - bytes received
+     * @param failed
+     */
+    public void record(String operation, long latencyNanos, long requestSize, long responseSize, boolean failed) {
+        if (!enabled)
+            return;
+
+        getStats(operation).record(latencyNanos / 1000, requestSize, responseSize, failed);
+    }
+
+    /**
+     * Records a request that was answered from the result cache
+     * @param operation
+     */
+    public void recordCacheHit(String operation) {
+        if (!enabled)
+            return;
+
+        getStats(operation).recordCacheHit();
+    }
+
+    /**
+     * Returns the stats for an operation, creating them if needed
+     * @param operation
+     * @return
+     */
+    public OperationStats getStats(String operation) {
+        OperationStats stats = operations.get(operation);
+        if (stats == null) {
+            OperationStats created = new OperationStats();
+            stats = operations.putIfAbsent(operation, created);
+            if (stats == null)
+                stats = created;
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the stats of all operations combined
+     * @return
+     */
+    public OperationStats getTotal() {
+        OperationStats total = new OperationStats();
+        for (OperationStats stats : operations.values())
+            total.add(stats);
+        return total;
+    }
+
+    public String[] getOperations() {
+        List<String> names = new ArrayList<String>(operations.keySet());
+        Collections.sort(names);
+        return names.toArray(new String[names.size()]);
+    }
+
+    public long getTotalCalls() {
+        return getTotal().getLatency().getCount();
+    }
+
+    public long getTotalErrors() {
+        return getTotal().getErrors();
+    }
+
+    public String getReport() {
+        try {
+            return toJson().toString(2);
+        } catch (Exception e) {
+            return "{}";
+        }
+    }
+
+    public void reset() {
+        operations.clear();
+    }
+
+    public JSONObject toJson() throws Exception {
+        JSONObject byOperation = new JSONObject();
+        for (Map.Entry<String, OperationStats> entry : operations.entrySet())
+            byOperation.put(entry.getKey(), entry.getValue().toJson());
+
+        JSONObject report = new JSONObject();
+        report.put("total", getTotal().toJson());
+        report.put("operations", byOperation);
+        return report;
+    }
+
+    /**
+     * Writes the report as JSON
+     * @param file
+     * @throws Exception
+     */
+    public void writeReport(File file) throws Exception {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(toJson().toString(2));
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("com.groupon.roboremote:type=ClientMetrics"));
+        } catch (Exception e) {
+            TestLogger.get().warn("Could not register client metrics MBean: {}", e.getMessage());
+        }
+    }
+}
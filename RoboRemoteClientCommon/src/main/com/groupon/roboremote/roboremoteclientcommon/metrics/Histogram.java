@@ -0,0 +1,179 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon.metrics;
+
+import org.json.JSONObject;
+
+/**
+ * Log-linear histogram of non-negative long values(HDR style)
+ * Values below 32 are counted exactly.  Above that each power of two is split into 16 buckets
+ * so recorded values are accurate to within ~6% and recording is a couple of shifts and an increment.
+ */
+public class Histogram {
+    private static final int LINEAR_BUCKETS = 32;
+    private static final int SUB_BUCKETS = 16;
+    private static final int MAX_MAGNITUDE = 40;
+
+    // values above this are clamped(~12 days in microseconds)
+    public static final long MAX_VALUE = (1L << (MAX_MAGNITUDE + 4)) - 1;
+
+    private final long[] counts = new long[LINEAR_BUCKETS + MAX_MAGNITUDE * SUB_BUCKETS];
+    private long count = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    public synchronized void record(long value) {
+        if (value < 0)
+            value = 0;
+        if (value > MAX_VALUE)
+            value = MAX_VALUE;
+
+        counts[indexOf(value)]++;
+        count++;
+        sum += value;
+        if (value < min)
+            min = value;
+        if (value > max)
+            max = value;
+    }
+
+    /**
+     * Adds the values recorded in another histogram to this one
+     * @param other
+     */
+    public void add(Histogram other) {
+        long[] otherCounts;
+        long otherCount, otherSum, otherMin, otherMax;
+        synchronized (other) {
+            otherCounts = other.counts.clone();
+            otherCount = other.count;
+            otherSum = other.sum;
+            otherMin = other.min;
+            otherMax = other.max;
+        }
+
+        synchronized (this) {
+            for (int i = 0; i < counts.length; i++)
+                counts[i] += otherCounts[i];
+            count += otherCount;
+            sum += otherSum;
+            min = Math.min(min, otherMin);
+            max = Math.max(max, otherMax);
+        }
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns the value below which the given percentage of recorded values fall
+     * The upper bound of the matching bucket is returned(capped at the maximum recorded value)
+     * @param percentile - 0 to 100
+     * @return
+     */
+    public synchronized long getValueAtPercentile(double percentile) {
+        if (count == 0)
+            return 0;
+
+        long target = (long) Math.ceil(count * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        if (target < 1)
+            target = 1;
+
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target)
+                return Math.min(upperBoundOf(i), max);
+        }
+
+        return max;
+    }
+
+    public synchronized void reset() {
+        java.util.Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Summary as JSON: count, min, mean, p50, p90, p99, max
+     * @return
+     * @throws Exception
+     */
+    public synchronized JSONObject toJson() throws Exception {
+        JSONObject json = new JSONObject();
+        json.put("count", count);
+        json.put("min", getMin());
+        json.put("mean", Math.round(getMean()));
+        json.put("p50", getValueAtPercentile(50));
+        json.put("p90", getValueAtPercentile(90));
+        json.put("p99", getValueAtPercentile(99));
+        json.put("max", max);
+        return json;
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_BUCKETS)
+            return (int) value;
+
+        // value is in [2^(magnitude + 4), 2^(magnitude + 5))
+        int magnitude = 63 - Long.numberOfLeadingZeros(value) - 4;
+        int subBucket = (int) (value >>> magnitude) - SUB_BUCKETS;
+        return LINEAR_BUCKETS + (magnitude - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < LINEAR_BUCKETS)
+            return index;
+
+        int magnitude = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << magnitude) - 1;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon.metrics;
+
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency, payload size and error counts for one operation(ex: solo.clickOnText)
+ */
+public class OperationStats {
+    private final Histogram latency = new Histogram();
+    private final Histogram requestBytes = new Histogram();
+    private final Histogram responseBytes = new Histogram();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    /**
+     * @param latencyMicros
+     * @param requestSize - bytes sent
+     * @param responseSize - bytes received
+     * @param failed
+     */
+    public void record(long latencyMicros, long requestSize, long responseSize, boolean failed) {
+        latency.record(latencyMicros);
+        requestBytes.record(requestSize);
+        responseBytes.record(responseSize);
+        if (failed)
+            errors.incrementAndGet();
+    }
+
+    public void recordCacheHit() {
+        cacheHits.incrementAndGet();
+    }
+
+    /**
+     * @return latency in microseconds
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    public Histogram getRequestBytes() {
+        return requestBytes;
+    }
+
+    public Histogram getResponseBytes() {
+        return responseBytes;
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public void add(OperationStats other) {
+        latency.add(other.latency);
+        requestBytes.add(other.requestBytes);
+        responseBytes.add(other.responseBytes);
+        errors.addAndGet(other.errors.get());
+        cacheHits.addAndGet(other.cacheHits.get());
+    }
+
+    public JSONObject toJson() throws Exception {
+        JSONObject json = new JSONObject();
+        json.put("count", latency.getCount());
+        json.put("errors", errors.get());
+        json.put("cache_hits", cacheHits.get());
+        json.put("latency_us", latency.toJson());
+        json.put("request_bytes", requestBytes.toJson());
+        json.put("response_bytes", responseBytes.toJson());
+        return json;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A recording of request/response pairs exchanged with a test server
+ *
+ * The file is a gzipped stream of:
+ *   int magic, int version
+ *   per exchange: byte 1, UTF verb, long start offset(ns), long duration(ns), int length + request bytes, int length + response bytes
+ *   byte 0 at the end
+ * A recording that was not closed cleanly(ex: the JVM was killed) is read up to the last complete exchange
+ */
+public class Recording {
+    private static final int MAGIC = 0x52524543;
+    private static final int VERSION = 1;
+    private static final String CHARSET = "UTF-8";
+
+    /**
+     * One request and the response the server sent back
+     */
+    public static class Exchange {
+        public final String verb;
+        // form data for POST requests, the query string for GET requests
+        public final String request;
+        public final byte[] response;
+        // time since the recording started
+        public final long startNanos;
+        public final long durationNanos;
+
+        public Exchange(String verb, String request, byte[] response, long startNanos, long durationNanos) {
+            this.verb = verb;
+            this.request = request;
+            this.response = response;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+        }
+
+        /**
+         * @return the request with form encoding removed so recordings match regardless of how the client escaped it
+         */
+        public String getDecodedRequest() {
+            return decode(request);
+        }
+    }
+
+    /**
+     * Removes form encoding from request data
+     * @param request
+     * @return
+     */
+    static String decode(String request) {
+        if (request == null) {
+            return "";
+        }
+
+        try {
+            return URLDecoder.decode(request, CHARSET);
+        } catch (Exception e) {
+            // not valid form data, match it as is
+            return request;
+        }
+    }
+
+    /**
+     * Appends exchanges to a recording file
+     */
+    public static class Writer {
+        private final DataOutputStream out;
+        private final long startNanos = System.nanoTime();
+        private boolean closed = false;
+
+        public Writer(File file) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        /**
+         * @return time since the recording started
+         */
+        public long elapsedNanos() {
+            return System.nanoTime() - startNanos;
+        }
+
+        public synchronized void write(String verb, String request, byte[] response, long startOffsetNanos, long durationNanos) throws IOException {
+            if (closed) {
+                return;
+            }
+
+            byte[] requestBytes = request == null ? new byte[0] : request.getBytes(CHARSET);
+
+            out.writeByte(1);
+            out.writeUTF(verb);
+            out.writeLong(startOffsetNanos);
+            out.writeLong(durationNanos);
+            out.writeInt(requestBytes.length);
+            out.write(requestBytes);
+            out.writeInt(response.length);
+            out.write(response);
+        }
+
+        public synchronized void close() throws IOException {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            out.writeByte(0);
+            out.close();
+        }
+    }
+
+    /**
+     * Reads all exchanges from a recording file
+     * @param file
+     * @return
+     * @throws Exception
+     */
+    public static List<Exchange> read(File file) throws Exception {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+        List<Exchange> exchanges = new ArrayList<Exchange>();
+
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new Exception(file + " is not a recording");
+            }
+
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new Exception("Unsupported recording version: " + version);
+            }
+
+            try {
+                while (in.readByte() == 1) {
+                    String verb = in.readUTF();
+                    long start = in.readLong();
+                    long duration = in.readLong();
+                    byte[] request = new byte[in.readInt()];
+                    in.readFully(request);
+                    byte[] response = new byte[in.readInt()];
+                    in.readFully(response);
+
+                    exchanges.add(new Exchange(verb, new String(request, CHARSET), response, start, duration));
+                }
+            } catch (EOFException e) {
+                // truncated recording - keep what was complete
+            }
+        } finally {
+            in.close();
+        }
+
+        return exchanges;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon.replay;
+
+import com.groupon.roboremote.roboremoteclientcommon.http.RequestBody;
+import com.groupon.roboremote.roboremoteclientcommon.http.ResponseBuffer;
+import com.groupon.roboremote.roboremoteclientcommon.http.ResponseParser;
+import com.groupon.roboremote.roboremoteclientcommon.http.Transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+
+/**
+ * Transport that passes requests to another transport and writes every successful request/response pair to a Recording
+ * Responses are read fully before they are parsed so they can be recorded
+ */
+public class RecordingTransport implements Transport {
+    private final Transport delegate;
+    private final Recording.Writer writer;
+
+    private final ResponseParser<String> stringParser = new ResponseParser<String>() {
+        public String parse(InputStream in) throws Exception {
+            ResponseBuffer buffer = new ResponseBuffer();
+            buffer.readFrom(in);
+            return buffer.toString("UTF-8");
+        }
+    };
+
+    /**
+     * @param delegate - transport that talks to the real server
+     * @param file - recording to write
+     * @throws Exception
+     */
+    public RecordingTransport(Transport delegate, File file) throws Exception {
+        this.delegate = delegate;
+        this.writer = new Recording.Writer(file);
+
+        // make sure the recording is complete if shutdown is never called
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            public void run() {
+                try {
+                    writer.close();
+                } catch (Exception e) {
+
+                }
+            }
+        });
+    }
+
+    public String get(String baseurl, String verb, String params) throws Exception {
+        return get(baseurl, verb, params, stringParser);
+    }
+
+    public String post(String baseurl, String verb, String postData) throws Exception {
+        return post(baseurl, verb, postData, stringParser);
+    }
+
+    public <T> T get(String baseurl, String verb, String params, ResponseParser<T> parser) throws Exception {
+        long start = writer.elapsedNanos();
+        byte[] response = delegate.get(baseurl, verb, params, new CapturingParser());
+        writer.write(verb, params, response, start, writer.elapsedNanos() - start);
+
+        return parser.parse(new ByteArrayInputStream(response));
+    }
+
+    public <T> T post(String baseurl, String verb, String postData, ResponseParser<T> parser) throws Exception {
+        long start = writer.elapsedNanos();
+        byte[] response = delegate.post(baseurl, verb, postData, new CapturingParser());
+        writer.write(verb, postData, response, start, writer.elapsedNanos() - start);
+
+        return parser.parse(new ByteArrayInputStream(response));
+    }
+
+    public <T> T post(String baseurl, String verb, RequestBody body, ResponseParser<T> parser) throws Exception {
+        ByteArrayOutputStream postData = new ByteArrayOutputStream((int)body.getContentLength());
+        body.writeTo(postData);
+
+        long start = writer.elapsedNanos();
+        byte[] response = delegate.post(baseurl, verb, body, new CapturingParser());
+        writer.write(verb, postData.toString("UTF-8"), response, start, writer.elapsedNanos() - start);
+
+        return parser.parse(new ByteArrayInputStream(response));
+    }
+
+    /**
+     * Closes the recording and shuts down the underlying transport
+     */
+    public void shutdown() {
+        try {
+            writer.close();
+        } catch (Exception e) {
+
+        }
+        delegate.shutdown();
+    }
+
+    private static class CapturingParser implements ResponseParser<byte[]> {
+        public byte[] parse(InputStream in) throws Exception {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
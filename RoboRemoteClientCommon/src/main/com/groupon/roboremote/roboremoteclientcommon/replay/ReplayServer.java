@@ -0,0 +1,262 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclientcommon.replay;
+
+import com.groupon.roboremote.roboremoteclientcommon.Utils;
+import com.groupon.roboremote.roboremoteclientcommon.logging.TestLogger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves the responses from a Recording in place of a test server so a suite can run without a device
+ *
+ * Requests are matched on verb and decoded request data.  When the same request was recorded more than once
+ * the responses are served in recorded order and the last one is repeated after that.
+ * Requests that were never recorded get a failure response.
+ *
+ * Environment:
+ * ROBO_REPLAY - recording to serve.  TestBase skips device setup and starts a replay server when this is set
+ * ROBO_REPLAY_TIMING - true to delay each response by the recorded server latency(default false)
+ */
+public class ReplayServer {
+    private static final Map<Integer, ReplayServer> servers = new HashMap<Integer, ReplayServer>();
+
+    private final int port;
+    private final Map<String, Replay> replays = new HashMap<String, Replay>();
+    private final boolean replayTiming;
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong missed = new AtomicLong();
+    private HttpServer server = null;
+    private ExecutorService executor = null;
+
+    /**
+     * Responses recorded for one request
+     */
+    private static class Replay {
+        private final List<Recording.Exchange> exchanges = new ArrayList<Recording.Exchange>();
+        private int next = 0;
+
+        synchronized Recording.Exchange next() {
+            Recording.Exchange exchange = exchanges.get(next);
+            if (next < exchanges.size() - 1) {
+                next++;
+            }
+            return exchange;
+        }
+    }
+
+    /**
+     * @param port - port to listen on
+     * @param exchanges - recorded exchanges
+     * @param replayTiming - true to delay responses by the recorded server latency
+     */
+    public ReplayServer(int port, List<Recording.Exchange> exchanges, boolean replayTiming) {
+        this.port = port;
+        this.replayTiming = replayTiming;
+
+        for (Recording.Exchange exchange: exchanges) {
+            String key = key(exchange.verb, exchange.getDecodedRequest());
+            Replay replay = replays.get(key);
+            if (replay == null) {
+                replay = new Replay();
+                replays.put(key, replay);
+            }
+            replay.exchanges.add(exchange);
+        }
+    }
+
+    /**
+     * @return true if ROBO_REPLAY is set
+     */
+    public static boolean isReplaying() {
+        return Utils.getEnv("ROBO_REPLAY", null) != null;
+    }
+
+    /**
+     * Starts a replay server for the ROBO_REPLAY recording on the port if one is not already running
+     * @param port
+     * @return
+     * @throws Exception
+     */
+    public static ReplayServer startFromEnvironment(int port) throws Exception {
+        String recording = Utils.getEnv("ROBO_REPLAY", null);
+        if (recording == null) {
+            throw new Exception("ROBO_REPLAY is not set");
+        }
+
+        synchronized (servers) {
+            ReplayServer server = servers.get(port);
+            if (server == null) {
+                server = new ReplayServer(port, Recording.read(new File(recording)),
+                        Boolean.parseBoolean(Utils.getEnv("ROBO_REPLAY_TIMING", "false")));
+                server.start();
+                servers.put(port, server);
+            }
+            return server;
+        }
+    }
+
+    /**
+     * Stops all replay servers started from the environment
+     */
+    public static void stopAll() {
+        synchronized (servers) {
+            for (ReplayServer server: servers.values()) {
+                server.stop();
+            }
+            servers.clear();
+        }
+    }
+
+    public synchronized void start() throws Exception {
+        if (server != null) {
+            return;
+        }
+
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange httpExchange) {
+                try {
+                    respond(httpExchange);
+                } catch (Exception e) {
+                    TestLogger.get().error("Replay failed: " + e.getMessage());
+                } finally {
+                    httpExchange.close();
+                }
+            }
+        });
+        server.start();
+
+        TestLogger.get().info("Replaying " + replays.size() + " distinct requests on port " + port);
+    }
+
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        executor = null;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return number of requests answered from the recording
+     */
+    public long getServedCount() {
+        return served.get();
+    }
+
+    /**
+     * @return number of requests that were not in the recording
+     */
+    public long getMissedCount() {
+        return missed.get();
+    }
+
+    private void respond(HttpExchange httpExchange) throws Exception {
+        String verb = httpExchange.getRequestURI().getPath();
+        if (verb.startsWith("/")) {
+            verb = verb.substring(1);
+        }
+
+        String request;
+        if ("POST".equals(httpExchange.getRequestMethod())) {
+            request = readBody(httpExchange.getRequestBody());
+        } else {
+            request = httpExchange.getRequestURI().getRawQuery();
+        }
+
+        Replay replay = replays.get(key(verb, Recording.decode(request)));
+
+        byte[] response;
+        if (replay != null) {
+            Recording.Exchange exchange = replay.next();
+            if (replayTiming) {
+                Thread.sleep(exchange.durationNanos / 1000000L, (int)(exchange.durationNanos % 1000000L));
+            }
+            response = exchange.response;
+            served.incrementAndGet();
+        } else {
+            missed.incrementAndGet();
+            TestLogger.get().warn("No recorded response for " + verb + ": " + Recording.decode(request));
+
+            JSONObject failure = new JSONObject();
+            failure.put("outcome", "failure");
+            failure.put("reason", "No recorded response for this request");
+            response = failure.toString().getBytes("UTF-8");
+        }
+
+        httpExchange.getResponseHeaders().set("Content-Type", "text/html");
+        httpExchange.sendResponseHeaders(200, response.length);
+        OutputStream out = httpExchange.getResponseBody();
+        out.write(response);
+        out.close();
+    }
+
+    private static String key(String verb, String decodedRequest) {
+        return verb + "\n" + decodedRequest;
+    }
+
+    private static String readBody(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            out.write(chunk, 0, read);
+        }
+        return out.toString("UTF-8");
+    }
+}
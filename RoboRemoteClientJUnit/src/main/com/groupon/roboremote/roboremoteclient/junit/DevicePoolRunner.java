@@ -0,0 +1,502 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclient.junit;
+
+import com.groupon.roboremote.roboremoteclientcommon.DebugBridge;
+import com.groupon.roboremote.roboremoteclientcommon.DeviceContext;
+import com.groupon.roboremote.roboremoteclientcommon.DeviceSession;
+import com.groupon.roboremote.roboremoteclientcommon.Utils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.runner.Description;
+import org.junit.runner.Request;
+import org.junit.runner.Runner;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runners.Suite;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+import org.junit.runners.model.Statement;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Suite runner that spreads the suite classes over every attached device
+ * Each device gets a worker thread bound to its own DeviceContext(ports, logs, app state) and takes the longest
+ * remaining test from a shared queue whenever it is free, using the durations of earlier runs to order the queue
+ *
+ * Ex:
+ * RunWith(DevicePoolRunner.class)
+ * SuiteClasses({LoginTest.class, SearchTest.class})
+ * public class AllTests {}
+ *
+ * Environment variables:
+ * ROBO_POOL_DEVICES - comma separated serial numbers to use instead of every online device
+ * ROBO_POOL_BASE_PORT - first local port, device n uses base + 2n for roboremote and base + 2n + 1 for uiautomator
+ * ROBO_POOL_SPLIT - "classes"(default) or "methods" to schedule single test methods
+ * ROBO_POOL_HISTORY - file that stores test durations between runs
+ */
+public class DevicePoolRunner extends Suite {
+    public static final int DEFAULT_BASE_PORT = 20400;
+    public static final String DEFAULT_HISTORY = "logs" + File.separator + "test_durations.json";
+    public static final String SUMMARY_FILE = "logs" + File.separator + "device_pool.json";
+
+    private final RunnerBuilder poolBuilder;
+
+    public DevicePoolRunner(Class<?> klass, RunnerBuilder builder) throws InitializationError {
+        super(klass, new PoolRunnerBuilder(builder));
+        poolBuilder = new PoolRunnerBuilder(builder);
+    }
+
+    @Override
+    protected Statement childrenInvoker(final RunNotifier notifier) {
+        final Statement serial = super.childrenInvoker(notifier);
+
+        // suite level BeforeClass/AfterClass still wrap the whole pool run
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                List<DeviceSession> devices = getPoolDevices();
+                if (devices.isEmpty()) {
+                    TestBase.logger.warn("No devices available for the pool, running tests serially");
+                    serial.evaluate();
+                    return;
+                }
+
+                runPool(devices, notifier);
+            }
+        };
+    }
+
+    /**
+     * Gets the devices to run on
+     * @return online devices, filtered by ROBO_POOL_DEVICES if it is set
+     */
+    private List<DeviceSession> getPoolDevices() {
+        List<DeviceSession> devices = new ArrayList<DeviceSession>();
+        try {
+            devices.addAll(DebugBridge.get().getSessions());
+        } catch (Exception e) {
+            TestBase.logger.warn("Could not list devices: {}", e.getMessage());
+            return devices;
+        }
+
+        String selected = Utils.getEnv("ROBO_POOL_DEVICES", null);
+        if (selected != null && selected.trim().length() > 0) {
+            Set<String> serials = new HashSet<String>();
+            for (String serial : selected.split(",")) {
+                serials.add(serial.trim());
+            }
+
+            List<DeviceSession> filtered = new ArrayList<DeviceSession>();
+            for (DeviceSession device : devices) {
+                if (serials.contains(device.getSerialNumber()))
+                    filtered.add(device);
+            }
+            devices = filtered;
+        }
+
+        return devices;
+    }
+
+    private void runPool(List<DeviceSession> devices, RunNotifier notifier) throws Exception {
+        final DurationHistory history = new DurationHistory(new File(Utils.getEnv("ROBO_POOL_HISTORY", DEFAULT_HISTORY))).load();
+
+        List<Unit> units = getUnits();
+        for (Unit unit : units) {
+            unit.expected = history.getExpected(unit.key);
+        }
+
+        // longest first so the short tests fill in the gaps at the end of the run
+        Collections.sort(units, new Comparator<Unit>() {
+            public int compare(Unit a, Unit b) {
+                return a.expected < b.expected ? 1 : (a.expected > b.expected ? -1 : 0);
+            }
+        });
+
+        long expectedTotal = 0;
+        for (Unit unit : units) {
+            expectedTotal += unit.expected;
+        }
+        TestBase.logger.info("Running {} tests on {} devices, expected duration {}ms", new Object[] {units.size(), devices.size(), expectedTotal / devices.size()});
+
+        LinkedList<Unit> queue = new LinkedList<Unit>(units);
+        int basePort = Integer.parseInt(Utils.getEnv("ROBO_POOL_BASE_PORT", Integer.toString(DEFAULT_BASE_PORT)));
+
+        List<Worker> workers = new ArrayList<Worker>();
+        for (int x = 0; x < devices.size(); x++) {
+            DeviceContext context = new DeviceContext(devices.get(x).getSerialNumber(), basePort + 2 * x, basePort + 2 * x + 1);
+            workers.add(new Worker(context, queue, notifier, history));
+        }
+
+        try {
+            for (Worker worker : workers) {
+                worker.start();
+            }
+
+            for (Worker worker : workers) {
+                worker.join();
+            }
+        } finally {
+            // tests whose devices all went away are still reported so they do not silently disappear
+            synchronized (queue) {
+                for (Unit unit : queue) {
+                    failUnit(unit, notifier, new Exception("No devices left to run on"));
+                }
+                queue.clear();
+            }
+
+            try {
+                history.save();
+            } catch (Exception e) {
+                TestBase.logger.warn("Could not store test durations: {}", e.getMessage());
+            }
+
+            storeSummary(workers);
+        }
+    }
+
+    /**
+     * Builds the units of work from the children that are left after filtering
+     * @return
+     */
+    private List<Unit> getUnits() {
+        Set<Description> remaining = new HashSet<Description>(getDescription().getChildren());
+        boolean splitMethods = "methods".equals(Utils.getEnv("ROBO_POOL_SPLIT", "classes"));
+
+        List<Unit> units = new ArrayList<Unit>();
+        for (Runner child : getChildren()) {
+            Description description = child.getDescription();
+            if (!remaining.contains(description))
+                continue;
+
+            if (splitMethods && description.getTestClass() != null) {
+                for (Description method : description.getChildren()) {
+                    if (method.getMethodName() == null)
+                        continue;
+
+                    // every method gets a runner of its own since runners can not be shared between workers
+                    Runner methodRunner = Request.runner(poolBuilder.safeRunnerForClass(method.getTestClass())).filterWith(Filter.matchMethodDescription(method)).getRunner();
+                    units.add(new Unit(method.getClassName() + "#" + method.getMethodName(), methodRunner));
+                }
+            } else {
+                units.add(new Unit(description.getDisplayName(), child));
+            }
+        }
+
+        return units;
+    }
+
+    private static void failUnit(Unit unit, RunNotifier notifier, Exception cause) {
+        synchronized (notifier) {
+            for (Description test : getTests(unit.runner.getDescription())) {
+                notifier.fireTestStarted(test);
+                notifier.fireTestFailure(new Failure(test, cause));
+                notifier.fireTestFinished(test);
+            }
+        }
+    }
+
+    private static List<Description> getTests(Description description) {
+        if (description.isTest())
+            return Arrays.asList(description);
+
+        List<Description> tests = new ArrayList<Description>();
+        for (Description child : description.getChildren()) {
+            tests.addAll(getTests(child));
+        }
+
+        return tests;
+    }
+
+    /**
+     * Writes what each device ran to SUMMARY_FILE
+     * @param workers
+     */
+    private static void storeSummary(List<Worker> workers) {
+        try {
+            JSONArray devices = new JSONArray();
+            for (Worker worker : workers) {
+                devices.put(worker.toJson());
+            }
+
+            File summary = new File(SUMMARY_FILE);
+            File parent = summary.getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.isDirectory())
+                parent.mkdirs();
+
+            Writer writer = new OutputStreamWriter(new FileOutputStream(summary), "UTF-8");
+            try {
+                writer.write(new JSONObject().put("devices", devices).toString(2));
+            } finally {
+                writer.close();
+            }
+        } catch (Exception e) {
+            TestBase.logger.warn("Could not store device pool summary: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Builds runners that keep the device of the worker on the thread JUnit runs a test with a timeout on
+     * Classes with a runner of their own(RunWith) are left to it
+     */
+    private static class PoolRunnerBuilder extends RunnerBuilder {
+        private final RunnerBuilder builder;
+
+        PoolRunnerBuilder(RunnerBuilder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public Runner runnerForClass(Class<?> testClass) throws Throwable {
+            Runner runner = builder.safeRunnerForClass(testClass);
+            if (runner != null && runner.getClass() == BlockJUnit4ClassRunner.class)
+                return new PoolClassRunner(testClass);
+
+            return runner;
+        }
+    }
+
+    /**
+     * JUnit runner that binds the DeviceContext of the calling worker on the thread a timed test method runs on
+     * DeviceContexts are not inherited by new threads
+     */
+    private static class PoolClassRunner extends BlockJUnit4ClassRunner {
+        PoolClassRunner(Class<?> testClass) throws InitializationError {
+            super(testClass);
+        }
+
+        @Override
+        protected Statement withPotentialTimeout(FrameworkMethod method, Object test, final Statement next) {
+            final DeviceContext context = DeviceContext.current();
+            if (context == null)
+                return super.withPotentialTimeout(method, test, next);
+
+            return super.withPotentialTimeout(method, test, new Statement() {
+                @Override
+                public void evaluate() throws Throwable {
+                    if (DeviceContext.current() == context) {
+                        next.evaluate();
+                        return;
+                    }
+
+                    DeviceContext.bind(context);
+                    try {
+                        next.evaluate();
+                    } finally {
+                        DeviceContext.unbind();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * A test class or method that is scheduled as a whole
+     */
+    private static class Unit {
+        final String key;
+        final Runner runner;
+        long expected;
+
+        Unit(String key, Runner runner) {
+            this.key = key;
+            this.runner = runner;
+        }
+    }
+
+    /**
+     * Runs units on one device until the queue is empty or the device goes offline
+     */
+    private static class Worker extends Thread {
+        private final DeviceContext context;
+        private final LinkedList<Unit> queue;
+        private final RunNotifier parent;
+        private final DurationHistory history;
+
+        private final List<String> completed = new ArrayList<String>();
+        private int testCount = 0;
+        private int failureCount = 0;
+        private int ignoredCount = 0;
+        private long duration = 0;
+        private String error = null;
+
+        Worker(DeviceContext context, LinkedList<Unit> queue, RunNotifier parent, DurationHistory history) {
+            super("roboremote-pool-" + context.getSerialNumber());
+            this.context = context;
+            this.queue = queue;
+            this.parent = parent;
+            this.history = history;
+        }
+
+        public void run() {
+            try {
+                DeviceContext.bind(context);
+            } catch (Exception e) {
+                error = e.getMessage();
+                TestBase.logger.warn("Could not use device {}: {}", context.getSerialNumber(), error);
+                return;
+            }
+
+            RunNotifier notifier = new RunNotifier();
+            notifier.addListener(new ForwardingListener());
+
+            try {
+                while (true) {
+                    Unit unit;
+                    synchronized (queue) {
+                        unit = queue.poll();
+                    }
+                    if (unit == null)
+                        break;
+
+                    // leave the unit for the remaining devices when this one is gone
+                    if (!isOnline()) {
+                        synchronized (queue) {
+                            queue.addFirst(unit);
+                        }
+                        error = "Device went offline";
+                        TestBase.logger.warn("Device {} went offline, leaving the remaining tests to other devices", context.getSerialNumber());
+                        break;
+                    }
+
+                    TestBase.logger.info("Running {} on {}", unit.key, context.getSerialNumber());
+                    long start = System.currentTimeMillis();
+                    unit.runner.run(notifier);
+                    long elapsed = System.currentTimeMillis() - start;
+
+                    history.record(unit.key, elapsed);
+                    synchronized (this) {
+                        duration += elapsed;
+                        completed.add(unit.key);
+                    }
+                }
+            } finally {
+                try {
+                    DeviceContext.unbind();
+                } catch (Exception e) {
+                }
+            }
+        }
+
+        private boolean isOnline() {
+            try {
+                return DebugBridge.get().getSession(context.getSerialNumber()).isOnline();
+            } catch (Exception e) {
+                return false;
+            }
+        }
+
+        synchronized JSONObject toJson() throws Exception {
+            JSONObject json = new JSONObject();
+            json.put("serial", context.getSerialNumber());
+            json.put("roboRemotePort", context.getRoboRemotePort());
+            json.put("uiAutomatorPort", context.getUiAutomatorPort());
+            json.put("logDirectory", new File("logs", context.getFileSafeSerialNumber()).getPath());
+            json.put("tests", testCount);
+            json.put("failures", failureCount);
+            json.put("ignored", ignoredCount);
+            json.put("duration", duration);
+            json.put("units", new JSONArray(completed));
+            if (error != null)
+                json.put("error", error);
+
+            return json;
+        }
+
+        /**
+         * Counts results for this device and passes them on to the notifier of the suite
+         * The suite notifier is shared by all workers so calls into it are serialized
+         */
+        private class ForwardingListener extends RunListener {
+            @Override
+            public void testStarted(Description description) throws Exception {
+                synchronized (Worker.this) {
+                    testCount++;
+                }
+                synchronized (parent) {
+                    parent.fireTestStarted(description);
+                }
+            }
+
+            @Override
+            public void testFinished(Description description) throws Exception {
+                synchronized (parent) {
+                    parent.fireTestFinished(description);
+                }
+            }
+
+            @Override
+            public void testFailure(Failure failure) throws Exception {
+                synchronized (Worker.this) {
+                    failureCount++;
+                }
+                synchronized (parent) {
+                    parent.fireTestFailure(failure);
+                }
+            }
+
+            @Override
+            public void testAssumptionFailure(Failure failure) {
+                synchronized (parent) {
+                    parent.fireTestAssumptionFailed(failure);
+                }
+            }
+
+            @Override
+            public void testIgnored(Description description) throws Exception {
+                synchronized (Worker.this) {
+                    ignoredCount++;
+                }
+                synchronized (parent) {
+                    parent.fireTestIgnored(description);
+                }
+            }
+        }
+    }
+}
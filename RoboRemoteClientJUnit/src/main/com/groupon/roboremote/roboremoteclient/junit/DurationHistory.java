@@ -0,0 +1,135 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteclient.junit;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durations of earlier runs keyed by test class or class#method, stored as JSON
+ * New measurements are averaged with the stored value so one slow run does not skew the balancing too much
+ */
+public class DurationHistory {
+    // used for tests without history when there is no other history either
+    public static final long DEFAULT_DURATION = 60000;
+
+    private final File file;
+    private final Map<String, Long> durations = new HashMap<String, Long>();
+
+    public DurationHistory(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the history, a missing or unreadable file is an empty history
+     * @return
+     */
+    public DurationHistory load() {
+        if (!file.exists())
+            return this;
+
+        try {
+            Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+            try {
+                StringBuilder json = new StringBuilder();
+                char[] buffer = new char[8192];
+                int read;
+                while ((read = reader.read(buffer)) != -1) {
+                    json.append(buffer, 0, read);
+                }
+
+                JSONObject stored = new JSONObject(json.toString());
+                Iterator<?> keys = stored.keys();
+                while (keys.hasNext()) {
+                    String key = (String) keys.next();
+                    durations.put(key, stored.getLong(key));
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (Exception e) {
+            TestBase.logger.warn("Could not read test durations from {}: {}", file, e.getMessage());
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the expected duration of a test
+     * @param key
+     * @return the stored duration, the median of all stored durations if the test has none or DEFAULT_DURATION
+     */
+    public synchronized long getExpected(String key) {
+        Long duration = durations.get(key);
+        if (duration != null)
+            return duration;
+
+        if (durations.isEmpty())
+            return DEFAULT_DURATION;
+
+        List<Long> sorted = new ArrayList<Long>(durations.values());
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    public synchronized void record(String key, long duration) {
+        Long previous = durations.get(key);
+        durations.put(key, previous == null ? duration : (previous + duration) / 2);
+    }
+
+    public synchronized void save() throws Exception {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs())
+            throw new Exception("Could not create " + parent);
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(new JSONObject(durations).toString(2));
+        } finally {
+            writer.close();
+        }
+    }
+}
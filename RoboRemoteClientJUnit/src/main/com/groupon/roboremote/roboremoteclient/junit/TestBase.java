@@ -33,7 +33,9 @@
 package com.groupon.roboremote.roboremoteclient.junit;
 
 import com.groupon.roboremote.Constants;
+import com.groupon.roboremote.roboremoteclientcommon.ArtifactPipeline;
 import com.groupon.roboremote.roboremoteclientcommon.Utils;
+import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Rule;
@@ -107,6 +109,18 @@ public class TestBase extends com.groupon.roboremote.roboremoteclient.TestBase {
         setAppEnvironmentVariables();
     }
 
+    /**
+     * Waits for the screenshots and logs of this class to be written before the next class starts
+     */
+    @AfterClass
+    public static void flushArtifacts() {
+        try {
+            ArtifactPipeline.get().flush();
+        } catch (Exception e) {
+            logger.warn(e.getMessage());
+        }
+    }
+
     @Before
     public void setUp() throws Exception {
         setUp(false, true, Constants.ROBOREMOTE_SERVER_PORT);
@@ -35,4 +35,10 @@ public class Constants {
     // Port constants
     public static final int ROBOREMOTE_SERVER_PORT = 20300;
     public static final int UIAUTOMATOR_SERVER_PORT = 20301;
+
+    // outcomes of the composite find-visible-and-act operations
+    public static final String VIEW_CLICKED = "clicked";
+    public static final String VIEW_FOUND = "found";
+    public static final String VIEW_NOT_VISIBLE = "not_visible";
+    public static final String VIEW_NOT_FOUND = "not_found";
 }
@@ -0,0 +1,226 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteloadgenerator;
+
+import com.groupon.roboremote.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Load generator settings parsed from the command line
+ */
+public class LoadConfig {
+    public static final String USAGE =
+            "Usage: LoadGenerator [options]\n" +
+            "  --host <host>            server host(default localhost)\n" +
+            "  --port <port>            server port(default 20300)\n" +
+            "  --threads <n>            concurrent clients(default 8)\n" +
+            "  --duration <seconds>     length of the run(default 30)\n" +
+            "  --interval <seconds>     reporting interval(default 1)\n" +
+            "  --mix <op=weight,...>    operation mix of map, heartbeat, store and batch(default map=70,heartbeat=10,store=10,batch=10)\n" +
+            "  --map <query.method[:arg,...]>  call used by map, store and batch(default java.lang.System.currentTimeMillis)\n" +
+            "  --batch-size <n>         calls per batch(default 10)\n" +
+            "  --report <file>          write the intervals and summary as JSON\n";
+
+    private String host = "localhost";
+    private int port = Constants.ROBOREMOTE_SERVER_PORT;
+    private int threads = 8;
+    private int durationSeconds = 30;
+    private int intervalSeconds = 1;
+    private final int[] weights = new int[LoadOperation.values().length];
+    private int totalWeight = 0;
+    private String mapQuery = "java.lang.System";
+    private String mapMethod = "currentTimeMillis";
+    private Object[] mapArguments = new Object[0];
+    private int batchSize = 10;
+    private String reportFile = null;
+
+    public LoadConfig(String[] args) throws Exception {
+        setMix("map=70,heartbeat=10,store=10,batch=10");
+
+        for (int x = 0; x < args.length; x++) {
+            String option = args[x];
+            if (option.equals("--help")) {
+                throw new Exception(USAGE);
+            }
+            if (x + 1 >= args.length) {
+                throw new Exception("Missing value for " + option + "\n" + USAGE);
+            }
+            String value = args[++x];
+
+            if (option.equals("--host")) {
+                host = value;
+            } else if (option.equals("--port")) {
+                port = Integer.parseInt(value);
+            } else if (option.equals("--threads")) {
+                threads = Integer.parseInt(value);
+            } else if (option.equals("--duration")) {
+                durationSeconds = Integer.parseInt(value);
+            } else if (option.equals("--interval")) {
+                intervalSeconds = Integer.parseInt(value);
+            } else if (option.equals("--mix")) {
+                setMix(value);
+            } else if (option.equals("--map")) {
+                setMap(value);
+            } else if (option.equals("--batch-size")) {
+                batchSize = Integer.parseInt(value);
+            } else if (option.equals("--report")) {
+                reportFile = value;
+            } else {
+                throw new Exception("Unknown option " + option + "\n" + USAGE);
+            }
+        }
+
+        if (threads < 1 || durationSeconds < 1 || intervalSeconds < 1 || batchSize < 1) {
+            throw new Exception("threads, duration, interval and batch-size must be positive");
+        }
+    }
+
+    private void setMix(String mix) throws Exception {
+        for (int x = 0; x < weights.length; x++) {
+            weights[x] = 0;
+        }
+
+        for (String entry: mix.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new Exception("Invalid mix entry: " + entry);
+            }
+            weights[LoadOperation.forLabel(parts[0].trim()).ordinal()] = Integer.parseInt(parts[1].trim());
+        }
+
+        totalWeight = 0;
+        for (int weight: weights) {
+            totalWeight += weight;
+        }
+        if (totalWeight <= 0) {
+            throw new Exception("The operation mix has no weight");
+        }
+    }
+
+    /**
+     * Parses query.method[:arg,...].  Arguments that parse as integers or booleans are sent as such
+     * @param map
+     * @throws Exception
+     */
+    private void setMap(String map) throws Exception {
+        String call = map;
+        List<Object> arguments = new ArrayList<Object>();
+
+        int argumentStart = map.indexOf(':');
+        if (argumentStart != -1) {
+            call = map.substring(0, argumentStart);
+            for (String argument: map.substring(argumentStart + 1).split(",")) {
+                arguments.add(parseArgument(argument));
+            }
+        }
+
+        int methodStart = call.lastIndexOf('.');
+        if (methodStart <= 0) {
+            throw new Exception("Invalid map call: " + map);
+        }
+
+        mapQuery = call.substring(0, methodStart);
+        mapMethod = call.substring(methodStart + 1);
+        mapArguments = arguments.toArray();
+    }
+
+    private static Object parseArgument(String argument) {
+        if (argument.equals("true") || argument.equals("false")) {
+            return Boolean.valueOf(argument);
+        }
+        try {
+            return Integer.valueOf(argument);
+        } catch (NumberFormatException e) {
+            return argument;
+        }
+    }
+
+    /**
+     * Picks an operation according to the mix weights
+     * @param random
+     * @return
+     */
+    public LoadOperation pickOperation(Random random) {
+        int pick = random.nextInt(totalWeight);
+        for (LoadOperation operation: LoadOperation.values()) {
+            pick -= weights[operation.ordinal()];
+            if (pick < 0) {
+                return operation;
+            }
+        }
+        return LoadOperation.MAP;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getIntervalSeconds() {
+        return intervalSeconds;
+    }
+
+    public String getMapQuery() {
+        return mapQuery;
+    }
+
+    public String getMapMethod() {
+        return mapMethod;
+    }
+
+    public Object[] getMapArguments() {
+        return mapArguments;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public String getReportFile() {
+        return reportFile;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteloadgenerator;
+
+import com.groupon.roboremote.roboremoteclientcommon.Client;
+import com.groupon.roboremote.roboremoteclientcommon.http.HttpClientTransport;
+import com.groupon.roboremote.roboremoteclientcommon.metrics.Histogram;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives concurrent clients against a remote server and reports throughput, latency percentiles,
+ * error rate and the server's thread count once per interval
+ *
+ * The server thread count is sampled with a java.lang.Thread.activeCount map call on a separate connection
+ * so it works against any RemoteServer(RoboRemote, UIAutomator or the local server)
+ */
+public class LoadGenerator {
+    private final LoadConfig config;
+    private final JSONArray intervals = new JSONArray();
+    private final LoadStats total = new LoadStats();
+
+    public LoadGenerator(LoadConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Runs the configured load and returns the report
+     * @return
+     * @throws Exception
+     */
+    public JSONObject run() throws Exception {
+        HttpClientTransport transport = new HttpClientTransport(10000, 60000, config.getThreads());
+        Client client = new Client(config.getHost(), config.getPort(), transport);
+        Client monitor = new Client(config.getHost(), config.getPort(), 5000, 5000);
+
+        if (!monitor.isListening()) {
+            throw new Exception("No server listening on " + config.getHost() + ":" + config.getPort());
+        }
+
+        System.out.println(String.format("Running %d clients against %s:%d for %ds",
+                config.getThreads(), config.getHost(), config.getPort(), config.getDurationSeconds()));
+        System.out.println(String.format("%8s %10s %10s %10s %10s %8s %8s", "time(s)", "ops/s", "p50(ms)", "p95(ms)", "p99(ms)", "errors", "threads"));
+
+        List<LoadWorker> workers = new ArrayList<LoadWorker>();
+        for (int x = 0; x < config.getThreads(); x++) {
+            LoadWorker worker = new LoadWorker(x, config, client);
+            workers.add(worker);
+            worker.start();
+        }
+
+        long start = System.nanoTime();
+        long intervalNanos = config.getIntervalSeconds() * 1000000000L;
+        long end = start + config.getDurationSeconds() * 1000000000L;
+        long intervalStart = start;
+        LoadStats interval = new LoadStats();
+
+        try {
+            while (intervalStart < end) {
+                long intervalEnd = Math.min(intervalStart + intervalNanos, end);
+                long sleep = (intervalEnd - System.nanoTime()) / 1000000L;
+                if (sleep > 0) {
+                    Thread.sleep(sleep);
+                }
+
+                for (LoadWorker worker: workers) {
+                    worker.getStats().drainInto(interval);
+                }
+
+                double seconds = (System.nanoTime() - intervalStart) / 1e9;
+                reportInterval(interval, (System.nanoTime() - start) / 1e9, seconds, getServerThreads(monitor));
+
+                total.add(interval);
+                interval.reset();
+                intervalStart = intervalEnd;
+            }
+        } finally {
+            for (LoadWorker worker: workers) {
+                worker.close();
+            }
+            for (LoadWorker worker: workers) {
+                worker.join(60000);
+            }
+            transport.shutdown();
+            monitor.shutdown();
+        }
+
+        // requests that were in flight when the run ended
+        for (LoadWorker worker: workers) {
+            worker.getStats().drainInto(total);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        JSONObject summary = total.toJson(seconds);
+        summary.put("duration_s", seconds);
+        summary.put("threads", config.getThreads());
+
+        Histogram latency = total.getLatency();
+        System.out.println(String.format("Total: %d requests, %.1f ops/s, p50 %.2fms, p95 %.2fms, p99 %.2fms, %d errors(%.2f%%)",
+                total.getCount(), total.getCount() / seconds,
+                latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(95) / 1000.0,
+                latency.getValueAtPercentile(99) / 1000.0, total.getErrors(),
+                total.getCount() > 0 ? 100.0 * total.getErrors() / total.getCount() : 0));
+
+        JSONObject report = new JSONObject();
+        report.put("summary", summary);
+        report.put("intervals", intervals);
+        return report;
+    }
+
+    private void reportInterval(LoadStats interval, double elapsed, double seconds, int serverThreads) throws Exception {
+        Histogram latency = interval.getLatency();
+        long count = interval.getCount();
+
+        System.out.println(String.format("%8.1f %10.1f %10.2f %10.2f %10.2f %8d %8s", elapsed, count / seconds,
+                latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(95) / 1000.0,
+                latency.getValueAtPercentile(99) / 1000.0, interval.getErrors(),
+                serverThreads < 0 ? "?" : String.valueOf(serverThreads)));
+
+        JSONObject json = interval.toJson(seconds);
+        json.put("time_s", elapsed);
+        json.put("server_threads", serverThreads);
+        intervals.put(json);
+    }
+
+    /**
+     * @param monitor
+     * @return active threads in the server's request thread group or -1 if they could not be counted
+     */
+    private static int getServerThreads(Client monitor) {
+        try {
+            return monitor.mapInt("java.lang.Thread", "activeCount");
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config;
+        try {
+            config = new LoadConfig(args);
+        } catch (Exception e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        JSONObject report = new LoadGenerator(config).run();
+
+        if (config.getReportFile() != null) {
+            FileWriter writer = new FileWriter(config.getReportFile());
+            try {
+                writer.write(report.toString(2));
+            } finally {
+                writer.close();
+            }
+            System.out.println("Report written to " + config.getReportFile());
+        }
+
+        System.exit(0);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteloadgenerator;
+
+import com.groupon.roboremote.roboremoteclientcommon.metrics.Histogram;
+import org.json.JSONObject;
+
+/**
+ * Latency(in microseconds) and error counts per LoadOperation
+ * Each worker records into its own LoadStats which the reporter drains once per interval
+ */
+public class LoadStats {
+    private final Histogram[] latency = new Histogram[LoadOperation.values().length];
+    private final long[] errors = new long[LoadOperation.values().length];
+
+    public LoadStats() {
+        for (int x = 0; x < latency.length; x++) {
+            latency[x] = new Histogram();
+        }
+    }
+
+    public synchronized void record(LoadOperation operation, long latencyMicros, boolean failed) {
+        latency[operation.ordinal()].record(latencyMicros);
+        if (failed) {
+            errors[operation.ordinal()]++;
+        }
+    }
+
+    /**
+     * Adds these stats to the target and resets them
+     * @param target
+     */
+    public synchronized void drainInto(LoadStats target) {
+        target.add(this);
+        reset();
+    }
+
+    public synchronized void add(LoadStats other) {
+        synchronized (other) {
+            for (int x = 0; x < latency.length; x++) {
+                latency[x].add(other.latency[x]);
+                errors[x] += other.errors[x];
+            }
+        }
+    }
+
+    public synchronized void reset() {
+        for (int x = 0; x < latency.length; x++) {
+            latency[x].reset();
+            errors[x] = 0;
+        }
+    }
+
+    /**
+     * @return latency of all operations combined
+     */
+    public synchronized Histogram getLatency() {
+        Histogram combined = new Histogram();
+        for (Histogram histogram: latency) {
+            combined.add(histogram);
+        }
+        return combined;
+    }
+
+    public synchronized long getCount() {
+        long count = 0;
+        for (Histogram histogram: latency) {
+            count += histogram.getCount();
+        }
+        return count;
+    }
+
+    public synchronized long getErrors() {
+        long count = 0;
+        for (long error: errors) {
+            count += error;
+        }
+        return count;
+    }
+
+    /**
+     * @param seconds - length of the period these stats cover
+     * @return
+     * @throws Exception
+     */
+    public synchronized JSONObject toJson(double seconds) throws Exception {
+        JSONObject json = toJson(getLatency(), getErrors(), seconds);
+
+        JSONObject operations = new JSONObject();
+        for (LoadOperation operation: LoadOperation.values()) {
+            Histogram histogram = latency[operation.ordinal()];
+            if (histogram.getCount() > 0) {
+                operations.put(operation.getLabel(), toJson(histogram, errors[operation.ordinal()], seconds));
+            }
+        }
+        json.put("operations", operations);
+
+        return json;
+    }
+
+    private static JSONObject toJson(Histogram histogram, long errors, double seconds) throws Exception {
+        long count = histogram.getCount();
+
+        JSONObject json = new JSONObject();
+        json.put("count", count);
+        json.put("throughput", seconds > 0 ? count / seconds : 0);
+        json.put("errors", errors);
+        json.put("error_rate", count > 0 ? (double)errors / count : 0);
+        json.put("p50_us", histogram.getValueAtPercentile(50));
+        json.put("p95_us", histogram.getValueAtPercentile(95));
+        json.put("p99_us", histogram.getValueAtPercentile(99));
+        json.put("max_us", histogram.getMax());
+        return json;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteloadgenerator;
+
+import com.groupon.roboremote.roboremoteclientcommon.Batch;
+import com.groupon.roboremote.roboremoteclientcommon.Client;
+import com.groupon.roboremote.roboremoteclientcommon.QueryBuilder;
+
+import java.util.Random;
+
+/**
+ * Issues requests picked from the operation mix until it is stopped
+ */
+public class LoadWorker extends Thread {
+    private final LoadConfig config;
+    private final Client client;
+    private final String storeLabel;
+    private final Random random;
+    private final LoadStats stats = new LoadStats();
+    private volatile boolean running = true;
+
+    public LoadWorker(int index, LoadConfig config, Client client) {
+        super("LoadWorker-" + index);
+        setDaemon(true);
+
+        this.config = config;
+        this.client = client;
+        this.storeLabel = "load_" + index;
+        this.random = new Random(index);
+    }
+
+    public LoadStats getStats() {
+        return stats;
+    }
+
+    public void close() {
+        running = false;
+    }
+
+    public void run() {
+        while (running) {
+            LoadOperation operation = config.pickOperation(random);
+            boolean failed = false;
+
+            long start = System.nanoTime();
+            try {
+                failed = !execute(operation);
+            } catch (Exception e) {
+                failed = true;
+            }
+            stats.record(operation, (System.nanoTime() - start) / 1000L, failed);
+        }
+    }
+
+    /**
+     * @param operation
+     * @return false if the server reported a failure that did not surface as an exception
+     * @throws Exception
+     */
+    private boolean execute(LoadOperation operation) throws Exception {
+        switch (operation) {
+            case MAP:
+                client.map(config.getMapQuery(), config.getMapMethod(), config.getMapArguments());
+                return true;
+            case HEARTBEAT:
+                return client.isListening();
+            case STORE:
+                new QueryBuilder(client).map(config.getMapQuery(), config.getMapMethod(), config.getMapArguments())
+                        .storeResult(storeLabel).execute();
+                new QueryBuilder(client).retrieveResult(storeLabel).call("toString").execute();
+                return true;
+            case BATCH:
+                Batch batch = client.openBatch();
+                try {
+                    for (int x = 0; x < config.getBatchSize(); x++) {
+                        client.mapVoid(config.getMapQuery(), config.getMapMethod(), config.getMapArguments());
+                    }
+                } finally {
+                    batch.close();
+                }
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremotelocalserver;
+
+import android.view.View;
+import com.groupon.roboremote.Constants;
+import com.groupon.roboremote.roboremoteservercommon.RemoteServer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs the RemoteServer operation engine on a desktop JVM
+ * Targets that stand in for solo/uiDevice are registered by query name so the engine, transport and client
+ * can be exercised and profiled without a device.
+ *
+ * Usage: java -jar roboremotelocalserver.jar [port] [query=fully.qualified.ClassName ...]
+ * Without targets SampleTarget is registered as both "solo" and "getUiDevice"
+ */
+public class LocalServer extends RemoteServer {
+    private final Map<String, Object> targets = new ConcurrentHashMap<String, Object>();
+    private final Map<String, View> views = new ConcurrentHashMap<String, View>();
+    private volatile String stateSignature = null;
+    private RCHttpd httpd = null;
+
+    /**
+     * Registers the object operations are run against for a query(ex: solo)
+     * @param query
+     * @param target
+     */
+    public void register(String query, Object target) {
+        targets.put(query, target);
+    }
+
+    /**
+     * Registers a view that can be looked up by name when a String argument is passed for a View parameter
+     * @param viewName
+     * @param view
+     */
+    public void registerView(String viewName, View view) {
+        views.put(viewName, view);
+    }
+
+    /**
+     * Sets the UI state signature.  Changing it bumps the epoch the same way an activity switch does on a device
+     * @param stateSignature - null disables epoch tracking
+     */
+    public void setStateSignature(String stateSignature) {
+        this.stateSignature = stateSignature;
+    }
+
+    protected String getStateSignature() {
+        return stateSignature;
+    }
+
+    protected Object getInstantiatedClass(String query) {
+        return targets.get(query);
+    }
+
+    protected View getView(String viewName) {
+        View view = views.get(viewName);
+        if (view != null) {
+            return view;
+        }
+
+        for (Map.Entry<String, View> entry: views.entrySet()) {
+            if (entry.getKey().contains(viewName)) {
+                return entry.getValue();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Starts serving on the port and returns immediately
+     * @param port
+     * @throws Exception
+     */
+    public synchronized void start(int port) throws Exception {
+        if (httpd != null) {
+            throw new Exception("LocalServer is already running");
+        }
+
+        httpd = new RCHttpd(port);
+    }
+
+    public synchronized void stop() {
+        if (httpd != null) {
+            httpd.stop();
+            httpd = null;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = Constants.ROBOREMOTE_SERVER_PORT;
+        LocalServer server = new LocalServer();
+
+        for (String arg: args) {
+            int split = arg.indexOf('=');
+            if (split == -1) {
+                port = Integer.parseInt(arg);
+            } else {
+                String query = arg.substring(0, split);
+                String className = arg.substring(split + 1);
+                server.register(query, Class.forName(className).newInstance());
+            }
+        }
+
+        if (server.targets.isEmpty()) {
+            SampleTarget target = new SampleTarget();
+            server.register(SampleTarget.SOLO_QUERY, target);
+            server.register(SampleTarget.UIDEVICE_QUERY, target);
+        }
+
+        System.out.println("LocalServer:: Serving " + server.targets.keySet());
+        server.startServer(port);
+    }
+}
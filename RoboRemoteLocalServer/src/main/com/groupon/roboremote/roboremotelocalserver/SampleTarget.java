@@ -0,0 +1,108 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremotelocalserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fake automation target with calls shaped like the common Solo/UiDevice calls
+ * Results are deterministic so responses can be compared across runs
+ */
+public class SampleTarget {
+    public static final String SOLO_QUERY = "solo";
+    public static final String UIDEVICE_QUERY = "getUiDevice";
+
+    private volatile String lastText = "";
+    private volatile int clicks = 0;
+
+    // void calls
+    public void clickOnText(String text) {
+        lastText = text;
+        clicks++;
+    }
+
+    public void enterText(int index, String text) {
+        lastText = text;
+    }
+
+    public void sleep(int time) throws InterruptedException {
+        Thread.sleep(time);
+    }
+
+    // scalar results
+    public boolean searchText(String text) {
+        return lastText.equals(text);
+    }
+
+    public int getClickCount() {
+        return clicks;
+    }
+
+    public int getDisplayWidth() {
+        return 1080;
+    }
+
+    public int getDisplayHeight() {
+        return 1920;
+    }
+
+    public String getCurrentActivity() {
+        return "com.example.SampleActivity";
+    }
+
+    public String echo(String text) {
+        return text;
+    }
+
+    /**
+     * @param count
+     * @return count strings(ex: text0, text1..) to simulate large list responses
+     */
+    public List<String> getTexts(int count) {
+        List<String> texts = new ArrayList<String>(count);
+        for (int x = 0; x < count; x++) {
+            texts.add("text" + x);
+        }
+        return texts;
+    }
+
+    /**
+     * @param delay - ms to wait before returning to simulate a slow UI call
+     * @return
+     */
+    public boolean waitForText(String text, int delay) throws InterruptedException {
+        Thread.sleep(delay);
+        return true;
+    }
+}
@@ -32,10 +32,14 @@
 
 package com.groupon.roboremote.roboremoteserver;
 
+import android.app.Activity;
 import android.os.Bundle;
 import android.test.InstrumentationTestRunner;
 
 public class RemoteTestRunner extends InstrumentationTestRunner {
+    // only written from the main thread
+    private static volatile long resumeCount = 0;
+
     @Override
     public void onCreate(Bundle arguments) {
         //process you parameters here.
@@ -46,4 +50,22 @@ public class RemoteTestRunner extends InstrumentationTestRunner {
         }
         super.onCreate(arguments);
     }
+
+    /**
+     * Counts every activity resume, including going back to an activity that already exists
+     * @param activity
+     */
+    @Override
+    public void callActivityOnResume(Activity activity) {
+        super.callActivityOnResume(activity);
+        resumeCount++;
+    }
+
+    /**
+     * Gets the number of activity resumes seen by this runner
+     * @return
+     */
+    public static long getResumeCount() {
+        return resumeCount;
+    }
 }
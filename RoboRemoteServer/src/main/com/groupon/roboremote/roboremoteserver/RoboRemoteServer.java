@@ -1,6 +1,9 @@
 package com.groupon.roboremote.roboremoteserver;
 
+import android.app.Activity;
 import android.app.Instrumentation;
+import android.content.IntentFilter;
+import android.content.res.Configuration;
 import android.view.View;
 import com.groupon.roboremote.roboremoteserver.robotium.Solo2;
 import com.groupon.roboremote.roboremoteservercommon.RemoteServer;
@@ -19,9 +22,34 @@ public class RoboRemoteServer extends RemoteServer {
     Solo2 solo = null;
     Instrumentation instrumentation = null;
 
+    Instrumentation.ActivityMonitor activityMonitor = null;
+
     public RoboRemoteServer(Solo2 solo, Instrumentation instrumentation) {
         this.solo = solo;
         this.instrumentation = instrumentation;
+
+        // non-blocking monitor so we can cheaply see activity switches(solo.getCurrentActivity sleeps first)
+        this.activityMonitor = instrumentation.addMonitor((IntentFilter) null, null, false);
+    }
+
+    /**
+     * The state signature is the activity resume count plus the current configuration
+     * This changes on an activity switch(including back to an existing activity), rotation or any other configuration change
+     * @return
+     */
+    protected String getStateSignature() {
+        Configuration configuration = instrumentation.getTargetContext().getResources().getConfiguration();
+
+        return getActivityState() + ":" + configuration.orientation + ":" + configuration.hashCode();
+    }
+
+    private String getActivityState() {
+        if (instrumentation instanceof RemoteTestRunner)
+            return "r" + RemoteTestRunner.getResumeCount();
+
+        // other runners only let us see activity creation
+        Activity activity = activityMonitor.getLastActivity();
+        return "a" + System.identityHashCode(activity);
     }
 
     /**
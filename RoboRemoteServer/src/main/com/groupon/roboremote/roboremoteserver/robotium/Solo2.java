@@ -35,25 +35,33 @@ package com.groupon.roboremote.roboremoteserver.robotium;
 import android.app.Activity;
 import android.app.Instrumentation;
 import android.content.ComponentName;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.*;
+import com.groupon.roboremote.Constants;
+import com.groupon.roboremote.roboremoteservercommon.gesture.GesturePlayer;
 import com.jayway.android.robotium.solo.Solo;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 public class Solo2 extends Solo{
+    private final Instrumentation instrumentation;
 
     public Solo2(Instrumentation instrumentation)
     {
         super(instrumentation);
+        this.instrumentation = instrumentation;
     }
 
     public Solo2(Instrumentation instrumentation, Activity activity)
     {
         super(instrumentation, activity);
+        this.instrumentation = instrumentation;
     }
 
     /**
@@ -389,4 +397,290 @@ public class Solo2 extends Solo{
 
         return viewLocation;
     }
+
+    /**
+     * Gets the number of items in a list including its header and footer views
+     * @param listIndex index of the list in getCurrentViews(ListView.class)
+     * @return number of items in the list
+     */
+    public int getListItemCount(int listIndex) throws Exception {
+        final ListView listView = getListView(listIndex);
+        final int[] count = new int[1];
+
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                count[0] = listView.getCount();
+            }
+        });
+
+        return count[0];
+    }
+
+    /**
+     * Scrolls a list so the item at a position is on the screen by jumping to it with setSelection
+     * @param listIndex index of the list in getCurrentViews(ListView.class)
+     * @param position position of the item not counting header views
+     * @return index of the item in the visible children of the list(suitable for clickInList)
+     * @throws Exception
+     */
+    public int scrollListToPosition(int listIndex, int position) throws Exception {
+        return scrollListToPosition(listIndex, position, false);
+    }
+
+    /**
+     * Scrolls a list so the item at a position is on the screen and waits for the list to lay out
+     * @param listIndex index of the list in getCurrentViews(ListView.class)
+     * @param position position of the item not counting header views
+     * @param smooth true to animate with smoothScrollToPosition, false to jump with setSelection
+     * @return index of the item in the visible children of the list(suitable for clickInList)
+     * @throws Exception
+     */
+    public int scrollListToPosition(int listIndex, final int position, final boolean smooth) throws Exception {
+        final ListView listView = getListView(listIndex);
+
+        // {adapter position or -1 if out of range, child index or -1 if not visible}
+        // list state is only read on the UI thread so it never comes from a layout in progress
+        final int[] state = new int[2];
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                int adapterPosition = position + listView.getHeaderViewsCount();
+                if (position < 0 || adapterPosition >= listView.getCount()) {
+                    state[0] = -1;
+                    return;
+                }
+
+                state[0] = adapterPosition;
+                state[1] = getVisibleChildIndex(listView, adapterPosition);
+                if (state[1] >= 0)
+                    return;
+
+                if (smooth)
+                    listView.smoothScrollToPosition(adapterPosition);
+                else
+                    listView.setSelection(adapterPosition);
+            }
+        });
+
+        if (state[0] < 0)
+            throw new Exception("Item index is greater than number of items in the list");
+
+        if (state[1] >= 0)
+            return state[1];
+
+        // setSelection only requests a layout so wait until the item is actually one of the children
+        final int adapterPosition = state[0];
+        int RETRY_PERIOD = 250;
+        int retryNum = 10000 / RETRY_PERIOD;
+        for (int i = 0; i < retryNum; i++) {
+            instrumentation.waitForIdleSync();
+
+            instrumentation.runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    state[1] = getVisibleChildIndex(listView, adapterPosition);
+                }
+            });
+
+            if (state[1] >= 0)
+                return state[1];
+
+            this.sleep(RETRY_PERIOD);
+        }
+
+        throw new Exception("Could not find item");
+    }
+
+    /**
+     * Scrolls the item at a position onto the screen and gets the visible text from its cell
+     * @param listIndex index of the list in getCurrentViews(ListView.class)
+     * @param position position of the item not counting header views
+     * @return text in the cell
+     * @throws Exception
+     */
+    public String[] getListItemText(int listIndex, int position) throws Exception {
+        final int childIndex = scrollListToPosition(listIndex, position);
+        final ListView listView = getListView(listIndex);
+        final String[][] text = new String[1][];
+
+        // read the cell and its text in one pass so the list can not recycle it in between
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                View cell = listView.getChildAt(childIndex);
+
+                if (cell instanceof ViewGroup)
+                    text[0] = getTextFromView(cell);
+                else if (cell instanceof TextView && isVisible(cell))
+                    // simple adapters use a bare TextView as the cell
+                    text[0] = new String[] {((TextView) cell).getText().toString()};
+                else
+                    text[0] = new String[0];
+            }
+        });
+
+        return text[0];
+    }
+
+    private ListView getListView(int listIndex) throws Exception {
+        ArrayList<ListView> listViews = getCurrentViews(ListView.class);
+
+        if (listViews.size() == 0)
+            throw new Exception("No listviews on the screen");
+        if (listIndex >= listViews.size())
+            throw new Exception("Could not find listView");
+
+        return listViews.get(listIndex);
+    }
+
+    /**
+     * Gets the child index of an adapter position, must be called on the UI thread
+     * @param listView
+     * @param adapterPosition
+     * @return index in the visible children or -1 if the position is not laid out
+     */
+    private int getVisibleChildIndex(ListView listView, int adapterPosition) {
+        if (listView.getChildCount() == 0
+                || adapterPosition < listView.getFirstVisiblePosition()
+                || adapterPosition > listView.getLastVisiblePosition())
+            return -1;
+
+        return adapterPosition - listView.getFirstVisiblePosition();
+    }
+
+    /**
+     * Finds a visible view of a type by its text and clicks it, all from a single pass on the UI thread
+     * The click is posted with performClick like clickOnViewDirect
+     * @param type simple class name in android.widget(ex: Button) or a fully qualified TextView subclass
+     * @param label text or regular expression to match
+     * @param timeout amount of time to keep looking for a visible match
+     * @return {outcome, view} where outcome is one of the Constants.VIEW_* values and view is omitted when nothing matched
+     * @throws Exception
+     */
+    public String[] clickIfVisible(String type, String label, int timeout) throws Exception {
+        return findVisibleView(getTextViewClass(type), label, timeout, true);
+    }
+
+    /**
+     * Finds a visible view of a type by its text
+     * @param type simple class name in android.widget(ex: Button) or a fully qualified TextView subclass
+     * @param label text or regular expression to match
+     * @param timeout amount of time to keep looking for a visible match
+     * @return {outcome, view} where outcome is one of the Constants.VIEW_* values and view is omitted when nothing matched
+     * @throws Exception
+     */
+    public String[] findVisibleView(String type, String label, int timeout) throws Exception {
+        return findVisibleView(getTextViewClass(type), label, timeout, false);
+    }
+
+    /**
+     * Finds visible text in any TextView
+     * @param label text or regular expression to match
+     * @param timeout amount of time to keep looking for a visible match
+     * @return {outcome, view} where outcome is one of the Constants.VIEW_* values and view is omitted when nothing matched
+     */
+    public String[] findVisibleText(String label, int timeout) {
+        return findVisibleView(TextView.class, label, timeout, false);
+    }
+
+    /**
+     * Plays a multi pointer gesture with the timing kept on the device
+     * @param script JSON array of [time, action, pointer, x, y] events(see GestureScript)
+     * @return the largest number of ms an event was injected after its scheduled time
+     * @throws Exception
+     */
+    public long playGesture(String script) throws Exception {
+        return new GesturePlayer() {
+            protected void inject(MotionEvent event) {
+                instrumentation.sendPointerSync(event);
+            }
+        }.play(script);
+    }
+
+    private String[] findVisibleView(final Class<? extends TextView> viewClass, final String label, int timeout, final boolean click) {
+        final Pattern pattern = getLabelPattern(label);
+        final String[][] result = new String[1][];
+
+        int RETRY_PERIOD = 250;
+        int retryNum = Math.max(1, timeout / RETRY_PERIOD);
+        boolean rechecked = false;
+        for (int i = 0; i < retryNum; i++) {
+            // search, check visibility and click without the views changing underneath us
+            instrumentation.runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    result[0] = matchVisibleView(viewClass, label, pattern, click);
+                }
+            });
+
+            if (result[0][0].equals(Constants.VIEW_CLICKED) || result[0][0].equals(Constants.VIEW_FOUND))
+                break;
+
+            // a hidden match usually stays hidden so only look again once the UI has settled
+            if (result[0][0].equals(Constants.VIEW_NOT_VISIBLE)) {
+                if (rechecked)
+                    break;
+
+                rechecked = true;
+                instrumentation.waitForIdleSync();
+                continue;
+            }
+
+            if (i < retryNum - 1)
+                this.sleep(RETRY_PERIOD);
+        }
+
+        return result[0];
+    }
+
+    private String[] matchVisibleView(Class<? extends TextView> viewClass, String label, Pattern pattern, boolean click) {
+        TextView hiddenMatch = null;
+
+        for (TextView v : getCurrentViews(viewClass)) {
+            if (v.getText() == null)
+                continue;
+
+            String text = v.getText().toString();
+            // substring match like the robotium search methods
+            if (!text.equals(label) && !pattern.matcher(text).find())
+                continue;
+
+            if (!isVisible(v)) {
+                hiddenMatch = v;
+                continue;
+            }
+
+            if (click) {
+                v.performClick();
+                return new String[] {Constants.VIEW_CLICKED, v.toString()};
+            }
+
+            return new String[] {Constants.VIEW_FOUND, v.toString()};
+        }
+
+        if (hiddenMatch != null)
+            return new String[] {Constants.VIEW_NOT_VISIBLE, hiddenMatch.toString()};
+
+        return new String[] {Constants.VIEW_NOT_FOUND};
+    }
+
+    private Pattern getLabelPattern(String label) {
+        // labels are usually plain text so fall back to a literal match when they are not valid expressions
+        try {
+            return Pattern.compile(label);
+        } catch (PatternSyntaxException e) {
+            return Pattern.compile(Pattern.quote(label));
+        }
+    }
+
+    private Class<? extends TextView> getTextViewClass(String type) throws Exception {
+        String className = type.contains(".") ? type : "android.widget." + type;
+        Class<?> viewClass = Class.forName(className);
+
+        if (!TextView.class.isAssignableFrom(viewClass))
+            throw new Exception(String.format("%s does not display text", type));
+
+        return viewClass.asSubclass(TextView.class);
+    }
 }
@@ -39,6 +39,8 @@ public class Constants {
     public static final String RESULT_OUTCOME = "outcome";
     public static final String RESULT_RESULTS = "results";
     public static final String RESULT_REASON = "reason";
+    public static final String RESULT_EPOCH = "epoch";
+    public static final String RESULT_FAILED_INDEX = "failed_index";
 
     // request constants
     public static final String REQUEST_FIELD = "field";
@@ -52,8 +54,10 @@ public class Constants {
     public static final String REQUEST_RETRIEVE = "retrieve";
     public static final String REQUEST_INSTANTIATE = "instantiate";
     public static final String REQUEST_MAP = "map";
+    public static final String REQUEST_BATCH = "batch";
     public static final String REQUEST = "request";
     public static final String REQUEST_HEARTBEAT = "heartbeat";
+    public static final String REQUEST_HIERARCHY = "hierarchy";
 
     // nanohttpd constants
     public static final String NANO_POST = "POST";
@@ -96,6 +96,15 @@ public class NanoHTTPD
         return serveFile( uri, header, myRootDir, true );
     }
 
+    /**
+     * Writes a response body of unknown length to the connection.
+     * The connection is closed afterwards which marks the end of the body.
+     */
+    public interface ContentWriter
+    {
+        public void write( OutputStream out ) throws IOException;
+    }
+
     /**
      * HTTP response.
      * Return one of these from serve().
@@ -120,6 +129,17 @@ public class NanoHTTPD
             this.data = data;
         }
 
+        /**
+         * Constructor for a body that is written straight to the connection
+         * as it is produced instead of being read from an InputStream.
+         */
+        public Response( String status, String mimeType, ContentWriter writer )
+        {
+            this.status = status;
+            this.mimeType = mimeType;
+            this.writer = writer;
+        }
+
         /**
          * Convenience method that makes an InputStream out of
          * given text.
@@ -161,6 +181,12 @@ public class NanoHTTPD
          */
         public InputStream data;
 
+        /**
+         * Writes the body of the response, may be null.
+         * Used instead of data when set.
+         */
+        public ContentWriter writer;
+
         /**
          * Headers for the HTTP response. Use addHeader()
          * to add lines.
@@ -222,6 +248,14 @@ public class NanoHTTPD
         myThread.start();
     }
 
+    /**
+     * Returns the port the server is listening on(useful when it was started on port 0)
+     */
+    public int getListeningPort()
+    {
+        return myServerSocket.getLocalPort();
+    }
+
     /**
      * Stops the server.
      */
@@ -422,7 +456,7 @@ public class NanoHTTPD
                 if ( r == null )
                     sendError( HTTP_INTERNALERROR, "SERVER INTERNAL ERROR: Serve() returned a null response." );
                 else
-                    sendResponse( r.status, r.mimeType, r.header, r.data );
+                    sendResponse( r.status, r.mimeType, r.header, r.data, r.writer );
 
                 in.close();
                 is.close();
@@ -722,14 +756,14 @@ public class NanoHTTPD
          */
         private void sendError( String status, String msg ) throws InterruptedException
         {
-            sendResponse( status, MIME_PLAINTEXT, null, new ByteArrayInputStream( msg.getBytes()));
+            sendResponse( status, MIME_PLAINTEXT, null, new ByteArrayInputStream( msg.getBytes()), null );
             throw new InterruptedException();
         }
 
         /**
          * Sends given response to the socket.
          */
-        private void sendResponse( String status, String mime, Properties header, InputStream data )
+        private void sendResponse( String status, String mime, Properties header, InputStream data, ContentWriter writer )
         {
             try
             {
@@ -760,7 +794,11 @@ public class NanoHTTPD
                 pw.print("\r\n");
                 pw.flush();
 
-                if ( data != null )
+                if ( writer != null )
+                {
+                    writer.write( out );
+                }
+                else if ( data != null )
                 {
                     int pending = data.available();	// This is to support partial sends, see serveFile()
                     byte[] buff = new byte[theBufferSize];
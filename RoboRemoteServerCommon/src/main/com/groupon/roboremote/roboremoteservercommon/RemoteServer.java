@@ -50,6 +50,52 @@ public abstract class RemoteServer {
     // Get a view with the specified name(may not be supported by all automation platforms)
     protected abstract View getView(String viewName);
 
+    // epoch counter handed to clients so they can invalidate cached results
+    // starts at the current time so a relaunched server never repeats an epoch from a previous run
+    private long epoch = System.currentTimeMillis();
+    private String lastStateSignature = null;
+
+    /**
+     * Returns a signature of the UI state that cached results depend on(ex: current activity, orientation)
+     * The epoch is bumped every time this changes.  Returning null disables epoch tracking
+     * @return
+     */
+    protected String getStateSignature() {
+        return null;
+    }
+
+    /**
+     * Compares the current state signature with the last one seen and bumps the epoch if it changed
+     * @return the current epoch
+     */
+    protected synchronized long updateEpoch() {
+        String signature = null;
+        try {
+            signature = getStateSignature();
+        } catch (Exception e) {
+            System.out.println("updateEpoch:: Could not get state signature: " + e.getMessage());
+        }
+
+        if (signature == null || !signature.equals(lastStateSignature)) {
+            epoch++;
+            lastStateSignature = signature;
+        }
+
+        return epoch;
+    }
+
+    /**
+     * Returns a writer for a GET endpoint whose body is streamed to the client as it is produced
+     * Returning null falls back to the standard endpoints
+     * @param uri - endpoint name(ex: hierarchy)
+     * @param params
+     * @return
+     * @throws Exception
+     */
+    protected NanoHTTPD.ContentWriter getStreamedContent(String uri, Properties params) throws Exception {
+        return null;
+    }
+
     public void startServer(int port) throws Exception {
         System.out.println("startServer:: Starting HTTP service");
         try
@@ -68,8 +114,8 @@ public abstract class RemoteServer {
     }
 
     public class RCHttpd extends NanoHTTPD {
-        private Object lastResponseObject = null;
-        private HashMap<String, Object> storedResponses = new HashMap<String, Object>();
+        // NanoHTTPD serves each connection on its own thread so clients can have several requests in flight
+        private Map<String, Object> storedResponses = Collections.synchronizedMap(new HashMap<String, Object>());
 
         public RCHttpd(int port) throws IOException {
             super(port, new File("/"));
@@ -83,6 +129,15 @@ public abstract class RemoteServer {
             if ( method.equalsIgnoreCase( Constants.NANO_POST )) {
                 msg = processPost(uri, parms).toString();
             } else if ( method.equalsIgnoreCase( Constants.NANO_GET )) {
+                try {
+                    NanoHTTPD.ContentWriter writer = getStreamedContent(uri, parms);
+                    if (writer != null)
+                        return new Response( HTTP_OK, MIME_DEFAULT_BINARY, writer );
+                } catch (Exception e) {
+                    System.out.println("serve:: Could not stream " + uri + ": " + e.getMessage());
+                    return new Response( HTTP_OK, MIME_HTML, getFailure(e.getMessage()) );
+                }
+
                 msg = processGet(uri, parms);
             } else {
                 // dunno what to do
@@ -105,6 +160,9 @@ public abstract class RemoteServer {
             // the idea here is that there may be multiple operations
             // each subsequent operation is called on the return value of the first operation
             Object currentClassObject = null;
+
+            // result of the previous operation, local to the request since requests are served concurrently
+            Object lastResponseObject = null;
             for (int x = 0; x < operations.length(); x++) {
                 JSONObject operation = operations.getJSONObject(x);
                 System.out.println("processOperations:: Current operation: " + operation);
@@ -129,6 +187,11 @@ public abstract class RemoteServer {
                     }
                 }
 
+                // a query names the object to work on so it starts a new chain, even in the middle of a request
+                if (query != null) {
+                    currentClassObject = null;
+                }
+
                 // restore stored item if this was a stored value
                 if (query != null && query.startsWith(Constants.STORED)) {
                     currentClassObject = storedResponses.get(query);
@@ -146,7 +209,7 @@ public abstract class RemoteServer {
                         Class c = Class.forName(query);
                         try {
                             // try instantiating.. if that doesn't work then it is probably a static class
-                            currentClassObject = instantiateClass(c, classArgs);
+                            currentClassObject = instantiateClass(c, classArgs, lastResponseObject);
                         } catch (Exception e) {
 
                         }
@@ -184,7 +247,7 @@ public abstract class RemoteServer {
                     Boolean callFailed = false;
 
                     try {
-                        funcReturn = runArbitraryMethod(currentClassObject, method, mArgs);
+                        funcReturn = runArbitraryMethod(currentClassObject, method, mArgs, lastResponseObject);
                     } catch (Exception e) {
                         // this means something went wrong trying to call the function
                         String msg = e.getMessage();
@@ -244,7 +307,11 @@ public abstract class RemoteServer {
                     storedResponses.put(Constants.STORED + operation.getString(Constants.REQUEST_STORE), lastResponseObject);
                 } else if (operation.has(Constants.REQUEST_REMOVE)) {
                     // remove the specified stored response
-                    storedResponses.remove(operation.getString(Constants.REQUEST_STORE));
+                    storedResponses.remove(Constants.STORED + operation.getString(Constants.REQUEST_REMOVE));
+
+                    // a request may consist of nothing but removals
+                    if (! returnObject.has(Constants.RESULT_OUTCOME))
+                        returnObject.put(Constants.RESULT_OUTCOME, Constants.RESULT_SUCCESS);
                 } else if (operation.has(Constants.REQUEST_RETRIEVE)) {
                     // retrieve a stored response
                     currentClassObject = storedResponses.get(Constants.STORED + operation.get(Constants.REQUEST_RETRIEVE));
@@ -257,6 +324,44 @@ public abstract class RemoteServer {
             return returnObject;
         }
 
+        /**
+         * Process a list of independent operation chains in order
+         * Processing stops at the first chain that fails and the index of that chain is returned
+         * @param batch - array of {"operations":[...]} objects
+         * @return results is an array with the results of each chain that was run
+         * @throws Exception
+         */
+        private JSONObject processBatch(JSONArray batch) throws Exception {
+            JSONObject returnObject = new JSONObject();
+            JSONArray results = new JSONArray();
+
+            for (int x = 0; x < batch.length(); x++) {
+                JSONObject chainResult;
+                try {
+                    chainResult = processOperations(batch.getJSONObject(x).getJSONArray(Constants.REQUEST_OPERATIONS));
+                } catch (Exception e) {
+                    chainResult = new JSONObject();
+                    chainResult.put(Constants.RESULT_OUTCOME, Constants.RESULT_FAILED);
+                    chainResult.put(Constants.RESULT_REASON, e.toString());
+                }
+
+                if (Constants.RESULT_FAILED.equals(chainResult.optString(Constants.RESULT_OUTCOME))) {
+                    returnObject.put(Constants.RESULT_OUTCOME, Constants.RESULT_FAILED);
+                    returnObject.put(Constants.RESULT_REASON, chainResult.optString(Constants.RESULT_REASON));
+                    returnObject.put(Constants.RESULT_FAILED_INDEX, x);
+                    returnObject.put(Constants.RESULT_RESULTS, results);
+                    return returnObject;
+                }
+
+                JSONArray chainValues = chainResult.optJSONArray(Constants.RESULT_RESULTS);
+                results.put(chainValues != null ? chainValues : new JSONArray());
+            }
+
+            returnObject.put(Constants.RESULT_OUTCOME, Constants.RESULT_SUCCESS);
+            returnObject.put(Constants.RESULT_RESULTS, results);
+            return returnObject;
+        }
+
         /**
          * Returns a JSONArray representing the return values of the call
          * @param returnItem
@@ -352,9 +457,10 @@ public abstract class RemoteServer {
          * Some arguments may be converted during the process
          * @param paramTypesToMatch
          * @param args
+         * @param lastResponseObject - result of the previous operation in the request, may be used for a parameter
          * @throws Exception
          */
-        private MatchAndConvert matchAndConvertArguments(Class<?>[] paramTypesToMatch, Object[] args) throws Exception {
+        private MatchAndConvert matchAndConvertArguments(Class<?>[] paramTypesToMatch, Object[] args, Object lastResponseObject) throws Exception {
             // return value
             MatchAndConvert matchReturn = new MatchAndConvert();
 
@@ -475,9 +581,11 @@ public abstract class RemoteServer {
         /**
          * Instantiate a class based on a found class and list of arguments
          * @param c
+         * @param args
+         * @param lastResponseObject
          * @return
          */
-        private Object instantiateClass(Class c, Object[] args) {
+        private Object instantiateClass(Class c, Object[] args, Object lastResponseObject) {
             Object instantiatedClass = null;
             Constructor constructorToInstantiate = null;
             Object[] argsToPass = new Object[args.length];
@@ -488,7 +596,7 @@ public abstract class RemoteServer {
                 } else {
                     for (Constructor constructor : c.getDeclaredConstructors()) {
                         if (constructor.getParameterTypes().length == args.length) {
-                            MatchAndConvert matchedData = matchAndConvertArguments(constructor.getParameterTypes(), args);
+                            MatchAndConvert matchedData = matchAndConvertArguments(constructor.getParameterTypes(), args, lastResponseObject);
                             if (constructorToInstantiate == null ||
                                     (constructorToInstantiate != null && !matchedData.convertedArguments)
                                     ) {
@@ -515,10 +623,11 @@ public abstract class RemoteServer {
          * @param classObject
          * @param methodName
          * @param args
+         * @param lastResponseObject
          * @return
          * @throws Exception
          */
-        private ArbitraryItemStruct runArbitraryMethod(Object classObject, String methodName, Object[] args) throws Exception {
+        private ArbitraryItemStruct runArbitraryMethod(Object classObject, String methodName, Object[] args, Object lastResponseObject) throws Exception {
             ArbitraryItemStruct methodResults = new ArbitraryItemStruct();
 
             // declare an array for the final arg list
@@ -538,7 +647,7 @@ public abstract class RemoteServer {
             for (Method method: methods) {
                 // try to match up the name, # args and method signature
                 if (method.getName().equals(methodName) && method.getParameterTypes().length == args.length) {
-                    MatchAndConvert matchedData = matchAndConvertArguments(method.getParameterTypes(), args);
+                    MatchAndConvert matchedData = matchAndConvertArguments(method.getParameterTypes(), args, lastResponseObject);
 
                     if (matchedData.matches == method.getParameterTypes().length) {
                         // the idea here is to find the best match
@@ -584,6 +693,9 @@ public abstract class RemoteServer {
             JSONObject returnVal = new JSONObject();
             try {
                 if (uri.equalsIgnoreCase(Constants.REQUEST_MAP)) {
+                    // pick up state changes that happened between requests
+                    updateEpoch();
+
                     JSONObject request = new JSONObject(params.getProperty(Constants.REQUEST));
 
                     // see if the request has an "operations" array
@@ -597,6 +709,16 @@ public abstract class RemoteServer {
                     }
 
                     returnVal = processOperations(operations);
+
+                    // the operations may have changed the state(ex: rotated the device)
+                    returnVal.put(Constants.RESULT_EPOCH, updateEpoch());
+                } else if (uri.equalsIgnoreCase(Constants.REQUEST_BATCH)) {
+                    updateEpoch();
+
+                    JSONObject request = new JSONObject(params.getProperty(Constants.REQUEST));
+                    returnVal = processBatch(request.getJSONArray(Constants.REQUEST_BATCH));
+
+                    returnVal.put(Constants.RESULT_EPOCH, updateEpoch());
                 } else {
                     // not sure what to do yet
                 }
@@ -608,6 +730,17 @@ public abstract class RemoteServer {
             return returnVal;
         }
 
+        private String getFailure(String reason) {
+            JSONObject returnObject = new JSONObject();
+            try {
+                returnObject.put(Constants.RESULT_OUTCOME, Constants.RESULT_FAILED);
+                returnObject.put(Constants.RESULT_REASON, reason);
+            } catch (Exception e) {
+            }
+
+            return returnObject.toString();
+        }
+
         private String processGet(String uri, Properties params) {
             String msg = "";
             JSONObject returnObject = new JSONObject();
@@ -615,6 +748,7 @@ public abstract class RemoteServer {
             try {
                 if (uri.equalsIgnoreCase(Constants.REQUEST_HEARTBEAT)) {
                     returnObject.put(Constants.RESULT_OUTCOME, Constants.RESULT_SUCCESS);
+                    returnObject.put(Constants.RESULT_EPOCH, updateEpoch());
                 } else {
                     returnObject.put(Constants.RESULT_OUTCOME, Constants.RESULT_FAILED);
                 }
@@ -0,0 +1,111 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteservercommon.gesture;
+
+import android.os.SystemClock;
+import android.view.InputDevice;
+import android.view.MotionEvent;
+
+/**
+ * Plays a GestureScript back on the device
+ * Timing is kept on the device so network latency never lands between the steps of a gesture.  Each frame is
+ * injected at its offset from the start of the gesture and carries that time as its event time.
+ */
+public abstract class GesturePlayer {
+    /**
+     * Injects a motion event and waits until it has been dispatched
+     * @param event
+     * @throws Exception
+     */
+    protected abstract void inject(MotionEvent event) throws Exception;
+
+    /**
+     * Plays a gesture
+     * @param script - see GestureScript for the format
+     * @return the largest number of ms a frame was injected after its scheduled time
+     * @throws Exception
+     */
+    public long play(String script) throws Exception {
+        return play(GestureScript.parse(script));
+    }
+
+    /**
+     * Plays a gesture
+     * @param gesture
+     * @return the largest number of ms a frame was injected after its scheduled time
+     * @throws Exception
+     */
+    public long play(GestureScript gesture) throws Exception {
+        long downTime = SystemClock.uptimeMillis();
+        long maxLateness = 0;
+
+        for (GestureScript.Frame frame : gesture.getFrames()) {
+            long eventTime = downTime + frame.time;
+
+            long wait = eventTime - SystemClock.uptimeMillis();
+            if (wait > 0)
+                Thread.sleep(wait);
+            else
+                maxLateness = Math.max(maxLateness, -wait);
+
+            MotionEvent event = toMotionEvent(frame, downTime, eventTime);
+            try {
+                inject(event);
+            } finally {
+                event.recycle();
+            }
+        }
+
+        return maxLateness;
+    }
+
+    private MotionEvent toMotionEvent(GestureScript.Frame frame, long downTime, long eventTime) {
+        int pointerCount = frame.pointerIds.length;
+        MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[pointerCount];
+
+        for (int x = 0; x < pointerCount; x++) {
+            coords[x] = new MotionEvent.PointerCoords();
+            coords[x].x = frame.x[x];
+            coords[x].y = frame.y[x];
+            coords[x].pressure = 1;
+            coords[x].size = 1;
+        }
+
+        int action = frame.action;
+        if (action == GestureScript.ACTION_POINTER_DOWN || action == GestureScript.ACTION_POINTER_UP)
+            action |= frame.actionIndex << MotionEvent.ACTION_POINTER_INDEX_SHIFT;
+
+        return MotionEvent.obtain(downTime, eventTime, action, pointerCount, frame.pointerIds, coords,
+                0, 1, 1, 0, 0, InputDevice.SOURCE_TOUCHSCREEN, 0);
+    }
+}
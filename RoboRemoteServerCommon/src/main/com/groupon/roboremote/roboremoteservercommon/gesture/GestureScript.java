@@ -0,0 +1,236 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremoteservercommon.gesture;
+
+import org.json.JSONArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A multi pointer touch sequence compiled into the motion events that play it back
+ *
+ * Scripts are a JSON array of events, each of which is [time, action, pointer, x, y]:
+ * time - ms since the start of the gesture
+ * action - down, move or up(x and y can be left out of up)
+ * pointer - id of the finger, 0 for the first one
+ *
+ * ex: a pinch in
+ * [[0,"down",0,300,500],[0,"down",1,700,500],[100,"move",0,400,500],[100,"move",1,600,500],[120,"up",0],[120,"up",1]]
+ *
+ * Moves of several pointers at the same time are merged into one motion event
+ */
+public class GestureScript {
+    // these match the MotionEvent action constants so frames can be turned into events directly
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_UP = 1;
+    public static final int ACTION_MOVE = 2;
+    public static final int ACTION_POINTER_DOWN = 5;
+    public static final int ACTION_POINTER_UP = 6;
+
+    public static final int MAX_EVENTS = 20000;
+    public static final long MAX_DURATION = 60000;
+
+    /**
+     * The state of every pointer that is down when a motion event is sent
+     */
+    public static class Frame {
+        public final long time;
+        public final int action;
+
+        // index in pointerIds of the pointer going down or up
+        public final int actionIndex;
+        public final int[] pointerIds;
+        public final float[] x;
+        public final float[] y;
+
+        Frame(long time, int action, int actionIndex, Map<Integer, float[]> pointers) {
+            this.time = time;
+            this.action = action;
+            this.actionIndex = actionIndex;
+            this.pointerIds = new int[pointers.size()];
+            this.x = new float[pointers.size()];
+            this.y = new float[pointers.size()];
+
+            int index = 0;
+            for (Map.Entry<Integer, float[]> pointer : pointers.entrySet()) {
+                pointerIds[index] = pointer.getKey();
+                x[index] = pointer.getValue()[0];
+                y[index] = pointer.getValue()[1];
+                index++;
+            }
+        }
+    }
+
+    private static class Event {
+        final long time;
+        final String action;
+        final int pointer;
+        final float[] position;
+
+        Event(long time, String action, int pointer, float[] position) {
+            this.time = time;
+            this.action = action;
+            this.pointer = pointer;
+            this.position = position;
+        }
+    }
+
+    private final List<Frame> frames = new ArrayList<Frame>();
+
+    private GestureScript() {
+    }
+
+    /**
+     * Parses and validates a script
+     * @param script
+     * @return
+     * @throws Exception if the script is malformed or leaves a pointer down
+     */
+    public static GestureScript parse(String script) throws Exception {
+        JSONArray array = new JSONArray(script);
+        if (array.length() > MAX_EVENTS)
+            throw new Exception("Gesture has more than " + MAX_EVENTS + " events");
+
+        List<Event> events = new ArrayList<Event>(array.length());
+        for (int x = 0; x < array.length(); x++) {
+            JSONArray item = array.getJSONArray(x);
+            long time = item.getLong(0);
+            String action = item.getString(1);
+            int pointer = item.getInt(2);
+            float[] position = item.length() >= 5 ? new float[] {(float) item.getDouble(3), (float) item.getDouble(4)} : null;
+
+            if (time < 0 || time > MAX_DURATION)
+                throw new Exception("Gesture event " + x + " is outside of 0-" + MAX_DURATION + "ms");
+            if (! action.equals("down") && ! action.equals("move") && ! action.equals("up"))
+                throw new Exception("Gesture event " + x + " has an unknown action: " + action);
+            if (position == null && ! action.equals("up"))
+                throw new Exception("Gesture event " + x + " needs a position");
+
+            events.add(new Event(time, action, pointer, position));
+        }
+
+        // stable so events at the same time keep their order
+        Collections.sort(events, new Comparator<Event>() {
+            public int compare(Event a, Event b) {
+                return a.time < b.time ? -1 : (a.time == b.time ? 0 : 1);
+            }
+        });
+
+        GestureScript gesture = new GestureScript();
+        gesture.compile(events);
+        return gesture;
+    }
+
+    /**
+     * Turns events into frames.  At each point in time pointers go down first, then every move becomes
+     * one frame and pointers go up last
+     * @param events
+     * @throws Exception
+     */
+    private void compile(List<Event> events) throws Exception {
+        // pointers that are down keyed by id, ordered by id like MotionEvent pointer indexes
+        TreeMap<Integer, float[]> pointers = new TreeMap<Integer, float[]>();
+
+        int start = 0;
+        while (start < events.size()) {
+            long time = events.get(start).time;
+            int end = start;
+            while (end < events.size() && events.get(end).time == time)
+                end++;
+
+            List<Event> group = events.subList(start, end);
+
+            for (Event event : group) {
+                if (! event.action.equals("down"))
+                    continue;
+                if (pointers.containsKey(event.pointer))
+                    throw new Exception("Pointer " + event.pointer + " is already down at " + time + "ms");
+
+                pointers.put(event.pointer, event.position);
+                frames.add(new Frame(time, pointers.size() == 1 ? ACTION_DOWN : ACTION_POINTER_DOWN,
+                        pointers.headMap(event.pointer).size(), pointers));
+            }
+
+            boolean moved = false;
+            for (Event event : group) {
+                if (! event.action.equals("move"))
+                    continue;
+                if (! pointers.containsKey(event.pointer))
+                    throw new Exception("Pointer " + event.pointer + " is not down at " + time + "ms");
+
+                pointers.put(event.pointer, event.position);
+                moved = true;
+            }
+            if (moved)
+                frames.add(new Frame(time, ACTION_MOVE, 0, pointers));
+
+            for (Event event : group) {
+                if (! event.action.equals("up"))
+                    continue;
+                if (! pointers.containsKey(event.pointer))
+                    throw new Exception("Pointer " + event.pointer + " is not down at " + time + "ms");
+
+                if (event.position != null)
+                    pointers.put(event.pointer, event.position);
+
+                // the pointer going up is still part of its up event
+                frames.add(new Frame(time, pointers.size() == 1 ? ACTION_UP : ACTION_POINTER_UP,
+                        pointers.headMap(event.pointer).size(), pointers));
+                pointers.remove(event.pointer);
+            }
+
+            start = end;
+        }
+
+        if (! pointers.isEmpty())
+            throw new Exception("Gesture leaves pointers " + Arrays.toString(pointers.keySet().toArray()) + " down");
+    }
+
+    public List<Frame> getFrames() {
+        return Collections.unmodifiableList(frames);
+    }
+
+    /**
+     * Returns the time of the last frame
+     * @return
+     */
+    public long getDuration() {
+        return frames.isEmpty() ? 0 : frames.get(frames.size() - 1).time;
+    }
+}
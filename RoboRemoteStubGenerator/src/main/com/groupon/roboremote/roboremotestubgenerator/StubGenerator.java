@@ -0,0 +1,361 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.roboremotestubgenerator;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a typed client stub class from the public methods of a remote class(ex: Robotium's Solo or UiDevice)
+ *
+ * Each generated method calls the remote method through a RequestTemplate constant so the query, method name
+ * and JSON keys are encoded once and only the arguments are encoded per call.
+ *
+ * Parameter types are mapped to what can be sent over the wire: primitives, boxed primitives and Strings as is,
+ * Class and View parameters as Strings(class names, view identifiers or stored values).
+ * Methods with any other parameter type are skipped.
+ * Return values are mapped to primitives, String, String[] for arrays, ArrayList&lt;String&gt; for collections and
+ * String(the remote toString) for everything else.
+ *
+ * Usage: StubGenerator --class &lt;remote class&gt; --query &lt;query&gt; --package &lt;stub package&gt; --name &lt;stub class&gt;
+ *                      --client &lt;client class&gt; --output &lt;source directory&gt; [--exclude method,...]
+ */
+public class StubGenerator {
+    private static final String VIEW_CLASS = "android.view.View";
+
+    private final Class<?> remoteClass;
+    private final String query;
+    private final String stubPackage;
+    private final String stubName;
+    private final String clientClass;
+    private final Set<String> excluded = new HashSet<String>();
+
+    public StubGenerator(Class<?> remoteClass, String query, String stubPackage, String stubName, String clientClass) {
+        this.remoteClass = remoteClass;
+        this.query = query;
+        this.stubPackage = stubPackage;
+        this.stubName = stubName;
+        this.clientClass = clientClass;
+    }
+
+    /**
+     * Methods with this name are not generated
+     * @param methodName
+     */
+    public void exclude(String methodName) {
+        excluded.add(methodName);
+    }
+
+    /**
+     * A remote method mapped to stub types
+     */
+    private static class StubMethod {
+        final String name;
+        final String[] parameterTypes;
+        final ReturnMapping returnMapping;
+
+        StubMethod(String name, String[] parameterTypes, ReturnMapping returnMapping) {
+            this.name = name;
+            this.parameterTypes = parameterTypes;
+            this.returnMapping = returnMapping;
+        }
+
+        String signature() {
+            return name + Arrays.toString(parameterTypes);
+        }
+
+        String templateName() {
+            StringBuilder constant = new StringBuilder();
+            for (char c: name.toCharArray()) {
+                if (Character.isUpperCase(c) && constant.length() > 0) {
+                    constant.append('_');
+                }
+                constant.append(Character.toUpperCase(c));
+            }
+            return constant.append('_').append(parameterTypes.length).toString();
+        }
+    }
+
+    /**
+     * Stub return type and the ResultHandler that produces it
+     */
+    private enum ReturnMapping {
+        VOID("void", null),
+        BOOLEAN("boolean", "ResultHandler.booleanValue()"),
+        INT("int", "ResultHandler.intValue()"),
+        LONG("long", "ResultHandler.longValue()"),
+        FLOAT("float", "ResultHandler.doubleValue()"),
+        DOUBLE("double", "ResultHandler.doubleValue()"),
+        STRING("String", "ResultHandler.stringValue()"),
+        STRING_ARRAY("String[]", "ResultHandler.stringArray()"),
+        STRING_LIST("ArrayList<String>", "ResultHandler.stringList()");
+
+        final String type;
+        final String handler;
+
+        ReturnMapping(String type, String handler) {
+            this.type = type;
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * @param type
+     * @return the stub parameter type or null if the type can not be sent
+     */
+    static String mapParameter(Class<?> type) {
+        if (type.isPrimitive() && type != void.class) {
+            return type.getName();
+        }
+        if (type == String.class || type == CharSequence.class || type == Class.class || isView(type)) {
+            return "String";
+        }
+        if (type == Integer.class || type == Long.class || type == Short.class || type == Byte.class ||
+                type == Float.class || type == Double.class || type == Boolean.class) {
+            return type.getSimpleName();
+        }
+        return null;
+    }
+
+    static ReturnMapping mapReturn(Class<?> type) {
+        if (type == void.class) {
+            return ReturnMapping.VOID;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return ReturnMapping.BOOLEAN;
+        }
+        if (type == int.class || type == Integer.class || type == short.class || type == Short.class ||
+                type == byte.class || type == Byte.class) {
+            return ReturnMapping.INT;
+        }
+        if (type == long.class || type == Long.class) {
+            return ReturnMapping.LONG;
+        }
+        if (type == float.class || type == Float.class) {
+            return ReturnMapping.FLOAT;
+        }
+        if (type == double.class || type == Double.class) {
+            return ReturnMapping.DOUBLE;
+        }
+        if (type.isArray()) {
+            return ReturnMapping.STRING_ARRAY;
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return ReturnMapping.STRING_LIST;
+        }
+        return ReturnMapping.STRING;
+    }
+
+    private static boolean isView(Class<?> type) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            if (c.getName().equals(VIEW_CLASS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the methods that will be generated sorted by name and parameter count
+     */
+    private List<StubMethod> collectMethods() {
+        Method[] methods = remoteClass.getMethods();
+        Arrays.sort(methods, new Comparator<Method>() {
+            public int compare(Method a, Method b) {
+                int result = a.getName().compareTo(b.getName());
+                if (result != 0) {
+                    return result;
+                }
+                result = a.getParameterTypes().length - b.getParameterTypes().length;
+                if (result != 0) {
+                    return result;
+                }
+                return Arrays.toString(a.getParameterTypes()).compareTo(Arrays.toString(b.getParameterTypes()));
+            }
+        });
+
+        // overloads that map to the same stub signature(ex: getView(Class, int) and getView(String, int)) are generated once
+        Map<String, StubMethod> stubs = new LinkedHashMap<String, StubMethod>();
+        for (Method method: methods) {
+            if (method.getDeclaringClass() == Object.class || Modifier.isStatic(method.getModifiers()) ||
+                    excluded.contains(method.getName())) {
+                continue;
+            }
+
+            Class<?>[] parameters = method.getParameterTypes();
+            String[] parameterTypes = new String[parameters.length];
+            boolean supported = true;
+            for (int x = 0; x < parameters.length && supported; x++) {
+                parameterTypes[x] = mapParameter(parameters[x]);
+                supported = parameterTypes[x] != null;
+            }
+            if (!supported) {
+                continue;
+            }
+
+            StubMethod stub = new StubMethod(method.getName(), parameterTypes, mapReturn(method.getReturnType()));
+            if (!stubs.containsKey(stub.signature())) {
+                stubs.put(stub.signature(), stub);
+            }
+        }
+
+        return new ArrayList<StubMethod>(stubs.values());
+    }
+
+    /**
+     * Writes the stub source
+     * @param out
+     * @throws Exception
+     */
+    public void generate(Writer out) throws Exception {
+        List<StubMethod> methods = collectMethods();
+
+        out.write("// Generated by StubGenerator from " + remoteClass.getName() + ". Do not edit.\n");
+        out.write("package " + stubPackage + ";\n\n");
+        out.write("import com.groupon.roboremote.roboremoteclientcommon.RequestTemplate;\n");
+        out.write("import com.groupon.roboremote.roboremoteclientcommon.ResultHandler;\n");
+        if (!clientClass.substring(0, clientClass.lastIndexOf('.')).equals(stubPackage)) {
+            out.write("import " + clientClass + ";\n");
+        }
+        out.write("\nimport java.util.ArrayList;\n\n");
+
+        out.write("/**\n");
+        out.write(" * Typed calls to " + remoteClass.getName() + " through the \"" + query + "\" query\n");
+        out.write(" */\n");
+        out.write("public class " + stubName + " {\n");
+        out.write("    public static final String QUERY = \"" + query + "\";\n\n");
+
+        // one template per method name and arity
+        Set<String> templates = new HashSet<String>();
+        for (StubMethod method: methods) {
+            if (templates.add(method.templateName())) {
+                out.write("    private static final RequestTemplate " + method.templateName() +
+                        " = new RequestTemplate(QUERY, \"" + method.name + "\", " + method.parameterTypes.length + ");\n");
+            }
+        }
+
+        for (StubMethod method: methods) {
+            out.write("\n    public static " + method.returnMapping.type + " " + method.name + "(");
+            StringBuilder arguments = new StringBuilder();
+            for (int x = 0; x < method.parameterTypes.length; x++) {
+                if (x > 0) {
+                    out.write(", ");
+                }
+                out.write(method.parameterTypes[x] + " arg" + x);
+                arguments.append(", arg").append(x);
+            }
+            out.write(") throws Exception {\n");
+
+            String client = clientClass.substring(clientClass.lastIndexOf('.') + 1) + ".getInstance()";
+            switch (method.returnMapping) {
+                case VOID:
+                    out.write("        " + client + ".mapVoid(" + method.templateName() + arguments + ");\n");
+                    break;
+                case FLOAT:
+                    out.write("        return (float)" + client + ".map(" + method.templateName() + ", " +
+                            method.returnMapping.handler + arguments + ").doubleValue();\n");
+                    break;
+                default:
+                    out.write("        return " + client + ".map(" + method.templateName() + ", " +
+                            method.returnMapping.handler + arguments + ");\n");
+                    break;
+            }
+            out.write("    }\n");
+        }
+
+        out.write("}\n");
+    }
+
+    /**
+     * Writes the stub source into a source directory
+     * @param sourceDirectory
+     * @return the generated file
+     * @throws Exception
+     */
+    public File generate(File sourceDirectory) throws Exception {
+        File directory = new File(sourceDirectory, stubPackage.replace('.', File.separatorChar));
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new Exception("Could not create " + directory);
+        }
+
+        File file = new File(directory, stubName + ".java");
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            generate(out);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<String, String>();
+        for (int x = 0; x + 1 < args.length; x += 2) {
+            options.put(args[x], args[x + 1]);
+        }
+
+        for (String required: new String[] {"--class", "--query", "--package", "--name", "--client", "--output"}) {
+            if (!options.containsKey(required)) {
+                throw new Exception("Missing " + required + "\nUsage: StubGenerator --class <remote class> --query <query> " +
+                        "--package <stub package> --name <stub class> --client <client class> --output <source directory> [--exclude method,...]");
+            }
+        }
+
+        // only the signatures are needed so the class is not initialized(android stub jars throw from static initializers)
+        Class<?> remoteClass = Class.forName(options.get("--class"), false, StubGenerator.class.getClassLoader());
+        StubGenerator generator = new StubGenerator(remoteClass, options.get("--query"), options.get("--package"),
+                options.get("--name"), options.get("--client"));
+
+        if (options.containsKey("--exclude")) {
+            for (String methodName: options.get("--exclude").split(",")) {
+                generator.exclude(methodName.trim());
+            }
+        }
+
+        File file = generator.generate(new File(options.get("--output")));
+        System.out.println("StubGenerator:: Wrote " + file);
+    }
+}
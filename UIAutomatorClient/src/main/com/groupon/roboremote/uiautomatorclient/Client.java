@@ -32,19 +32,23 @@
 
 package com.groupon.roboremote.uiautomatorclient;
 
-public class Client extends com.groupon.roboremote.roboremoteclientcommon.Client {
-    private static Client instance = null;
+import com.groupon.roboremote.roboremoteclientcommon.Batch;
 
+public class Client extends com.groupon.roboremote.roboremoteclientcommon.Client {
     /**
-     * Gets a client instance on the uiautomator port
+     * Gets the shared client on the uiautomator port
      * @return
      */
-    public static Client getInstance() {
-        if(instance == null) {
-            instance = new Client();
-        }
+    public static com.groupon.roboremote.roboremoteclientcommon.Client getInstance() {
+        return getInstance(TestBase.getAutomatorPort());
+    }
 
-        instance.API_PORT = TestBase.getAutomatorPort();
-        return instance;
+    /**
+     * Opens a batch for void calls on the uiautomator port
+     * @return
+     * @throws Exception
+     */
+    public static Batch batch() throws Exception {
+        return getInstance().openBatch();
     }
 }
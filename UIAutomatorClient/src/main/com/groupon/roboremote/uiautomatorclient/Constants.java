@@ -35,4 +35,6 @@ package com.groupon.roboremote.uiautomatorclient;
 public class Constants {
     // robotium constants
     public static final String UIAUTOMATOR_UIDEVICE = "getUiDevice";
+    public static final String UIAUTOMATOR_CHILD_ENUMERATOR = "getChildEnumerator";
+    public static final String UIAUTOMATOR_GESTURE_INJECTOR = "getGestureInjector";
 }
@@ -32,9 +32,44 @@
 
 package com.groupon.roboremote.uiautomatorclient;
 
+import com.groupon.roboremote.roboremoteclientcommon.Client;
+import com.groupon.roboremote.roboremoteclientcommon.Constants;
+import com.groupon.roboremote.roboremoteclientcommon.RequestEncoder;
+import com.groupon.roboremote.roboremoteclientcommon.ResultCache;
+import com.groupon.roboremote.roboremoteclientcommon.ResultHandler;
+import com.groupon.roboremote.uiautomatorclient.components.ObjectReleaser;
+
+import java.util.List;
+
 public class QueryBuilder extends com.groupon.roboremote.roboremoteclientcommon.QueryBuilder {
     // Returns a QueryBuilder on the UIAutomator port
     public QueryBuilder() {
         super(TestBase.getAutomatorPort());
     }
+
+    // stored objects that were released since the last request are removed at the start of the request being sent
+    // the removals are queued again if the request fails
+    @Override
+    protected <T> T send(Client client, RequestEncoder request, String chain, ResultHandler<T> handler) throws Exception {
+        // cached results are looked up by the request so removals are left for a request that is not cached
+        if (ResultCache.isPure(chain))
+            return super.send(client, request, chain, handler);
+
+        List<String> removals = ObjectReleaser.takePendingRemovals(client.getPort());
+        if (removals.isEmpty())
+            return super.send(client, request, chain, handler);
+
+        RequestEncoder withRemovals = new RequestEncoder();
+        for (String storedId : removals) {
+            withRemovals.addKeyValue(Constants.REQUEST_REMOVE, storedId);
+        }
+        withRemovals.addOperations(request);
+
+        try {
+            return super.send(client, withRemovals, chain, handler);
+        } catch (Exception e) {
+            ObjectReleaser.requeueRemovals(client.getPort(), removals);
+            throw e;
+        }
+    }
 }
@@ -36,10 +36,14 @@ import com.android.ddmlib.MultiLineReceiver;
 import com.groupon.roboremote.Constants;
 import com.groupon.roboremote.roboremoteclientcommon.DebugBridge;
 import com.groupon.roboremote.roboremoteclientcommon.Device;
+import com.groupon.roboremote.roboremoteclientcommon.DeviceContext;
+import com.groupon.roboremote.roboremoteclientcommon.DeviceSession;
+import com.groupon.roboremote.roboremoteclientcommon.FrameSampler;
 import com.groupon.roboremote.roboremoteclientcommon.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.groupon.roboremote.roboremoteclientcommon.logging.*;
+import com.groupon.roboremote.roboremoteclientcommon.replay.ReplayServer;
 
 import java.io.File;
 import java.lang.Exception;
@@ -55,15 +59,21 @@ public class TestBase {
     static AppThread ap = null;
     static int _automator_port = Constants.UIAUTOMATOR_SERVER_PORT;
     static boolean isStarted = false;
+    private static final String STARTED_ATTRIBUTE = TestBase.class.getName() + ".started";
+    private static final String APP_THREAD_ATTRIBUTE = TestBase.class.getName() + ".appThread";
 
     public static void onFailure() throws Exception {
+        // there is no device to take a screenshot of when replaying
+        if (ReplayServer.isReplaying())
+            return;
+
         logger.warn("com.groupon.roboremote.uiautomatorclient.TestBase::OnFailure:: Taking screenshot");
-        DebugBridge.get().getScreenShot("FAILURE.png");
-        Device.storeFailurePng();
+        Device.storeFailureFrames();
+        Device.storeFailureScreenshot();
     }
 
     public static void setUp(String testName) throws Exception {
-        setUp(testName, true, _automator_port);
+        setUp(testName, true, getAutomatorPort());
     }
 
     public static void setUp(String testName, int port) throws Exception {
@@ -75,15 +85,26 @@ public class TestBase {
      * @param clearAppData - true if you want app data cleared, false otherwise
      */
     public static void setUp(String testName, Boolean clearAppData, int port) throws Exception {
-        // another port may have been passed in for use
-        _automator_port = port;
+        // another port may have been passed in for use, a device context brings its own
+        if (DeviceContext.current() == null)
+            _automator_port = port;
+
+        // when replaying a recording the recorded responses stand in for the device and automator
+        if (ReplayServer.isReplaying()) {
+            logger.info("Replaying test {}", testName);
+            Utils.setTestName(testName);
+            Device.setupLogDirectories();
+
+            ReplayServer.startFromEnvironment(getAutomatorPort());
+            return;
+        }
 
         if (_automator_jars == null)
             setAppEnvironmentVariables();
 
         // only do the following if isStarted==false OR the client is not already listening
         // this allows a client that overrides this class to safely call setUp multiple times without destroying logs
-        if (!isStarted || !Client.getInstance().isListening()) {
+        if (!isStarted() || !Client.getInstance().isListening()) {
             logger.info("Starting test {}", testName);
             Utils.setTestName(testName);
             Device.setupLogDirectories();
@@ -104,7 +125,10 @@ public class TestBase {
 
             TestLogger.get().info("Starting logcat");
             DebugBridge.get().startLogListener(System.getProperty("java.io.tmpdir") +
-                    File.separator + "adb_uiauto.log");
+                    File.separator + Device.getTempLogName("adb_uiauto.log"));
+
+            if (FrameSampler.isEnabled())
+                DebugBridge.get().startFrameSampler();
 
             // set up logger
             EmSingleton.intialize();
@@ -117,7 +141,7 @@ public class TestBase {
             // start app
             startApp();
 
-            isStarted = true;
+            setStarted(true);
         }
     }
 
@@ -126,11 +150,60 @@ public class TestBase {
      * @return
      */
     public static int getAutomatorPort() {
+        DeviceContext context = DeviceContext.current();
+        if (context != null)
+            return context.getUiAutomatorPort();
+
         return _automator_port;
     }
 
+    /**
+     * Gets whether setUp started the automator for the device of the calling thread
+     * @return
+     */
+    private static boolean isStarted() {
+        DeviceContext context = DeviceContext.current();
+        if (context != null)
+            return Boolean.TRUE.equals(context.getAttribute(STARTED_ATTRIBUTE));
+
+        return isStarted;
+    }
+
+    private static void setStarted(boolean started) {
+        DeviceContext context = DeviceContext.current();
+        if (context != null)
+            context.setAttribute(STARTED_ATTRIBUTE, started);
+        else
+            isStarted = started;
+    }
+
+    /**
+     * Gets the thread running uiautomator for the device of the calling thread
+     * @return
+     */
+    private static AppThread getAppThread() {
+        DeviceContext context = DeviceContext.current();
+        if (context != null)
+            return (AppThread) context.getAttribute(APP_THREAD_ATTRIBUTE);
+
+        return ap;
+    }
+
+    private static void setAppThread(AppThread appThread) {
+        DeviceContext context = DeviceContext.current();
+        if (context != null)
+            context.setAttribute(APP_THREAD_ATTRIBUTE, appThread);
+        else
+            ap = appThread;
+    }
+
     // This is called in the failure method override above
     public void tearDown() throws Exception {
+        if (ReplayServer.isReplaying()) {
+            Device.storeClientMetrics();
+            return;
+        }
+
         try
         {
             EmSingleton.get().close();
@@ -139,14 +212,16 @@ public class TestBase {
             // stop logcat
             TestLogger.get().info("Stopping logcat");
             DebugBridge.get().stopLogListener();
+            DebugBridge.get().stopFrameSampler();
 
             // store logs
-            Device.storeLogs("adb_uiauto.log", "uiauto.log");
+            Device.storeLogs(Device.getTempLogName("adb_uiauto.log"), "uiauto.log");
+            Device.storeClientMetrics();
         } catch (Exception e) {
 
         } finally {
             DebugBridge.get().close();
-            isStarted = false;
+            setStarted(false);
         }
     }
 
@@ -187,8 +262,9 @@ public class TestBase {
     }
 
     public static void startApp() throws Exception {
-        ap = new AppThread();
-        ap.start();
+        AppThread appThread = new AppThread();
+        setAppThread(appThread);
+        appThread.start();
 
         for (int x = 0; x < 10; x++) {
             // try to make a query.. if it doesnt work then sleep
@@ -212,10 +288,11 @@ public class TestBase {
         }
 
         // shut down the thread
-        if (ap != null) {
-            ap.close();
-            ap.interrupt();
-            ap = null;
+        AppThread appThread = getAppThread();
+        if (appThread != null) {
+            appThread.close();
+            appThread.interrupt();
+            setAppThread(null);
         }
 
         // wait for the server to be dead
@@ -267,12 +344,20 @@ public class TestBase {
      */
     private static class AppThread extends Thread {
         MultiReceiver _receiver = null;
+        // looked up on the thread that starts the app since its DeviceContext is not inherited
+        private final DeviceSession session;
+        private final int port;
+
+        public AppThread() throws Exception {
+            session = DebugBridge.get().getSession();
+            port = getAutomatorPort();
+        }
 
         public void run() {
             _receiver = new MultiReceiver();
             try {
                 // create adb tunnel
-                DebugBridge.get().createTunnel(_automator_port, _automator_port);
+                session.createTunnel(port, port);
 
                 // build jar list
                 String jarList = "";
@@ -281,9 +366,9 @@ public class TestBase {
                 }
 
                 // run uiautomator
-                String uiAutomatorCommand = "uiautomator runtest " + jarList + "-c com.groupon.roboremote.uiautomatorserver.RemoteTest -e port " + _automator_port;
+                String uiAutomatorCommand = "uiautomator runtest " + jarList + "-c com.groupon.roboremote.uiautomatorserver.RemoteTest -e port " + port;
                 logger.info("Executing: {}", uiAutomatorCommand);
-                DebugBridge.get().runShellCommand(uiAutomatorCommand, _receiver, 0);
+                session.runShellCommand(uiAutomatorCommand, _receiver, 0);
             } catch (Exception e) {
 
             }
@@ -35,18 +35,117 @@ package com.groupon.roboremote.uiautomatorclient.components;
 import com.groupon.roboremote.uiautomatorclient.QueryBuilder;
 import org.json.JSONArray;
 
-public class BaseObject {
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class BaseObject implements Closeable {
     String storedId;
+    private ObjectReleaser.StoredReference reference = null;
+
+    // false until the operations that create this object on the server have been sent successfully
+    private boolean created = true;
 
     protected BaseObject() throws Exception {
     }
 
     /**
-     * Creates a new object based on the storedId of an object
+     * Creates a new object based on the storedId of an object(ex: the last result of another object)
+     * The stored value stays on the server until both this object and the object that owns it are released
+     * The last result of this object is owned by this object
      * @param storedId
      */
     public BaseObject(String storedId) {
         this.storedId = storedId;
+        reference = ObjectReleaser.borrow(this, storedId, "LAST_" + storedId);
+    }
+
+    /**
+     * Creates a stored ID owned by this object
+     * The stored value and the last result are removed from the server when this object is closed or collected
+     * @return
+     */
+    protected String createStoredId() {
+        storedId = UUID.randomUUID().toString();
+        reference = ObjectReleaser.track(this, storedId, "LAST_" + storedId);
+        return storedId;
+    }
+
+    /**
+     * Defers creating this object on the server until it is first used
+     * The creation is then sent as part of the request that uses it(see addCreateOperations)
+     */
+    protected void deferCreation() {
+        created = false;
+    }
+
+    /**
+     * Adds the operations that create this object to a request
+     * The stored value of this object is set by the caller once they have been added
+     * @param builder
+     * @throws Exception
+     */
+    protected void addCreateOperations(QueryBuilder builder) throws Exception {
+    }
+
+    /**
+     * Returns objects that have to exist on the server before this one can be created
+     * @return
+     */
+    protected BaseObject[] getDependencies() {
+        return new BaseObject[0];
+    }
+
+    /**
+     * Adds the creation of this object and anything it depends on to a request if it does not exist on the server yet
+     * @param builder
+     * @param pending - objects whose creation is part of the request
+     * @throws Exception
+     */
+    void addCreation(QueryBuilder builder, List<BaseObject> pending) throws Exception {
+        if (created || pending.contains(this))
+            return;
+
+        for (BaseObject dependency : getDependencies()) {
+            dependency.addCreation(builder, pending);
+        }
+
+        addCreateOperations(builder);
+        builder.storeResult(storedId);
+        pending.add(this);
+    }
+
+    /**
+     * Executes a request that may create objects and marks them as created when it succeeds
+     * If the request fails they are created again by the next request that uses them
+     * @param builder
+     * @param pending
+     * @return
+     * @throws Exception
+     */
+    static JSONArray execute(QueryBuilder builder, List<BaseObject> pending) throws Exception {
+        JSONArray results = builder.execute();
+
+        for (BaseObject object : pending) {
+            object.created = true;
+        }
+
+        return results;
+    }
+
+    /**
+     * Creates this object on the server now if its creation was deferred
+     * @throws Exception
+     */
+    protected void create() throws Exception {
+        if (created)
+            return;
+
+        List<BaseObject> pending = new ArrayList<BaseObject>();
+        QueryBuilder builder = new QueryBuilder();
+        addCreation(builder, pending);
+        execute(builder, pending);
     }
 
     // returns the stored ID for other operations to use
@@ -54,15 +153,132 @@ public class BaseObject {
         return storedId;
     }
 
+    /**
+     * Frees the stored values of this object on the server once no other object holds them
+     * The removal is sent with the next request
+     */
+    public void close() {
+        if (reference != null)
+            ObjectReleaser.release(reference);
+    }
+
     /**
      * Call a function on this object
+     * Objects that have not been created on the server yet, including BaseObjects passed as arguments, are created in the same request
      * @param method
      * @param args
      * @return
      * @throws Exception
      */
     protected JSONArray callMethod(String method, Object ... args) throws Exception {
-        return new QueryBuilder().retrieveResult(storedId).call(method, args).storeResult("LAST_" + getStoredId()).execute();
+        return callAndStore(method, "LAST_" + getStoredId(), args);
+    }
+
+    /**
+     * Call a function on this object and store the result
+     * @param method
+     * @param resultId - stored ID for the result or null if it should not be stored
+     * @param args
+     * @return
+     * @throws Exception
+     */
+    JSONArray callAndStore(String method, String resultId, Object ... args) throws Exception {
+        List<BaseObject> pending = new ArrayList<BaseObject>();
+        QueryBuilder builder = new QueryBuilder();
+        addCreation(builder, pending);
+
+        Object[] arguments = resolveArguments(builder, pending, args);
+
+        builder.retrieveResult(storedId).call(method, arguments);
+        if (resultId != null)
+            builder.storeResult(resultId);
+
+        return execute(builder, pending);
+    }
+
+    /**
+     * Call a function on a server side helper with this object as the first argument
+     * @param query - name the helper is registered under on the server
+     * @param method
+     * @param args
+     * @return
+     * @throws Exception
+     */
+    JSONArray callHelper(String query, String method, Object ... args) throws Exception {
+        Object[] helperArgs = new Object[args.length + 1];
+        helperArgs[0] = this;
+        System.arraycopy(args, 0, helperArgs, 1, args.length);
+
+        List<BaseObject> pending = new ArrayList<BaseObject>();
+        QueryBuilder builder = new QueryBuilder();
+        Object[] arguments = resolveArguments(builder, pending, helperArgs);
+
+        builder.map(query, method, arguments);
+        return execute(builder, pending);
+    }
+
+    /**
+     * Joins names into the comma separated form server side helpers take
+     * @param names
+     * @return
+     */
+    static String joinNames(String[] names) {
+        StringBuilder joined = new StringBuilder();
+        for (String name : names) {
+            if (joined.length() > 0)
+                joined.append(',');
+            joined.append(name);
+        }
+
+        return joined.toString();
+    }
+
+    /**
+     * Replaces BaseObject arguments with their stored values, adding their creation to the request if needed
+     * @param builder
+     * @param pending
+     * @param args
+     * @return
+     * @throws Exception
+     */
+    static Object[] resolveArguments(QueryBuilder builder, List<BaseObject> pending, Object[] args) throws Exception {
+        for (BaseObject argument : getObjectArguments(args)) {
+            argument.addCreation(builder, pending);
+        }
+
+        return toStoredValues(args);
+    }
+
+    /**
+     * Returns the BaseObjects in a list of arguments
+     * @param args
+     * @return
+     */
+    static List<BaseObject> getObjectArguments(Object[] args) {
+        List<BaseObject> objects = new ArrayList<BaseObject>();
+        for (Object arg : args) {
+            if (arg instanceof BaseObject)
+                objects.add((BaseObject) arg);
+        }
+
+        return objects;
+    }
+
+    /**
+     * Replaces BaseObject arguments with their stored values
+     * @param args
+     * @return
+     */
+    static Object[] toStoredValues(Object[] args) {
+        Object[] arguments = new Object[args.length];
+        for (int x = 0; x < args.length; x++) {
+            if (args[x] instanceof BaseObject)
+                arguments[x] = QueryBuilder.getStoredValue(((BaseObject) args[x]).getStoredId());
+            else
+                arguments[x] = args[x];
+        }
+
+        return arguments;
     }
 
     /**
@@ -77,9 +293,18 @@ public class BaseObject {
     /**
      * Returns a stored value string for use with remote calls
      * This is useful when calling a function that takes a UiObject as an argument
+     * BaseObjects can also be passed to call(..) directly, which saves creating them in a request of their own
+     * Objects that have not been created on the server yet are created first.  If that fails a RuntimeException
+     * with the failure as its cause is thrown.
      * @return
      */
     public String getStoredValue() {
+        try {
+            create();
+        } catch (Exception e) {
+            throw new RuntimeException("Could not create " + getClass().getSimpleName() + " on the server: " + e.getMessage(), e);
+        }
+
         return QueryBuilder.getStoredValue(getStoredId());
     }
 
@@ -89,7 +314,7 @@ public class BaseObject {
      */
     public String toString() {
         try {
-            return new QueryBuilder().retrieveResult(storedId).call("toString").execute().getString(0);
+            return callAndStore("toString", null).getString(0);
         } catch (Exception e) {
             return "";
         }
@@ -0,0 +1,137 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.uiautomatorclient.components;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects every BaseObject created on this thread while it is open so they can all be freed on the server
+ * in one request
+ *
+ * ObjectArena arena = ObjectArena.open();
+ * try {
+ *     UiObject button = new UiObject(new UiSelector().call("text", "Cancel"));
+ *     ...
+ * } finally {
+ *     arena.close();
+ * }
+ *
+ * Arenas can be nested.  Objects belong to the innermost open arena.
+ */
+public class ObjectArena implements Closeable {
+    private static final ThreadLocal<ObjectArena> current = new ThreadLocal<ObjectArena>();
+
+    private final ObjectArena parent;
+    private final Set<ObjectReleaser.StoredReference> references = new LinkedHashSet<ObjectReleaser.StoredReference>();
+    private boolean closed = false;
+
+    private ObjectArena(ObjectArena parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Opens a new arena on this thread
+     * @return
+     */
+    public static ObjectArena open() {
+        ObjectArena arena = new ObjectArena(current.get());
+        current.set(arena);
+        return arena;
+    }
+
+    /**
+     * Returns the innermost open arena on this thread or null
+     * @return
+     */
+    public static ObjectArena current() {
+        return current.get();
+    }
+
+    void add(ObjectReleaser.StoredReference reference) {
+        synchronized (references) {
+            references.add(reference);
+        }
+        reference.arena = this;
+    }
+
+    void remove(ObjectReleaser.StoredReference reference) {
+        synchronized (references) {
+            references.remove(reference);
+        }
+    }
+
+    /**
+     * Returns the number of objects in this arena that have not been released yet
+     * @return
+     */
+    public int size() {
+        synchronized (references) {
+            return references.size();
+        }
+    }
+
+    /**
+     * Releases every object created in this arena and sends the removals to the server
+     */
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+
+        if (current.get() == this) {
+            if (parent == null)
+                current.remove();
+            else
+                current.set(parent);
+        }
+
+        List<ObjectReleaser.StoredReference> released;
+        synchronized (references) {
+            released = new ArrayList<ObjectReleaser.StoredReference>(references);
+        }
+
+        for (ObjectReleaser.StoredReference reference : released) {
+            ObjectReleaser.release(reference);
+        }
+
+        try {
+            ObjectReleaser.flush();
+        } catch (Exception e) {
+            // the server could not be reached so there is nothing left to free
+        }
+    }
+}
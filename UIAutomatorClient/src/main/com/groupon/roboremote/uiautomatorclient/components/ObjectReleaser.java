@@ -0,0 +1,291 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.uiautomatorclient.components;
+
+import com.groupon.roboremote.roboremoteclientcommon.QueryBuilder;
+import com.groupon.roboremote.roboremoteclientcommon.ResultHandler;
+import com.groupon.roboremote.uiautomatorclient.TestBase;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Frees the server side stored values of BaseObjects
+ * Objects that are closed or garbage collected have their stored ids queued and the removals are sent at the
+ * start of the next request so releasing an object never costs a round trip of its own
+ * Removals that were part of a failed request are queued again
+ * Removals are queued per automator port so they only go to the server(device) that holds the stored values
+ * A stored id can be held by more than one object(an owner and the objects borrowing it) and is only removed once
+ * all of them have been released
+ */
+public class ObjectReleaser {
+    private static final ReferenceQueue<BaseObject> collected = new ReferenceQueue<BaseObject>();
+
+    // phantom references are only enqueued while they are still reachable themselves
+    private static final Set<StoredReference> tracked = Collections.synchronizedSet(new HashSet<StoredReference>());
+    private static final ConcurrentHashMap<Integer, ConcurrentLinkedQueue<String>> pendingRemovals = new ConcurrentHashMap<Integer, ConcurrentLinkedQueue<String>>();
+
+    // number of tracked objects holding each stored id, keyed by port and stored id
+    private static final Map<String, Integer> holds = new HashMap<String, Integer>();
+
+    /**
+     * Reference to a BaseObject that outlives it and remembers which stored ids it holds
+     */
+    static class StoredReference extends PhantomReference<BaseObject> {
+        final String[] storedIds;
+        final int port;
+        volatile ObjectArena arena = null;
+
+        StoredReference(BaseObject object, String[] storedIds, int port) {
+            super(object, collected);
+            this.storedIds = storedIds;
+            this.port = port;
+        }
+    }
+
+    /**
+     * Start tracking the stored ids owned by an object
+     * The object is also added to the arena that is open on this thread, if any
+     * The ids belong to the automator port of the calling thread
+     * @param object
+     * @param storedIds
+     * @return
+     */
+    static StoredReference track(BaseObject object, String... storedIds) {
+        int port = TestBase.getAutomatorPort();
+        synchronized (holds) {
+            for (String storedId : storedIds) {
+                hold(port, storedId);
+            }
+        }
+
+        return track(new StoredReference(object, storedIds, port));
+    }
+
+    /**
+     * Start tracking an object that uses a stored id owned by another object
+     * The borrowed id is held until the borrowing object is released as well, so it stays on the server even if the
+     * owner is collected first.  Ids that are not tracked(ex: stored with QueryBuilder directly) are left alone.
+     * @param object
+     * @param borrowedId - stored id the object uses
+     * @param storedIds - stored ids owned by the object
+     * @return
+     */
+    static StoredReference borrow(BaseObject object, String borrowedId, String... storedIds) {
+        int port = TestBase.getAutomatorPort();
+        List<String> held = new ArrayList<String>();
+        synchronized (holds) {
+            if (holds.containsKey(getHoldKey(port, borrowedId))) {
+                hold(port, borrowedId);
+                held.add(borrowedId);
+            }
+
+            for (String storedId : storedIds) {
+                hold(port, storedId);
+                held.add(storedId);
+            }
+        }
+
+        return track(new StoredReference(object, held.toArray(new String[held.size()]), port));
+    }
+
+    private static StoredReference track(StoredReference reference) {
+        tracked.add(reference);
+
+        ObjectArena arena = ObjectArena.current();
+        if (arena != null)
+            arena.add(reference);
+
+        return reference;
+    }
+
+    /**
+     * Queue the stored ids of an object for removal
+     * Releasing the same object more than once has no effect
+     * @param reference
+     */
+    static void release(StoredReference reference) {
+        if (! tracked.remove(reference))
+            return;
+
+        reference.clear();
+
+        ObjectArena arena = reference.arena;
+        if (arena != null)
+            arena.remove(reference);
+
+        ConcurrentLinkedQueue<String> queue = getQueue(reference.port);
+        synchronized (holds) {
+            for (String storedId : reference.storedIds) {
+                if (unhold(reference.port, storedId))
+                    queue.add(storedId);
+            }
+        }
+    }
+
+    private static void hold(int port, String storedId) {
+        String key = getHoldKey(port, storedId);
+        Integer count = holds.get(key);
+        holds.put(key, count == null ? 1 : count + 1);
+    }
+
+    // returns true if nothing holds the stored id anymore
+    private static boolean unhold(int port, String storedId) {
+        String key = getHoldKey(port, storedId);
+        Integer count = holds.get(key);
+        if (count == null || count <= 1) {
+            holds.remove(key);
+            return true;
+        }
+
+        holds.put(key, count - 1);
+        return false;
+    }
+
+    private static String getHoldKey(int port, String storedId) {
+        return port + ":" + storedId;
+    }
+
+    /**
+     * Takes the stored ids queued for removal on a port
+     * The caller sends the removals and gives them back with requeueRemovals if the request fails
+     * @param port - automator port the request is sent to
+     * @return
+     */
+    public static List<String> takePendingRemovals(int port) {
+        releaseCollected();
+
+        List<String> removals = new ArrayList<String>();
+        ConcurrentLinkedQueue<String> queue = pendingRemovals.get(port);
+        if (queue == null)
+            return removals;
+
+        String storedId;
+        while ((storedId = queue.poll()) != null) {
+            removals.add(storedId);
+        }
+
+        return removals;
+    }
+
+    /**
+     * Queues removals that could not be sent so they go out with the next request
+     * @param port
+     * @param storedIds
+     */
+    public static void requeueRemovals(int port, List<String> storedIds) {
+        getQueue(port).addAll(storedIds);
+    }
+
+    /**
+     * Sends the removals queued for the automator port of the calling thread now instead of with the next request
+     * @throws Exception
+     */
+    public static void flush() throws Exception {
+        flush(TestBase.getAutomatorPort());
+    }
+
+    /**
+     * Sends the removals queued for a port now instead of with the next request
+     * @param port
+     * @throws Exception
+     */
+    public static void flush(int port) throws Exception {
+        List<String> removals = takePendingRemovals(port);
+        if (removals.isEmpty())
+            return;
+
+        QueryBuilder builder = new QueryBuilder(port);
+        for (String storedId : removals) {
+            builder.removeResult(storedId);
+        }
+
+        try {
+            builder.execute(ResultHandler.none());
+        } catch (Exception e) {
+            requeueRemovals(port, removals);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of stored ids waiting to be removed on all ports
+     * @return
+     */
+    public static int getPendingCount() {
+        releaseCollected();
+
+        int count = 0;
+        for (ConcurrentLinkedQueue<String> queue : pendingRemovals.values()) {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of objects whose stored values are still held on the server
+     * @return
+     */
+    public static int getTrackedCount() {
+        return tracked.size();
+    }
+
+    private static ConcurrentLinkedQueue<String> getQueue(int port) {
+        ConcurrentLinkedQueue<String> queue = pendingRemovals.get(port);
+        if (queue == null) {
+            ConcurrentLinkedQueue<String> created = new ConcurrentLinkedQueue<String>();
+            queue = pendingRemovals.putIfAbsent(port, created);
+            if (queue == null)
+                queue = created;
+        }
+
+        return queue;
+    }
+
+    private static void releaseCollected() {
+        Reference<? extends BaseObject> reference;
+        while ((reference = collected.poll()) != null) {
+            release((StoredReference) reference);
+        }
+    }
+}
@@ -32,15 +32,31 @@
 
 package com.groupon.roboremote.uiautomatorclient.components;
 
+import com.groupon.roboremote.uiautomatorclient.Constants;
 import com.groupon.roboremote.uiautomatorclient.QueryBuilder;
 import org.json.JSONArray;
 
-import java.util.UUID;
-
 public class UiCollection extends BaseObject {
+    private UiSelector selector = null;
+
+    /**
+     * Creates an object for a selector
+     * The object and selector are created on the server by the first call
+     * @param selector
+     * @throws Exception
+     */
     public UiCollection(UiSelector selector) throws Exception {
-        storedId = UUID.randomUUID().toString();
-        new QueryBuilder().instantiate("com.android.uiautomator.core.UiCollection", QueryBuilder.getStoredValue(selector.getStoredId())).storeResult(storedId).execute();
+        createStoredId();
+        this.selector = selector;
+        deferCreation();
+    }
+
+    protected BaseObject[] getDependencies() {
+        return new BaseObject[] {selector};
+    }
+
+    protected void addCreateOperations(QueryBuilder builder) throws Exception {
+        builder.instantiate("com.android.uiautomator.core.UiCollection", QueryBuilder.getStoredValue(selector.getStoredId()));
     }
 
     /**
@@ -53,4 +69,16 @@ public class UiCollection extends BaseObject {
     public JSONArray call(String method, Object ... args) throws Exception {
         return super.callMethod(method, args);
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads properties of every child matching a pattern in a single request
+     * Property names are text, bounds, className, contentDescription, checked, enabled and selected
+     * @param childPattern
+     * @param properties - properties to read, all of them if none are given
+     * @return - one JSONObject per child keyed by property name plus its index
+     * @throws Exception
+     */
+    public JSONArray getChildren(UiSelector childPattern, String ... properties) throws Exception {
+        return callHelper(Constants.UIAUTOMATOR_CHILD_ENUMERATOR, "getChildren", childPattern, joinNames(properties));
+    }
+}
@@ -32,10 +32,20 @@
 
 package com.groupon.roboremote.uiautomatorclient.components;
 
+import com.groupon.roboremote.roboremoteclientcommon.Gesture;
+import com.groupon.roboremote.roboremoteclientcommon.ResultCache;
 import com.groupon.roboremote.uiautomatorclient.Client;
 import com.groupon.roboremote.uiautomatorclient.Constants;
 
 public class UiDevice {
+    // these only change on rotation so they can be served from the result cache
+    static {
+        ResultCache.addPureOperation(Constants.UIAUTOMATOR_UIDEVICE + ".getDisplayWidth");
+        ResultCache.addPureOperation(Constants.UIAUTOMATOR_UIDEVICE + ".getDisplayHeight");
+        ResultCache.addPureOperation(Constants.UIAUTOMATOR_UIDEVICE + ".getProductName");
+        ResultCache.addPureOperation(Constants.UIAUTOMATOR_UIDEVICE + ".isNaturalOrientation");
+    }
+
     /**
      * Open notification shade
      * @return
@@ -48,7 +58,7 @@ public class UiDevice {
         int apiLevel = Client.getInstance().mapField("android.os.Build$VERSION", "SDK_INT").getInt(0);
 
         if (apiLevel >= 18) {
-            success = Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "openNotification").getBoolean(0);
+            success = Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "openNotification");
         } else {
             // try a brute force method
             int displayHeight = getDisplayHeight();
@@ -56,7 +66,7 @@ public class UiDevice {
             // Calculated a Y position to pull down to that is the display height minus 10%
             int pullTo = displayHeight - (int)((double)displayHeight * .1);
 
-            Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "swipe", 10, 0, 10, pullTo, 100);
+            Client.getInstance().mapVoid(Constants.UIAUTOMATOR_UIDEVICE, "swipe", 10, 0, 10, pullTo, 100);
             success = true;
         }
         return success;
@@ -70,7 +80,7 @@ public class UiDevice {
      * @throws Exception
      */
     public static boolean click(int x, int y) throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "click", x, y).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "click", x, y);
     }
 
     /**
@@ -84,7 +94,7 @@ public class UiDevice {
      * @throws Exception
      */
     public static boolean drag(int startX, int startY, int endX, int endY, int steps) throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "drag", startX, startY, endX, endY, steps).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "drag", startX, startY, endX, endY, steps);
     }
 
     /**
@@ -92,7 +102,7 @@ public class UiDevice {
      * @throws Exception
      */
     public static void freezeRotation() throws Exception {
-        Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "freezeRotation");
+        Client.getInstance().mapVoid(Constants.UIAUTOMATOR_UIDEVICE, "freezeRotation");
     }
 
     /**
@@ -101,35 +111,35 @@ public class UiDevice {
      * @throws Exception
      */
     public static String getCurrentPackageName() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "getCurrentPackageName").getString(0);
+        return Client.getInstance().mapString(Constants.UIAUTOMATOR_UIDEVICE, "getCurrentPackageName");
     }
 
     public static int getDisplayHeight() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "getDisplayHeight").getInt(0);
+        return Client.getInstance().mapInt(Constants.UIAUTOMATOR_UIDEVICE, "getDisplayHeight");
     }
 
     public static int getDisplayWidth() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "getDisplayWidth").getInt(0);
+        return Client.getInstance().mapInt(Constants.UIAUTOMATOR_UIDEVICE, "getDisplayWidth");
     }
 
     public static int getDisplayRotation() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "getDisplayRotation").getInt(0);
+        return Client.getInstance().mapInt(Constants.UIAUTOMATOR_UIDEVICE, "getDisplayRotation");
     }
 
     public static String getLastTraversedText() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "getLastTraversedText").getString(0);
+        return Client.getInstance().mapString(Constants.UIAUTOMATOR_UIDEVICE, "getLastTraversedText");
     }
 
     public static String getProductName() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "getProductName").getString(0);
+        return Client.getInstance().mapString(Constants.UIAUTOMATOR_UIDEVICE, "getProductName");
     }
 
     public static boolean isNaturalOrientation() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "isNaturalOrientation").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "isNaturalOrientation");
     }
 
     public static boolean isScreenOn() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "isScreenOn").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "isScreenOn");
     }
 
     /**
@@ -138,105 +148,115 @@ public class UiDevice {
      * @throws Exception
      */
     public static boolean openQuickSettings() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "openQuickSettings").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "openQuickSettings");
     }
 
     public static boolean pressBack() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "pressBack").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "pressBack");
     }
 
     public static boolean pressDPadCenter() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "pressDPadCenter").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "pressDPadCenter");
     }
 
     public static boolean pressDPadDown() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "pressDPadDown").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "pressDPadDown");
     }
 
     public static boolean pressDPadLeft() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "pressDPadLeft").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "pressDPadLeft");
     }
 
     public static boolean pressDPadRight() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "pressDPadRight").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "pressDPadRight");
     }
 
     public static boolean pressDPadUp() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "pressDPadUp").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "pressDPadUp");
     }
 
     public static boolean pressDelete() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "pressDelete").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "pressDelete");
     }
 
     public static boolean pressEnter() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "pressEnter").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "pressEnter");
     }
 
     public static boolean pressHome() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "pressHome").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "pressHome");
     }
 
     public static boolean pressKeyCode(int keyCode, int metaState) throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "pressKeyCode", keyCode, metaState).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "pressKeyCode", keyCode, metaState);
     }
 
     public static boolean pressKeyCode(int keyCode) throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "pressKeyCode", keyCode).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "pressKeyCode", keyCode);
     }
 
     public static boolean pressMenu() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "pressMenu").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "pressMenu");
     }
 
     public static boolean pressRecentApps() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "pressRecentApps").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "pressRecentApps");
     }
 
     public static boolean pressSearch() throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "pressSearch").getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "pressSearch");
     }
 
     public static void setOrientationLeft() throws Exception {
-        Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "setOrientationLeft");
+        Client.getInstance().mapVoid(Constants.UIAUTOMATOR_UIDEVICE, "setOrientationLeft");
     }
 
     public static void setOrientationNatural() throws Exception {
-        Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "setOrientationNatural");
+        Client.getInstance().mapVoid(Constants.UIAUTOMATOR_UIDEVICE, "setOrientationNatural");
     }
 
     public static void setOrientationRight() throws Exception {
-        Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "setOrientationRight");
+        Client.getInstance().mapVoid(Constants.UIAUTOMATOR_UIDEVICE, "setOrientationRight");
     }
 
     public static void sleep() throws Exception {
-        Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "sleep");
+        Client.getInstance().mapVoid(Constants.UIAUTOMATOR_UIDEVICE, "sleep");
     }
 
     public static boolean swipe(int startX, int startY, int endX, int endY, int steps) throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "swipe", startX, startY, endX, endY, steps).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "swipe", startX, startY, endX, endY, steps);
+    }
+
+    /**
+     * Play a multi pointer gesture in a single request with the timing kept on the device
+     * @param gesture
+     * @return the largest number of ms an event was injected after its scheduled time
+     * @throws Exception
+     */
+    public static long playGesture(Gesture gesture) throws Exception {
+        return Client.getInstance().mapLong(Constants.UIAUTOMATOR_GESTURE_INJECTOR, "play", gesture.toScript());
     }
 
    // TODO: implement this
    //  public boolean takeScreenshot (File storePath)
 
     public static void unfreezeRotation() throws Exception {
-        Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "unfreezeRotation");
+        Client.getInstance().mapVoid(Constants.UIAUTOMATOR_UIDEVICE, "unfreezeRotation");
     }
 
     public static void waitForIdle(long timeout) throws Exception {
-        Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "waitForIdle", timeout);
+        Client.getInstance().mapVoid(Constants.UIAUTOMATOR_UIDEVICE, "waitForIdle", timeout);
     }
 
     public static void waitForIdle() throws Exception {
-        Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "waitForIdle");
+        Client.getInstance().mapVoid(Constants.UIAUTOMATOR_UIDEVICE, "waitForIdle");
     }
 
     public static boolean waitForWindowUpdate(String packageName, long timeout) throws Exception {
-        return Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "waitForWindowUpdate", packageName, timeout).getBoolean(0);
+        return Client.getInstance().mapBoolean(Constants.UIAUTOMATOR_UIDEVICE, "waitForWindowUpdate", packageName, timeout);
     }
 
     public static void wakeUp() throws Exception {
-        Client.getInstance().map(Constants.UIAUTOMATOR_UIDEVICE, "wakeUp");
+        Client.getInstance().mapVoid(Constants.UIAUTOMATOR_UIDEVICE, "wakeUp");
     }
 }
@@ -35,16 +35,31 @@ package com.groupon.roboremote.uiautomatorclient.components;
 import com.groupon.roboremote.uiautomatorclient.QueryBuilder;
 import org.json.JSONArray;
 
-import java.util.UUID;
-
 public class UiObject extends BaseObject {
+    private UiSelector selector = null;
+
     public UiObject(String storedId) {
         super(storedId);
     }
 
+    /**
+     * Creates an object for a selector
+     * The object and selector are created on the server by the first call
+     * @param selector
+     * @throws Exception
+     */
     public UiObject(UiSelector selector) throws Exception {
-        storedId = UUID.randomUUID().toString();
-        new QueryBuilder().instantiate("com.android.uiautomator.core.UiObject", QueryBuilder.getStoredValue(selector.getStoredId())).storeResult(storedId).execute();
+        createStoredId();
+        this.selector = selector;
+        deferCreation();
+    }
+
+    protected BaseObject[] getDependencies() {
+        return new BaseObject[] {selector};
+    }
+
+    protected void addCreateOperations(QueryBuilder builder) throws Exception {
+        builder.instantiate("com.android.uiautomator.core.UiObject", QueryBuilder.getStoredValue(selector.getStoredId()));
     }
 
     /**
@@ -33,26 +33,56 @@
 package com.groupon.roboremote.uiautomatorclient.components;
 
 import com.groupon.roboremote.uiautomatorclient.QueryBuilder;
-import java.util.UUID;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Selector criteria are collected locally and sent as a single instantiate and configure chain
+ * as part of the first request that uses the selector
+ */
 public class UiSelector extends BaseObject {
+    // {method name, arguments} of each builder call in the order they were made
+    private final List<Object[]> criteria = new ArrayList<Object[]>();
+
     public UiSelector() throws Exception {
-        storedId = UUID.randomUUID().toString();
-        new QueryBuilder().instantiate("com.android.uiautomator.core.UiSelector").storeResult(storedId).execute();
+        createStoredId();
+        deferCreation();
     }
 
     /**
      * Call a function on this object
+     * The call is made on the server when the selector is next used
      * @param method
      * @param args
      * @return
      * @throws Exception
      */
     public UiSelector call(String method, Object ... args) throws Exception {
-        new QueryBuilder().retrieveResult(storedId).call(method, args).storeResult(storedId).execute();
+        criteria.add(new Object[] {method, args});
+
+        // builder calls return a new selector so the whole chain is sent again
+        deferCreation();
         return this;
     }
 
+    protected BaseObject[] getDependencies() {
+        List<BaseObject> dependencies = new ArrayList<BaseObject>();
+        for (Object[] criterion : criteria) {
+            dependencies.addAll(getObjectArguments((Object[]) criterion[1]));
+        }
+
+        return dependencies.toArray(new BaseObject[dependencies.size()]);
+    }
+
+    protected void addCreateOperations(QueryBuilder builder) throws Exception {
+        builder.instantiate("com.android.uiautomator.core.UiSelector");
+
+        for (Object[] criterion : criteria) {
+            builder.call((String) criterion[0], toStoredValues((Object[]) criterion[1]));
+        }
+    }
+
     /**
      * Returns a stored ID for the last result of a call
      * @return
@@ -0,0 +1,280 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.uiautomatorclient.hierarchy;
+
+import com.groupon.roboremote.roboremoteclientcommon.Constants;
+import com.groupon.roboremote.roboremoteclientcommon.http.ResponseParser;
+import com.groupon.roboremote.uiautomatorclient.Client;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Indexed model of the accessibility hierarchy of the active window
+ * The hierarchy is fetched in one request from the UIAutomator server's hierarchy endpoint and can then be
+ * queried locally as many times as needed
+ *
+ * UiHierarchy hierarchy = UiHierarchy.fetch();
+ * UiNode okButton = hierarchy.findFirstByText("OK");
+ * UiDevice.click(okButton.getCenter()[0], okButton.getCenter()[1]);
+ */
+public class UiHierarchy {
+    private final List<UiNode> nodes = new ArrayList<UiNode>();
+    private final List<UiNode> roots = new ArrayList<UiNode>();
+    private final Map<String, List<UiNode>> byText = new HashMap<String, List<UiNode>>();
+    private final Map<String, List<UiNode>> byResourceId = new HashMap<String, List<UiNode>>();
+    private final Map<String, List<UiNode>> byClassName = new HashMap<String, List<UiNode>>();
+    private final Map<String, List<UiNode>> byContentDescription = new HashMap<String, List<UiNode>>();
+    private int rotation = 0;
+
+    private UiHierarchy() {
+    }
+
+    /**
+     * Fetches the hierarchy of the active window from the UIAutomator server
+     * @return
+     * @throws Exception
+     */
+    public static UiHierarchy fetch() throws Exception {
+        return Client.getInstance().get(Constants.REQUEST_HIERARCHY, new ResponseParser<UiHierarchy>() {
+            public UiHierarchy parse(InputStream in) throws Exception {
+                BufferedInputStream buffered = new BufferedInputStream(in);
+
+                // the server answers with a normal JSON failure if it could not dump the hierarchy
+                buffered.mark(1);
+                int first = buffered.read();
+                buffered.reset();
+                if (first == '{') {
+                    JSONObject failure = new JSONObject(new JSONTokener(new InputStreamReader(buffered, "UTF-8")));
+                    throw new Exception("Could not get hierarchy: " + failure.optString(Constants.RESULT_REASON, failure.toString()));
+                }
+
+                return UiHierarchy.parse(new GZIPInputStream(buffered));
+            }
+        });
+    }
+
+    /**
+     * Builds a hierarchy from XML in the UiDevice.dumpWindowHierarchy format
+     * @param xml
+     * @return
+     * @throws Exception
+     */
+    public static UiHierarchy parse(InputStream xml) throws Exception {
+        final UiHierarchy hierarchy = new UiHierarchy();
+
+        SAXParserFactory.newInstance().newSAXParser().parse(xml, new DefaultHandler() {
+            UiNode current = null;
+
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if (qName.equals("hierarchy")) {
+                    String rotation = attributes.getValue("rotation");
+                    if (rotation != null)
+                        hierarchy.rotation = Integer.parseInt(rotation);
+                } else if (qName.equals("node")) {
+                    Map<String, String> values = new HashMap<String, String>(attributes.getLength() * 2);
+                    for (int x = 0; x < attributes.getLength(); x++) {
+                        values.put(attributes.getQName(x), attributes.getValue(x));
+                    }
+
+                    current = new UiNode(current, values, hierarchy.nodes.size());
+                    hierarchy.add(current);
+                }
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName) {
+                if (qName.equals("node"))
+                    current = current.getParent();
+            }
+        });
+
+        return hierarchy;
+    }
+
+    private void add(UiNode node) {
+        nodes.add(node);
+        if (node.getParent() == null)
+            roots.add(node);
+
+        index(byText, node.getText(), node);
+        index(byResourceId, node.getResourceId(), node);
+        index(byClassName, node.getClassName(), node);
+        index(byContentDescription, node.getContentDescription(), node);
+    }
+
+    private static void index(Map<String, List<UiNode>> index, String key, UiNode node) {
+        // most nodes have no text or description so empty values are not worth indexing
+        if (key == null || key.length() == 0)
+            return;
+
+        List<UiNode> matches = index.get(key);
+        if (matches == null) {
+            matches = new ArrayList<UiNode>(1);
+            index.put(key, matches);
+        }
+        matches.add(node);
+    }
+
+    private static List<UiNode> lookup(Map<String, List<UiNode>> index, String key) {
+        List<UiNode> matches = index.get(key);
+        return matches == null ? Collections.<UiNode>emptyList() : Collections.unmodifiableList(matches);
+    }
+
+    private static UiNode first(List<UiNode> matches) {
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    /**
+     * Returns every node in depth first order
+     * @return
+     */
+    public List<UiNode> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    public List<UiNode> getRoots() {
+        return Collections.unmodifiableList(roots);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    /**
+     * Returns the node with an id(its position in a depth first walk)
+     * @param id
+     * @return
+     */
+    public UiNode getNode(int id) {
+        return nodes.get(id);
+    }
+
+    public List<UiNode> findByText(String text) {
+        return lookup(byText, text);
+    }
+
+    public UiNode findFirstByText(String text) {
+        return first(findByText(text));
+    }
+
+    public List<UiNode> findByResourceId(String resourceId) {
+        return lookup(byResourceId, resourceId);
+    }
+
+    public UiNode findFirstByResourceId(String resourceId) {
+        return first(findByResourceId(resourceId));
+    }
+
+    public List<UiNode> findByClassName(String className) {
+        return lookup(byClassName, className);
+    }
+
+    public List<UiNode> findByContentDescription(String contentDescription) {
+        return lookup(byContentDescription, contentDescription);
+    }
+
+    /**
+     * Returns nodes whose whole text matches a regular expression
+     * @param regex
+     * @return
+     */
+    public List<UiNode> findByTextMatching(String regex) {
+        final Pattern pattern = Pattern.compile(regex);
+        List<UiNode> matches = new ArrayList<UiNode>();
+
+        for (Map.Entry<String, List<UiNode>> entry : byText.entrySet()) {
+            if (pattern.matcher(entry.getKey()).matches())
+                matches.addAll(entry.getValue());
+        }
+
+        // keep the results in hierarchy order like the other finders
+        Collections.sort(matches, new Comparator<UiNode>() {
+            public int compare(UiNode a, UiNode b) {
+                return a.getId() - b.getId();
+            }
+        });
+
+        return matches;
+    }
+
+    /**
+     * Returns all nodes matching a filter in depth first order
+     * @param filter
+     * @return
+     */
+    public List<UiNode> find(UiNode.Filter filter) {
+        List<UiNode> matches = new ArrayList<UiNode>();
+        for (UiNode node : nodes) {
+            if (filter.matches(node))
+                matches.add(node);
+        }
+
+        return matches;
+    }
+
+    /**
+     * Returns the deepest node containing a screen coordinate or null
+     * @param x
+     * @param y
+     * @return
+     */
+    public UiNode findAt(int x, int y) {
+        UiNode deepest = null;
+        for (UiNode node : nodes) {
+            if (node.contains(x, y) && (deepest == null || node.getDepth() >= deepest.getDepth()))
+                deepest = node;
+        }
+
+        return deepest;
+    }
+}
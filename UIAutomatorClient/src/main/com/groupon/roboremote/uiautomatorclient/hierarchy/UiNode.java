@@ -0,0 +1,234 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.uiautomatorclient.hierarchy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A node of the accessibility hierarchy
+ * Attribute names are the ones used by UiDevice.dumpWindowHierarchy(text, resource-id, class, content-desc, bounds, ..)
+ */
+public class UiNode {
+    /**
+     * Used to search a hierarchy for nodes
+     */
+    public interface Filter {
+        public boolean matches(UiNode node);
+    }
+
+    private final Map<String, String> attributes;
+    private final UiNode parent;
+    private final List<UiNode> children = new ArrayList<UiNode>();
+    private final int id;
+    private final int depth;
+    private int[] bounds = null;
+
+    UiNode(UiNode parent, Map<String, String> attributes, int id) {
+        this.parent = parent;
+        this.attributes = attributes;
+        this.id = id;
+        this.depth = parent == null ? 0 : parent.depth + 1;
+
+        if (parent != null)
+            parent.children.add(this);
+    }
+
+    /**
+     * Returns the position of this node in a depth first walk of the hierarchy
+     * @return
+     */
+    public int getId() {
+        return id;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public UiNode getParent() {
+        return parent;
+    }
+
+    public List<UiNode> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Returns the value of an attribute or null if the node does not have it
+     * @param name
+     * @return
+     */
+    public String getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    public Map<String, String> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    public boolean getBooleanAttribute(String name) {
+        return Boolean.parseBoolean(attributes.get(name));
+    }
+
+    /**
+     * Returns the index of this node among its visible siblings
+     * @return
+     */
+    public int getIndex() {
+        String index = attributes.get("index");
+        return index == null ? 0 : Integer.parseInt(index);
+    }
+
+    public String getText() {
+        return attributes.get("text");
+    }
+
+    public String getResourceId() {
+        return attributes.get("resource-id");
+    }
+
+    public String getClassName() {
+        return attributes.get("class");
+    }
+
+    public String getPackageName() {
+        return attributes.get("package");
+    }
+
+    public String getContentDescription() {
+        return attributes.get("content-desc");
+    }
+
+    public boolean isChecked() {
+        return getBooleanAttribute("checked");
+    }
+
+    public boolean isClickable() {
+        return getBooleanAttribute("clickable");
+    }
+
+    public boolean isEnabled() {
+        return getBooleanAttribute("enabled");
+    }
+
+    public boolean isScrollable() {
+        return getBooleanAttribute("scrollable");
+    }
+
+    public boolean isSelected() {
+        return getBooleanAttribute("selected");
+    }
+
+    /**
+     * Returns the screen bounds of this node as {left, top, right, bottom}
+     * @return
+     */
+    public int[] getBounds() {
+        if (bounds == null) {
+            bounds = new int[4];
+
+            // bounds look like [0,0][1080,1920]
+            String value = attributes.get("bounds");
+            if (value != null) {
+                String[] parts = value.replace("][", ",").replace("[", "").replace("]", "").split(",");
+                for (int x = 0; x < 4 && x < parts.length; x++) {
+                    bounds[x] = Integer.parseInt(parts[x].trim());
+                }
+            }
+        }
+
+        return bounds.clone();
+    }
+
+    /**
+     * Returns the center of this node on screen as {x, y}
+     * @return
+     */
+    public int[] getCenter() {
+        int[] b = getBounds();
+        return new int[] {(b[0] + b[2]) / 2, (b[1] + b[3]) / 2};
+    }
+
+    /**
+     * Returns true if a screen coordinate is within the bounds of this node
+     * @param x
+     * @param y
+     * @return
+     */
+    public boolean contains(int x, int y) {
+        int[] b = getBounds();
+        return x >= b[0] && x < b[2] && y >= b[1] && y < b[3];
+    }
+
+    /**
+     * Returns the first ancestor matching a filter or null
+     * @param filter
+     * @return
+     */
+    public UiNode findAncestor(Filter filter) {
+        for (UiNode node = parent; node != null; node = node.parent) {
+            if (filter.matches(node))
+                return node;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns all descendants of this node matching a filter in depth first order
+     * @param filter
+     * @return
+     */
+    public List<UiNode> findDescendants(Filter filter) {
+        List<UiNode> matches = new ArrayList<UiNode>();
+        addDescendants(filter, matches);
+        return matches;
+    }
+
+    private void addDescendants(Filter filter, List<UiNode> matches) {
+        for (UiNode child : children) {
+            if (filter.matches(child))
+                matches.add(child);
+
+            child.addDescendants(filter, matches);
+        }
+    }
+
+    public String toString() {
+        return getClassName() + "[id=" + id + ", text=" + getText() + ", resource-id=" + getResourceId() +
+                ", bounds=" + attributes.get("bounds") + "]";
+    }
+}
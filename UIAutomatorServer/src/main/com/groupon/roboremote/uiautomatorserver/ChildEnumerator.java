@@ -0,0 +1,184 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.uiautomatorserver;
+
+import android.graphics.Rect;
+import com.android.uiautomator.core.UiCollection;
+import com.android.uiautomator.core.UiObject;
+import com.android.uiautomator.core.UiObjectNotFoundException;
+import com.android.uiautomator.core.UiScrollable;
+import com.android.uiautomator.core.UiSelector;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads the properties of every child of a UiCollection or UiScrollable in a single request
+ * Without this each child costs a getChildByInstance round trip plus one more for every property read
+ */
+public class ChildEnumerator {
+    public static final String PROPERTY_TEXT = "text";
+    public static final String PROPERTY_BOUNDS = "bounds";
+    public static final String PROPERTY_CLASS_NAME = "className";
+    public static final String PROPERTY_CONTENT_DESCRIPTION = "contentDescription";
+    public static final String PROPERTY_CHECKED = "checked";
+    public static final String PROPERTY_ENABLED = "enabled";
+    public static final String PROPERTY_SELECTED = "selected";
+
+    // every child result also has its instance index
+    public static final String PROPERTY_INDEX = "index";
+
+    private static final List<String> ALL_PROPERTIES = Arrays.asList(PROPERTY_TEXT, PROPERTY_BOUNDS,
+            PROPERTY_CLASS_NAME, PROPERTY_CONTENT_DESCRIPTION, PROPERTY_CHECKED, PROPERTY_ENABLED, PROPERTY_SELECTED);
+
+    /**
+     * Gets properties for all children of a collection that match a pattern
+     * @param collection
+     * @param childPattern
+     * @param properties - comma separated property names, empty for all of them
+     * @return one JSON object per child keyed by property name
+     * @throws Exception
+     */
+    public ArrayList<JSONObject> getChildren(UiCollection collection, UiSelector childPattern, String properties) throws Exception {
+        ArrayList<JSONObject> children = new ArrayList<JSONObject>();
+        addVisibleChildren(collection, childPattern, parseProperties(properties), children, null);
+
+        return children;
+    }
+
+    /**
+     * Gets properties for all children of a scrollable that match a pattern
+     * When scrollThrough is true the scrollable is scrolled from the beginning to the end and children are
+     * collected along the way.  Children are told apart by their text, class and content description so
+     * identical rows are only reported once.
+     * @param scrollable
+     * @param childPattern
+     * @param properties - comma separated property names, empty for all of them
+     * @param scrollThrough
+     * @param maxSwipes - maximum number of swipes to make while scrolling through
+     * @return one JSON object per child keyed by property name
+     * @throws Exception
+     */
+    public ArrayList<JSONObject> getChildren(UiScrollable scrollable, UiSelector childPattern, String properties,
+                                             boolean scrollThrough, int maxSwipes) throws Exception {
+        if (! scrollThrough)
+            return getChildren(scrollable, childPattern, properties);
+
+        List<String> wanted = parseProperties(properties);
+        ArrayList<JSONObject> children = new ArrayList<JSONObject>();
+        Set<String> seen = new HashSet<String>();
+
+        scrollable.scrollToBeginning(maxSwipes);
+        for (int swipe = 0; swipe <= maxSwipes; swipe++) {
+            addVisibleChildren(scrollable, childPattern, wanted, children, seen);
+
+            if (! scrollable.scrollForward()) {
+                // the last swipe may still have moved new children onto the screen
+                addVisibleChildren(scrollable, childPattern, wanted, children, seen);
+                break;
+            }
+        }
+
+        return children;
+    }
+
+    private void addVisibleChildren(UiCollection collection, UiSelector childPattern, List<String> properties,
+                                    List<JSONObject> children, Set<String> seen) throws Exception {
+        int childCount = collection.getChildCount(childPattern);
+
+        for (int x = 0; x < childCount; x++) {
+            try {
+                UiObject child = collection.getChildByInstance(childPattern, x);
+
+                if (seen != null && ! seen.add(child.getText() + "\n" + child.getClassName() + "\n" + child.getContentDescription()))
+                    continue;
+
+                JSONObject childProperties = readProperties(child, properties);
+                childProperties.put(PROPERTY_INDEX, children.size());
+                children.add(childProperties);
+            } catch (UiObjectNotFoundException e) {
+                // the child went away between counting and reading it
+            }
+        }
+    }
+
+    private JSONObject readProperties(UiObject child, List<String> properties) throws Exception {
+        JSONObject result = new JSONObject();
+
+        for (String property : properties) {
+            if (property.equals(PROPERTY_TEXT)) {
+                result.put(property, child.getText());
+            } else if (property.equals(PROPERTY_BOUNDS)) {
+                Rect bounds = child.getBounds();
+                JSONObject rect = new JSONObject();
+                rect.put("left", bounds.left);
+                rect.put("top", bounds.top);
+                rect.put("right", bounds.right);
+                rect.put("bottom", bounds.bottom);
+                result.put(property, rect);
+            } else if (property.equals(PROPERTY_CLASS_NAME)) {
+                result.put(property, child.getClassName());
+            } else if (property.equals(PROPERTY_CONTENT_DESCRIPTION)) {
+                result.put(property, child.getContentDescription());
+            } else if (property.equals(PROPERTY_CHECKED)) {
+                result.put(property, child.isChecked());
+            } else if (property.equals(PROPERTY_ENABLED)) {
+                result.put(property, child.isEnabled());
+            } else if (property.equals(PROPERTY_SELECTED)) {
+                result.put(property, child.isSelected());
+            }
+        }
+
+        return result;
+    }
+
+    private List<String> parseProperties(String properties) throws Exception {
+        if (properties == null || properties.trim().length() == 0)
+            return ALL_PROPERTIES;
+
+        List<String> parsed = new ArrayList<String>();
+        for (String property : properties.split(",")) {
+            property = property.trim();
+            if (! ALL_PROPERTIES.contains(property))
+                throw new Exception("Unknown child property: " + property);
+
+            parsed.add(property);
+        }
+
+        return parsed;
+    }
+}
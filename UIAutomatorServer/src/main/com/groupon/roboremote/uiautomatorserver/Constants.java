@@ -34,4 +34,6 @@ package com.groupon.roboremote.uiautomatorserver;
 
 public class Constants {
     public static final String UIAUTOMATOR_UIDEVICE = "getUiDevice";
+    public static final String UIAUTOMATOR_CHILD_ENUMERATOR = "getChildEnumerator";
+    public static final String UIAUTOMATOR_GESTURE_INJECTOR = "getGestureInjector";
 }
@@ -0,0 +1,61 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.uiautomatorserver;
+
+import android.view.InputEvent;
+import android.view.MotionEvent;
+import com.android.uiautomator.core.UiDevice;
+import com.groupon.roboremote.roboremoteservercommon.gesture.GesturePlayer;
+
+/**
+ * Plays gesture scripts through the UiAutomation connection uiautomator uses for its own clicks and swipes
+ */
+public class GestureInjector extends GesturePlayer {
+    UiDevice device = null;
+    Object bridge = null;
+
+    public GestureInjector(UiDevice device) {
+        this.device = device;
+    }
+
+    protected void inject(MotionEvent event) throws Exception {
+        if (bridge == null)
+            bridge = HiddenApi.getAutomatorBridge(device);
+
+        Boolean injected = (Boolean) HiddenApi.invoke(bridge, "injectInputEvent",
+                new Class<?>[] {InputEvent.class, boolean.class}, event, true);
+
+        if (! injected)
+            throw new Exception("Could not inject gesture event: " + event);
+    }
+}
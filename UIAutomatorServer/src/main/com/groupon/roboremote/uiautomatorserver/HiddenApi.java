@@ -0,0 +1,78 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.uiautomatorserver;
+
+import com.android.uiautomator.core.UiDevice;
+
+import java.lang.reflect.Method;
+
+/**
+ * Access to the uiautomator internals that UiDevice does not expose
+ */
+class HiddenApi {
+    private HiddenApi() {
+    }
+
+    /**
+     * Gets the bridge UiDevice uses to talk to UiAutomation
+     * @param device
+     * @return
+     * @throws Exception
+     */
+    static Object getAutomatorBridge(UiDevice device) throws Exception {
+        return invoke(device, "getAutomatorBridge", new Class<?>[0]);
+    }
+
+    /**
+     * Calls a method that may be package private and declared on a superclass
+     * @param target
+     * @param methodName
+     * @param parameterTypes
+     * @param args
+     * @return
+     * @throws Exception
+     */
+    static Object invoke(Object target, String methodName, Class<?>[] parameterTypes, Object... args) throws Exception {
+        for (Class<?> c = target.getClass(); c != null; c = c.getSuperclass()) {
+            try {
+                Method method = c.getDeclaredMethod(methodName, parameterTypes);
+                method.setAccessible(true);
+                return method.invoke(target, args);
+            } catch (NoSuchMethodException e) {
+                // keep looking in the superclass
+            }
+        }
+
+        throw new NoSuchMethodException(methodName);
+    }
+}
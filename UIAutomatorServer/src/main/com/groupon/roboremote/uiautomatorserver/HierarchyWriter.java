@@ -0,0 +1,191 @@
+/*
+        Copyright (c) 2012, 2013, 2014, Groupon, Inc.
+        All rights reserved.
+
+        Redistribution and use in source and binary forms, with or without
+        modification, are permitted provided that the following conditions
+        are met:
+
+        Redistributions of source code must retain the above copyright notice,
+        this list of conditions and the following disclaimer.
+
+        Redistributions in binary form must reproduce the above copyright
+        notice, this list of conditions and the following disclaimer in the
+        documentation and/or other materials provided with the distribution.
+
+        Neither the name of GROUPON nor the names of its contributors may be
+        used to endorse or promote products derived from this software without
+        specific prior written permission.
+
+        THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+        IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+        TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+        PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+        HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+        SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+        TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+        PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+        LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+        NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+        SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.groupon.roboremote.uiautomatorserver;
+
+import android.graphics.Rect;
+import android.os.Environment;
+import android.util.Xml;
+import android.view.accessibility.AccessibilityNodeInfo;
+import com.android.uiautomator.core.UiDevice;
+import com.groupon.roboremote.roboremoteservercommon.NanoHTTPD;
+import org.xmlpull.v1.XmlSerializer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the accessibility hierarchy of the active window to the client as gzip compressed XML
+ * The XML has the same layout as UiDevice.dumpWindowHierarchy, but the nodes are serialized straight into the
+ * response instead of going through a file in /data/local/tmp
+ */
+public class HierarchyWriter implements NanoHTTPD.ContentWriter {
+    private static final String FALLBACK_DUMP_FILE = "roboremote_hierarchy.xml";
+
+    UiDevice device = null;
+
+    public HierarchyWriter(UiDevice device) {
+        this.device = device;
+    }
+
+    public void write(OutputStream out) throws IOException {
+        GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+
+        AccessibilityNodeInfo root = getRootNode();
+        if (root != null) {
+            writeHierarchy(root, gzipOut);
+        } else {
+            copyDump(gzipOut);
+        }
+
+        gzipOut.finish();
+        gzipOut.flush();
+    }
+
+    /**
+     * Gets the root of the active window through the bridge UiDevice uses internally
+     * @return the root node or null if the bridge is not reachable on this platform version
+     */
+    private AccessibilityNodeInfo getRootNode() {
+        try {
+            Object bridge = HiddenApi.getAutomatorBridge(device);
+            Object queryController = HiddenApi.invoke(bridge, "getQueryController", new Class<?>[0]);
+            return (AccessibilityNodeInfo) HiddenApi.invoke(queryController, "getAccessibilityRootNode", new Class<?>[0]);
+        } catch (Exception e) {
+            System.out.println("HierarchyWriter:: Could not get the root node: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeHierarchy(AccessibilityNodeInfo root, OutputStream out) throws IOException {
+        XmlSerializer serializer = Xml.newSerializer();
+        serializer.setOutput(out, "UTF-8");
+        serializer.startDocument("UTF-8", true);
+        serializer.startTag("", "hierarchy");
+        serializer.attribute("", "rotation", Integer.toString(device.getDisplayRotation()));
+
+        writeNode(root, serializer, 0);
+
+        serializer.endTag("", "hierarchy");
+        serializer.endDocument();
+    }
+
+    private void writeNode(AccessibilityNodeInfo node, XmlSerializer serializer, int index) throws IOException {
+        Rect bounds = new Rect();
+        node.getBoundsInScreen(bounds);
+
+        serializer.startTag("", "node");
+        serializer.attribute("", "index", Integer.toString(index));
+        serializer.attribute("", "text", safeText(node.getText()));
+        serializer.attribute("", "resource-id", safeText(node.getViewIdResourceName()));
+        serializer.attribute("", "class", safeText(node.getClassName()));
+        serializer.attribute("", "package", safeText(node.getPackageName()));
+        serializer.attribute("", "content-desc", safeText(node.getContentDescription()));
+        serializer.attribute("", "checkable", Boolean.toString(node.isCheckable()));
+        serializer.attribute("", "checked", Boolean.toString(node.isChecked()));
+        serializer.attribute("", "clickable", Boolean.toString(node.isClickable()));
+        serializer.attribute("", "enabled", Boolean.toString(node.isEnabled()));
+        serializer.attribute("", "focusable", Boolean.toString(node.isFocusable()));
+        serializer.attribute("", "focused", Boolean.toString(node.isFocused()));
+        serializer.attribute("", "scrollable", Boolean.toString(node.isScrollable()));
+        serializer.attribute("", "long-clickable", Boolean.toString(node.isLongClickable()));
+        serializer.attribute("", "password", Boolean.toString(node.isPassword()));
+        serializer.attribute("", "selected", Boolean.toString(node.isSelected()));
+        serializer.attribute("", "bounds", "[" + bounds.left + "," + bounds.top + "][" + bounds.right + "," + bounds.bottom + "]");
+
+        int childIndex = 0;
+        for (int x = 0; x < node.getChildCount(); x++) {
+            AccessibilityNodeInfo child = node.getChild(x);
+            if (child == null)
+                continue;
+
+            try {
+                // same as dumpWindowHierarchy, nodes that are not on screen are left out
+                if (child.isVisibleToUser()) {
+                    writeNode(child, serializer, childIndex);
+                    childIndex++;
+                }
+            } finally {
+                child.recycle();
+            }
+        }
+
+        serializer.endTag("", "node");
+    }
+
+    /**
+     * Copies a dump made by UiDevice.dumpWindowHierarchy for platforms where the root node is not reachable
+     * @param out
+     * @throws IOException
+     */
+    private void copyDump(OutputStream out) throws IOException {
+        device.dumpWindowHierarchy(FALLBACK_DUMP_FILE);
+
+        File dump = new File(new File(Environment.getDataDirectory(), "local/tmp"), FALLBACK_DUMP_FILE);
+        InputStream in = new FileInputStream(dump);
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+            dump.delete();
+        }
+    }
+
+    /**
+     * XML cannot carry most control characters so they are replaced the way dumpWindowHierarchy does
+     * @param text
+     * @return
+     */
+    private String safeText(CharSequence text) {
+        if (text == null)
+            return "";
+
+        StringBuilder safe = new StringBuilder(text.length());
+        for (int x = 0; x < text.length(); x++) {
+            char c = text.charAt(x);
+            if (c < 0x20 && c != '\t' && c != '\n' && c != '\r')
+                safe.append('?');
+            else
+                safe.append(c);
+        }
+
+        return safe.toString();
+    }
+}
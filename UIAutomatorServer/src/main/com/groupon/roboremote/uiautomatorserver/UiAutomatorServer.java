@@ -34,24 +34,54 @@ package com.groupon.roboremote.uiautomatorserver;
 
 import android.view.View;
 import com.android.uiautomator.core.UiDevice;
+import com.groupon.roboremote.roboremoteservercommon.NanoHTTPD;
 import com.groupon.roboremote.roboremoteservercommon.RemoteServer;
 import java.util.ArrayList;
+import java.util.Properties;
 
 public class UiAutomatorServer extends RemoteServer {
     UiDevice device = null;
+    ChildEnumerator childEnumerator = new ChildEnumerator();
+    GestureInjector gestureInjector = null;
 
     public UiAutomatorServer(UiDevice device) {
         this.device = device;
+        this.gestureInjector = new GestureInjector(device);
     }
 
     /**
-     * Implementation of getInstantiatedClass that returns a UiDevice if one is requested
+     * Implementation of getInstantiatedClass that returns a UiDevice, the ChildEnumerator or the GestureInjector if one is requested
      * @param query
      * @return
      */
     protected Object getInstantiatedClass(String query) {
         if (query.equals(Constants.UIAUTOMATOR_UIDEVICE)) {
             return device;
+        } else if (query.equals(Constants.UIAUTOMATOR_CHILD_ENUMERATOR)) {
+            return childEnumerator;
+        } else if (query.equals(Constants.UIAUTOMATOR_GESTURE_INJECTOR)) {
+            return gestureInjector;
+        }
+        return null;
+    }
+
+    /**
+     * UiAutomator has no access to activities so the signature is the display rotation plus the foreground package
+     * @return
+     */
+    protected String getStateSignature() {
+        return device.getDisplayRotation() + ":" + device.getCurrentPackageName();
+    }
+
+    /**
+     * Streams the window hierarchy as gzip compressed XML for the hierarchy endpoint
+     * @param uri
+     * @param params
+     * @return
+     */
+    protected NanoHTTPD.ContentWriter getStreamedContent(String uri, Properties params) {
+        if (uri.equalsIgnoreCase(com.groupon.roboremote.roboremoteservercommon.Constants.REQUEST_HIERARCHY)) {
+            return new HierarchyWriter(device);
         }
         return null;
     }